@@ -0,0 +1,109 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import picocli.CommandLine;
+
+@CommandLine.Command(
+        name = "logs",
+        mixinStandardHelpOptions = true,
+        description = "Print or search the build logs written by PCT, whether compressed or not.",
+        versionProvider = VersionProvider.class)
+public class BuildLogCli implements Callable<Integer> {
+
+    @CommandLine.Parameters(
+            arity = "1..*",
+            paramLabel = "path",
+            description =
+                    "Build log files, or directories to search for build logs (such as the logs directory in the working directory, or a subdirectory of it for a single plugin).")
+    private List<File> paths;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--grep",
+            paramLabel = "regex",
+            description = "Only print the lines matching the given regular expression, prefixed by the log file.")
+    private Pattern grep;
+
+    @Override
+    public Integer call() {
+        List<Path> logs = new ArrayList<>();
+        for (File path : paths) {
+            if (path.isDirectory()) {
+                try (Stream<Path> stream = Files.walk(path.toPath())) {
+                    logs.addAll(stream.filter(BuildLogCli::isBuildLog).sorted().collect(Collectors.toList()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            } else if (path.isFile()) {
+                logs.add(path.toPath());
+            } else {
+                throw new IllegalArgumentException("No such file or directory: " + path);
+            }
+        }
+        boolean found = false;
+        for (Path log : logs) {
+            found |= print(log);
+        }
+        return grep == null || found ? 0 : 1;
+    }
+
+    /**
+     * @return whether any line was printed
+     */
+    private boolean print(Path log) {
+        boolean found = false;
+        try (InputStream is = open(log);
+                BufferedReader r = new BufferedReader(new InputStreamReader(is, Charset.defaultCharset()))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (grep == null) {
+                    System.out.println(line);
+                    found = true;
+                } else if (grep.matcher(line).find()) {
+                    System.out.println(log + ": " + line);
+                    found = true;
+                }
+            }
+        } catch (EOFException e) {
+            // a compressed log that is still being written; everything flushed so far has been read
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read " + log, e);
+        }
+        return found;
+    }
+
+    private static InputStream open(Path log) throws IOException {
+        InputStream is = Files.newInputStream(log);
+        if (log.getFileName().toString().endsWith(".gz")) {
+            try {
+                return new GZIPInputStream(is);
+            } catch (IOException e) {
+                is.close();
+                throw e;
+            }
+        }
+        return is;
+    }
+
+    private static boolean isBuildLog(Path path) {
+        String name = path.getFileName().toString();
+        return Files.isRegularFile(path) && (name.endsWith(".log") || name.endsWith(".log.gz"));
+    }
+}
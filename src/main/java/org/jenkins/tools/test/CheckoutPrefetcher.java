@@ -0,0 +1,145 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * Clones repositories on background threads ahead of the stage that compiles and tests them, so that Git network and
+ * disk time is taken off the critical path. Repositories are cloned in iteration order, and the test stage takes each
+ * one by name, whichever order the clones finish in. At most {@code depth} repositories are cloned (or being cloned)
+ * ahead of the test stage, which bounds the Git work competing with the builds; the checkouts themselves stay in the working directory after testing,
+ * as they do without prefetching.
+ */
+final class CheckoutPrefetcher implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(CheckoutPrefetcher.class.getName());
+
+    private final List<Map.Entry<String, List<Plugin>>> repositories = new ArrayList<>();
+
+    /** The checkout of each repository, in iteration order. */
+    private final List<CompletableFuture<RepositoryCheckout>> checkouts = new ArrayList<>();
+
+    /** The index of each repository that has not been handed over yet. */
+    private final Map<String, Integer> indexes = new ConcurrentHashMap<>();
+
+    /** The index of the next repository to clone. */
+    private final AtomicInteger cloned = new AtomicInteger();
+
+    /** The number of clone threads that have not exited yet. */
+    private final AtomicInteger running;
+
+    private final Semaphore available;
+
+    private final List<Thread> threads = new ArrayList<>();
+
+    /**
+     * @param depth how many repositories to clone ahead of the test stage
+     * @param threadCount how many repositories to clone at the same time, at most {@code depth}
+     */
+    CheckoutPrefetcher(
+            @NonNull Iterable<Map.Entry<String, List<Plugin>>> repositories,
+            int depth,
+            int threadCount,
+            @NonNull RepositoryCheckout.Cloner cloner) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Prefetch depth must be at least 1, but was " + depth);
+        }
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Clone thread count must be at least 1, but was " + threadCount);
+        }
+        for (Map.Entry<String, List<Plugin>> entry : repositories) {
+            indexes.put(entry.getKey(), this.repositories.size());
+            this.repositories.add(entry);
+            this.checkouts.add(new CompletableFuture<>());
+        }
+        this.available = new Semaphore(depth);
+        int count = Math.min(threadCount, depth);
+        this.running = new AtomicInteger(count);
+        for (int i = 1; i <= count; i++) {
+            String name = "pct-clone-" + i;
+            Thread thread = new Thread(() -> prefetch(cloner), name);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+    }
+
+    void start() {
+        threads.forEach(Thread::start);
+    }
+
+    private void prefetch(RepositoryCheckout.Cloner cloner) {
+        try {
+            while (true) {
+                available.acquire();
+                int index = cloned.getAndIncrement();
+                if (index >= repositories.size()) {
+                    return;
+                }
+                Map.Entry<String, List<Plugin>> entry = repositories.get(index);
+                try {
+                    checkouts.get(index).complete(RepositoryCheckout.perform(entry.getKey(), entry.getValue(), cloner));
+                } catch (Throwable t) {
+                    // not a failure to check out the repository, so fail the test stage instead of hanging it
+                    checkouts.get(index).completeExceptionally(t);
+                    throw t;
+                }
+            }
+        } catch (InterruptedException e) {
+            LOGGER.log(Level.FINE, "Clone stage cancelled", e);
+        } finally {
+            if (running.decrementAndGet() == 0) {
+                // the repositories no clone thread is left to clone
+                IllegalStateException stopped = new IllegalStateException("Clone stage stopped");
+                checkouts.forEach(checkout -> checkout.completeExceptionally(stopped));
+            }
+        }
+    }
+
+    /**
+     * Wait for the given repository to be cloned, allowing the clone stage to proceed with a further repository. The
+     * repositories should be taken in iteration order, as the clone stage only gets {@code depth} repositories ahead.
+     *
+     * @throws NoSuchElementException if the repository is not prefetched or has been handed over already
+     * @throws IllegalStateException if the clone stage stopped before cloning the repository
+     */
+    @NonNull
+    RepositoryCheckout take(@NonNull String repository) throws InterruptedException {
+        Integer index = indexes.remove(repository);
+        if (index == null) {
+            throw new NoSuchElementException(repository + " is not prefetched or has been handed over already");
+        }
+        try {
+            return checkouts.get(index).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to clone " + repository, e.getCause());
+        } finally {
+            available.release();
+        }
+    }
+
+    /**
+     * Stop cloning; any Git process that is still running is killed.
+     */
+    @Override
+    public void close() {
+        threads.forEach(Thread::interrupt);
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
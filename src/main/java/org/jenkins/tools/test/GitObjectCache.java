@@ -0,0 +1,145 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.io.FileUtils;
+import org.jenkins.tools.test.exception.PluginSourcesUnavailableException;
+
+/**
+ * Persistent cache of Git objects with one bare repository per Git URL. Each tag or hash that is fetched is kept under
+ * {@code refs/pct/}, so it is only ever fetched once and later fetches of the same repository only transfer new
+ * objects. Checkouts borrow the objects of the cache through {@code objects/info/alternates} rather than copying them.
+ *
+ * <p>The refs under {@code refs/pct/} also keep the borrowed objects reachable, so that garbage collection in the cache
+ * never breaks an existing checkout.
+ *
+ * <p>The cache may be shared by several runs on the same machine, so fetches into a bare repository are serialized
+ * with a lock on a file next to it, in addition to the lock serializing the threads of this run.
+ */
+class GitObjectCache {
+
+    private static final Logger LOGGER = Logger.getLogger(GitObjectCache.class.getName());
+
+    /**
+     * Serializes the fetches into each bare repository within this JVM, as repositories may be cloned concurrently and
+     * a JVM may only hold one lock on a file. Keyed by lock file, so that all the caches in this JVM share it.
+     */
+    private static final ConcurrentMap<Path, Object> LOCKS = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final File cacheDirectory;
+
+    GitObjectCache(@NonNull File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Check out the given tag or hash of the given repository in the given directory, fetching it into the cache first
+     * if necessary.
+     */
+    void checkout(String gitUrl, String scmTag, File checkoutDirectory)
+            throws IOException, PluginSourcesUnavailableException {
+        File repository = getRepository(gitUrl);
+        String commit = fetch(gitUrl, scmTag, repository);
+
+        if (checkoutDirectory.isDirectory()) {
+            FileUtils.deleteDirectory(checkoutDirectory);
+        }
+        Files.createDirectories(checkoutDirectory.toPath());
+        PluginCompatTester.runCommand(checkoutDirectory, "git", "init");
+        Path alternates = checkoutDirectory.toPath().resolve(".git/objects/info/alternates");
+        Files.createDirectories(alternates.getParent());
+        Files.writeString(
+                alternates,
+                new File(repository, "objects").getAbsolutePath() + System.lineSeparator(),
+                StandardCharsets.UTF_8);
+        PluginCompatTester.runCommand(checkoutDirectory, "git", "checkout", "--detach", commit);
+    }
+
+    /**
+     * Make sure the given tag or hash is in the cache.
+     *
+     * @return the hash of the commit
+     */
+    private String fetch(String gitUrl, String scmTag, File repository)
+            throws IOException, PluginSourcesUnavailableException {
+        String ref = "refs/pct/" + scmTag;
+        Path lockFile = new File(cacheDirectory, repository.getName() + ".lock")
+                .toPath()
+                .toAbsolutePath()
+                .normalize();
+        synchronized (LOCKS.computeIfAbsent(lockFile, k -> new Object())) {
+            Files.createDirectories(cacheDirectory.toPath());
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock lock = channel.lock()) {
+                return fetchLocked(gitUrl, scmTag, ref, repository);
+            }
+        }
+    }
+
+    private static String fetchLocked(String gitUrl, String scmTag, String ref, File repository)
+            throws IOException, PluginSourcesUnavailableException {
+        if (!new File(repository, "HEAD").isFile()) {
+            Files.createDirectories(repository.toPath());
+            PluginCompatTester.runCommand(repository, "git", "init", "--bare");
+        }
+        String commit = resolve(repository, ref);
+        if (commit != null) {
+            LOGGER.log(Level.INFO, "Found {0} of {1} in {2}", new Object[] {scmTag, gitUrl, repository});
+            return commit;
+        }
+        LOGGER.log(Level.INFO, "Fetching {0} from Git repository {1} into {2}", new Object[] {
+            scmTag, gitUrl, repository
+        });
+        PluginCompatTester.runCommand(repository, "git", "fetch", "--no-tags", gitUrl, "+" + scmTag + ":" + ref);
+        commit = resolve(repository, ref);
+        if (commit == null) {
+            throw new PluginSourcesUnavailableException("Fetched " + scmTag + " from " + gitUrl
+                    + " but it does not resolve to a commit in " + repository);
+        }
+        return commit;
+    }
+
+    @CheckForNull
+    private static String resolve(File repository, String ref) throws IOException {
+        try {
+            String commit = PluginCompatTester.runCommand(
+                    repository, "git", "rev-parse", "--verify", "--quiet", ref + "^{commit}");
+            return commit.isEmpty() ? null : commit;
+        } catch (PluginSourcesUnavailableException e) {
+            // not in the cache yet
+            return null;
+        }
+    }
+
+    /**
+     * The bare repository for the given URL. The name includes a digest of the URL, as forks (for example those used
+     * as fallbacks) share the same repository name.
+     */
+    private File getRepository(String gitUrl) throws PluginSourcesUnavailableException {
+        String digest;
+        try {
+            digest = HexFormat.of()
+                    .formatHex(MessageDigest.getInstance("SHA-256").digest(gitUrl.getBytes(StandardCharsets.UTF_8)))
+                    .substring(0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always supported", e);
+        }
+        return new File(cacheDirectory, PluginCompatTester.getRepoNameFromGitUrl(gitUrl) + "-" + digest + ".git");
+    }
+}
@@ -32,24 +32,39 @@ import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.SystemUtils;
 import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
 import org.jenkins.tools.test.exception.PluginSourcesUnavailableException;
+import org.jenkins.tools.test.jfr.CloneEvent;
+import org.jenkins.tools.test.logging.BuildLog;
+import org.jenkins.tools.test.logging.ConsoleMirror;
 import org.jenkins.tools.test.maven.ExpressionEvaluator;
-import org.jenkins.tools.test.maven.ExternalMavenRunner;
+import org.jenkins.tools.test.maven.MavenRunner;
+import org.jenkins.tools.test.maven.MavenRunnerType;
+import org.jenkins.tools.test.maven.MavenRunners;
+import org.jenkins.tools.test.maven.ProjectFacts;
+import org.jenkins.tools.test.metrics.PctMetrics;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
 import org.jenkins.tools.test.model.hook.BeforeCheckoutContext;
 import org.jenkins.tools.test.model.hook.BeforeCompilationContext;
@@ -57,9 +72,19 @@ import org.jenkins.tools.test.model.hook.BeforeExecutionContext;
 import org.jenkins.tools.test.model.hook.PluginCompatTesterHooks;
 import org.jenkins.tools.test.model.plugin_metadata.LocalCheckoutPluginMetadataExtractor;
 import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.jenkins.tools.test.report.Phase;
+import org.jenkins.tools.test.report.PhaseTimer;
+import org.jenkins.tools.test.report.PhaseTiming;
+import org.jenkins.tools.test.report.PluginReport;
+import org.jenkins.tools.test.report.RunJournal;
+import org.jenkins.tools.test.report.RunReport;
+import org.jenkins.tools.test.report.TraceRecorder;
+import org.jenkins.tools.test.util.DurationHistory;
 import org.jenkins.tools.test.util.ServiceHelper;
+import org.jenkins.tools.test.util.Shard;
 import org.jenkins.tools.test.util.StreamGobbler;
 import org.jenkins.tools.test.util.WarExtractor;
+import org.jenkins.tools.test.util.WarFacts;
 
 /**
  * Frontend for plugin compatibility tests
@@ -77,36 +102,118 @@ public class PluginCompatTester {
     private static final String LOCAL_CHECKOUT = "<local checkout>";
 
     private final PluginCompatTesterConfig config;
-    private final ExternalMavenRunner runner;
+    private final MavenRunner runner;
+
+    /** Runs the short Maven invocations that only query the project, which may be cheaper than {@link #runner}. */
+    private final MavenRunner queryRunner;
+
+    /** The facts about the WAR under test, extracted once per run and shared by the hooks of all plugins. */
+    @CheckForNull
+    private WarFacts warFacts;
+
+    @CheckForNull
+    private final GitObjectCache gitCache;
+
+    /** The timings and outcomes of the current run. */
+    @CheckForNull
+    private RunReport runReport;
+
+    @CheckForNull
+    private final ResultCache resultCache;
+
+    /** Tests plugins that run well beyond their usual duration a second time alongside, if so configured. */
+    @CheckForNull
+    private final SpeculativeExecution speculation;
+
+    /** Where each plugin is recorded as soon as it has been tested, during a run. */
+    @CheckForNull
+    private volatile RunJournal journal;
+
+    /** The components of the fingerprint that are the same for all the plugins of the current run, if caching. */
+    @CheckForNull
+    private Map<String, String> runFingerprint;
+
+    /**
+     * The digest of the WAR of the current run, once the result cache or the journal needed it. Hashing a large WAR
+     * takes a while, so it is not done for runs that neither cache results nor record any plugin.
+     */
+    // guarded by this
+    @CheckForNull
+    private String warDigest;
+
+    /** How long each plugin took in earlier runs, and how long it takes in the current run, if recording them. */
+    @CheckForNull
+    private DurationHistory durationHistory;
 
     public PluginCompatTester(PluginCompatTesterConfig config) {
         this.config = config;
-        runner = new ExternalMavenRunner(config);
+        ConsoleMirror.configure(config.getConsoleOutput(), config.getConsoleRateLimit());
+        runner = MavenRunners.create(config);
+        queryRunner = MavenRunners.createForQueries(config);
+        gitCache = config.getGitCacheDir() != null ? new GitObjectCache(config.getGitCacheDir()) : null;
+        resultCache = config.getResultCacheDir() != null ? new ResultCache(config.getResultCacheDir()) : null;
+        // Embedded Maven runs one invocation at a time, cannot be interrupted, and swaps JVM-wide state while it runs
+        boolean embedded = config.getMavenQueryRunner() == MavenRunnerType.EMBEDDED;
+        if (embedded && config.getParallelism() > 1) {
+            throw new IllegalArgumentException(
+                    "The embedded Maven runner cannot be used with a parallelism of " + config.getParallelism());
+        }
+        if (config.isSpeculative()) {
+            if (config.getDurationHistory() == null) {
+                throw new IllegalArgumentException(
+                        "Speculative execution needs a duration history to know how long each plugin usually takes");
+            }
+            // Interrupting the Maven daemon client leaves its build running in the daemon, holding on to the checkout
+            boolean daemon = config.getMavenRunner() == MavenRunnerType.DAEMON
+                    || config.getMavenQueryRunner() == MavenRunnerType.DAEMON;
+            if (embedded || daemon) {
+                throw new IllegalArgumentException(
+                        "Speculative execution needs the external Maven runner, which can run builds concurrently and"
+                                + " kill them");
+            }
+            speculation = new SpeculativeExecution(SpeculativeExecution::hasSpareCapacity, Duration.ofSeconds(10));
+        } else {
+            speculation = null;
+        }
     }
 
-    @SuppressFBWarnings(
-            value = "UNSAFE_HASH_EQUALS",
-            justification = "We are not used Git SHA comparisons for security")
     public void testPlugins() throws PluginCompatibilityTesterException {
+        TraceRecorder.get().reset();
         ServiceHelper serviceHelper = new ServiceHelper(config.getExternalHooksJars());
         PluginCompatTesterHooks pcth = new PluginCompatTesterHooks(serviceHelper, config.getExcludeHooks());
 
         // Extract the metadata
         WarExtractor warExtractor = new WarExtractor(
-                config.getWar(), serviceHelper, config.getIncludePlugins(), config.getExcludePlugins());
-        String coreVersion = warExtractor.extractCoreVersion();
+                config.getWar(),
+                serviceHelper,
+                config.getIncludePlugins(),
+                config.getExcludePlugins(),
+                config.getWarIndex());
+        // A local checkout does not need the metadata of the plugins in the WAR, which is the expensive part
+        try (TraceRecorder.Span span = TraceRecorder.get().start("war", "extract " + config.getWar().getName())) {
+            warFacts = warExtractor.extractFacts(!localCheckoutProvided());
+        }
+        String coreVersion = warFacts.getCoreVersion();
+        runReport = new RunReport(coreVersion);
+        runFingerprint = null;
+        synchronized (this) {
+            warDigest = null;
+        }
+        File historyFile = config.getDurationHistory();
+        durationHistory = historyFile != null ? DurationHistory.load(historyFile) : null;
 
         NavigableMap<String, List<Plugin>> pluginsByRepository;
 
         if (localCheckoutProvided()) {
             // if a user provides a local checkout we do not also check anything in the way.
             LocalCheckoutPluginMetadataExtractor localCheckoutPluginMetadataExtractor =
-                    new LocalCheckoutPluginMetadataExtractor(config, runner);
+                    new LocalCheckoutPluginMetadataExtractor(config, queryRunner);
             // Do not perform the before checkout hooks on a local checkout
             List<Plugin> localCheckout = localCheckoutPluginMetadataExtractor.extractMetadata();
+            localCheckout.forEach(runReport::get);
             pluginsByRepository = new TreeMap<>(Map.of(LOCAL_CHECKOUT, localCheckout));
         } else {
-            List<Plugin> plugins = warExtractor.extractPlugins();
+            List<Plugin> plugins = warFacts.getPlugins();
             pluginsByRepository = WarExtractor.byRepository(plugins);
 
             // Sanity check all plugins in the repository come from the same hash/tag
@@ -120,106 +227,372 @@ public class PluginCompatTester {
                 }
             }
 
+            Shard shard = config.getShard();
+            if (shard != null) {
+                pluginsByRepository = shard.select(pluginsByRepository, durationHistory);
+                plugins = pluginsByRepository.values().stream()
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList());
+            }
+
             /*
              * Run the before checkout hooks on everything that we are about to check out (as opposed to an existing local
              * checkout).
              */
             for (Plugin plugin : plugins) {
-                BeforeCheckoutContext c = new BeforeCheckoutContext(coreVersion, plugin, config);
-                pcth.runBeforeCheckout(c);
+                BeforeCheckoutContext c = new BeforeCheckoutContext(coreVersion, plugin, config, warFacts);
+                try (PhaseTimer timer = PhaseTimer.start(runReport.get(plugin), Phase.BEFORE_CHECKOUT, null)) {
+                    pcth.runBeforeCheckout(c);
+                }
+            }
+
+            // A local checkout may have uncommitted changes, so only plugins at a known commit can be cached
+            if (resultCache != null) {
+                String mavenVersion = mavenVersion();
+                if (mavenVersion != null) {
+                    runFingerprint = runFingerprint(coreVersion, warDigest(), pcth, mavenVersion);
+                }
             }
         }
 
         PluginCompatibilityTesterException lastException = null;
-        LOGGER.log(Level.INFO, "Starting plugin tests on core version {0}", coreVersion);
-
-        for (Map.Entry<String, List<Plugin>> entry : pluginsByRepository.entrySet()) {
-            // Construct a single working directory for the clone
-            String gitUrl = entry.getKey();
+        RunJournal runJournal = RunJournal.open(
+                new File(config.getWorkingDir(), RunJournal.FILE_NAME),
+                () -> runId(coreVersion),
+                config.isResume());
+        journal = runJournal;
+        CheckoutPrefetcher prefetcher = null;
+        Duration predictedMakespan = null;
+        long scheduleStart = System.nanoTime();
+        try {
+            // Plugins tested by an earlier segment of the run keep the outcome they had then
+            pluginsByRepository = remaining(pluginsByRepository, plugin -> runJournal.restore(report(plugin)));
+            for (PluginReport report : runReport.getPlugins()) {
+                if (report.getOutcome() == PluginReport.Outcome.FAILURE) {
+                    lastException = throwOrAddSuppressed(
+                            lastException,
+                            new PluginCompatibilityTesterException(report.getPluginId()
+                                    + " failed in an earlier segment of the run: " + report.getMessage()),
+                            config.isFailFast());
+                }
+            }
+            if (runFingerprint != null) {
+                pluginsByRepository = remaining(pluginsByRepository, this::isCached);
+            }
 
-            File cloneDir;
-            if (gitUrl.equals(LOCAL_CHECKOUT)) {
-                cloneDir = config.getLocalCheckoutDir();
-            } else {
-                cloneDir = new File(config.getWorkingDir(), getRepoNameFromGitUrl(gitUrl));
-                // All plugins from the same reactor are from the same hash/tag
-                String tag = entry.getValue().get(0).getGitHash();
+            LOGGER.log(Level.INFO, "Starting plugin tests on core version {0}", coreVersion);
+            PctMetrics.get().runStarted(pluginsByRepository.values().stream().mapToInt(List::size).sum());
 
-                try {
-                    cloneFromScm(gitUrl, config.getFallbackGitHubOrganization(), tag, cloneDir);
-                } catch (PluginSourcesUnavailableException e) {
-                    lastException = throwOrAddSuppressed(lastException, e, config.isFailFast());
+            Map<String, List<Plugin>> schedule = pluginsByRepository;
+            if (durationHistory != null) {
+                Map<String, Duration> estimates = durationHistory.estimate(pluginsByRepository);
+                schedule = longestFirst(pluginsByRepository, estimates);
+                if (!estimates.isEmpty()) {
+                    int workers = Math.max(1, Math.min(config.getParallelism(), schedule.size()));
+                    predictedMakespan = DurationHistory.makespan(
+                            schedule.keySet().stream().map(estimates::get).collect(Collectors.toList()), workers);
                     LOGGER.log(
-                            Level.SEVERE,
-                            String.format("Internal error while cloning repository %s at commit %s.", gitUrl, tag),
-                            e);
-                    continue;
+                            Level.INFO,
+                            "Testing the longest repositories first, which should take {0,number,0.0} minutes with {1}"
+                                    + " workers",
+                            new Object[] {predictedMakespan.toMillis() / 60e3, workers});
                 }
             }
-            if (!config.isCompileOnly()) {
-                // For each of the plugin metadata entries, go test the plugin
-                for (Plugin plugin : entry.getValue()) {
-                    try {
-                        testPluginAgainst(coreVersion, plugin, cloneDir, pcth);
-                    } catch (PluginCompatibilityTesterException e) {
-                        lastException = throwOrAddSuppressed(lastException, e, config.isFailFast());
-                        LOGGER.log(
-                                Level.SEVERE,
-                                String.format(
-                                        "Internal error while executing a test for core %s and plugin %s at version %s.",
-                                        coreVersion, plugin.getName(), plugin.getVersion()),
-                                e);
+            scheduleStart = System.nanoTime();
+            if (config.getPrefetch() > 0 && schedule.size() > 1) {
+                // as many clones at a time as there are workers waiting for them
+                int cloneThreads = Math.max(1, Math.min(config.getParallelism(), config.getPrefetch()));
+                LOGGER.log(
+                        Level.INFO,
+                        "Cloning up to {0} repositories ahead of testing, {1} at a time",
+                        new Object[] {config.getPrefetch(), cloneThreads});
+                prefetcher = new CheckoutPrefetcher(
+                        schedule.entrySet(), config.getPrefetch(), cloneThreads, this::cloneRepository);
+                prefetcher.start();
+            }
+            if (config.getParallelism() > 1 && schedule.size() > 1) {
+                lastException = testRepositoriesInParallel(coreVersion, schedule, prefetcher, pcth);
+            } else {
+                for (Map.Entry<String, List<Plugin>> entry : schedule.entrySet()) {
+                    PluginCompatibilityTesterException e =
+                            testRepository(coreVersion, checkout(entry, prefetcher), pcth);
+                    if (e != null) {
+                        lastException = throwOrAddSuppressed(lastException, e, false);
                     }
                 }
-            } else {
-                try {
-                    testCompilationAgainst(coreVersion, gitUrl, cloneDir);
+            }
+        } finally {
+            if (prefetcher != null) {
+                prefetcher.close();
+            }
+            runJournal.close();
+            journal = null;
+            try {
+                runReport.write(config.getWorkingDir());
+            } catch (UncheckedIOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write the report", e);
+            }
+            if (durationHistory != null) {
+                // Every shard must be balanced from the same history, so a sharded run only reads it
+                if (config.getShard() == null) {
+                    durationHistory.save(config.getDurationHistory());
+                } else {
+                    LOGGER.log(Level.INFO, "Not updating {0} as the run is sharded", config.getDurationHistory());
+                }
+                if (predictedMakespan != null) {
+                    LOGGER.log(
+                            Level.INFO,
+                            "Tested the repositories in {0,number,0.0} minutes, against a predicted {1,number,0.0}",
+                            new Object[] {
+                                (System.nanoTime() - scheduleStart) / 60e9, predictedMakespan.toMillis() / 60e3
+                            });
+                }
+            }
+            if (resultCache != null && runFingerprint != null) {
+                LOGGER.log(
+                        Level.INFO,
+                        "Result cache {0}: {1} plugins skipped as they passed before, {2} tested, {3} passes recorded",
+                        new Object[] {
+                            resultCache.getCacheDirectory(),
+                            resultCache.getHits(),
+                            resultCache.getMisses(),
+                            resultCache.getRecorded()
+                        });
+            }
+            try {
+                TraceRecorder.get().write(config.getWorkingDir(), "plugin-compat-tester against core " + coreVersion);
+            } catch (UncheckedIOException e) {
+                LOGGER.log(Level.WARNING, "Failed to write the trace", e);
+            }
+        }
+        if (lastException != null) {
+            throw lastException;
+        }
+    }
+
+    /**
+     * Obtain the sources of the given repository: either by cloning it in the current thread, or by taking it from the
+     * prefetcher (which clones in iteration order, the order in which the workers start the repositories).
+     */
+    private RepositoryCheckout checkout(
+            Map.Entry<String, List<Plugin>> entry, @CheckForNull CheckoutPrefetcher prefetcher)
+            throws PluginCompatibilityTesterException {
+        if (prefetcher == null) {
+            return RepositoryCheckout.perform(entry.getKey(), entry.getValue(), this::cloneRepository);
+        }
+        try {
+            return prefetcher.take(entry.getKey());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PluginCompatibilityTesterException("Interrupted while waiting for a repository to be cloned", e);
+        }
+    }
+
+    /**
+     * Test the repositories on a bounded pool of workers. Each worker clones and tests one repository at a time, using
+     * its own clone directory, build log files, and Maven invocations. In fail-fast mode the first failure cancels the
+     * workers that are still running.
+     *
+     * @return the failures of all repositories, chained through suppressed exceptions, or {@code null} if there were
+     *     none
+     */
+    @CheckForNull
+    private PluginCompatibilityTesterException testRepositoriesInParallel(
+            String coreVersion,
+            Map<String, List<Plugin>> pluginsByRepository,
+            @CheckForNull CheckoutPrefetcher prefetcher,
+            PluginCompatTesterHooks pcth)
+            throws PluginCompatibilityTesterException {
+        int parallelism = Math.min(config.getParallelism(), pluginsByRepository.size());
+        LOGGER.log(Level.INFO, "Testing {0} repositories with {1} workers", new Object[] {
+            pluginsByRepository.size(), parallelism
+        });
+        return RepositoryWorkers.run(
+                pluginsByRepository,
+                parallelism,
+                entry -> testRepository(coreVersion, checkout(entry, prefetcher), pcth));
+    }
+
+    /**
+     * Test each of the plugins of a checked out repository (or only compile the repository, if so configured).
+     *
+     * @return the failures for this repository, chained through suppressed exceptions, or {@code null} if there were
+     *     none
+     * @throws PluginCompatibilityTesterException on the first failure if running in fail-fast mode
+     */
+    @CheckForNull
+    private PluginCompatibilityTesterException testRepository(
+            String coreVersion, RepositoryCheckout checkout, PluginCompatTesterHooks pcth)
+            throws PluginCompatibilityTesterException {
+        PluginCompatibilityTesterException lastException = null;
+        String gitUrl = checkout.getGitUrl();
+        List<Plugin> plugins = checkout.getPlugins();
+
+        File cloneDir;
+        try {
+            cloneDir = checkout.getCloneDirectory();
+        } catch (PluginSourcesUnavailableException e) {
+            plugins.forEach(plugin -> completed(plugin, e));
+            lastException = throwOrAddSuppressed(lastException, e, config.isFailFast());
+            LOGGER.log(
+                    Level.SEVERE,
+                    String.format(
+                            "Internal error while cloning repository %s at commit %s.",
+                            gitUrl, plugins.get(0).getGitHash()),
+                    e);
+            return lastException;
+        }
+        if (!config.isCompileOnly()) {
+            ProjectFacts rootFacts = new ProjectFacts(cloneDir, null, queryRunner, MavenRunners.userProperties(config));
+            // For each of the plugin metadata entries, go test the plugin
+            for (Plugin plugin : plugins) {
+                try (PhaseTimer.Scope scope = PhaseTimer.report(report(plugin))) {
+                    testPlugin(coreVersion, plugin, cloneDir, rootFacts, pcth);
+                    completed(plugin, null);
                 } catch (PluginCompatibilityTesterException e) {
+                    completed(plugin, e);
                     lastException = throwOrAddSuppressed(lastException, e, config.isFailFast());
                     LOGGER.log(
                             Level.SEVERE,
                             String.format(
-                                    "Internal error while executing a test for core %s and repository %s.",
-                                    coreVersion, gitUrl),
+                                    "Internal error while executing a test for core %s and plugin %s at version %s.",
+                                    coreVersion, plugin.getName(), plugin.getVersion()),
                             e);
                 }
             }
+        } else {
+            // the compilation is timed against the first plugin of the repository, but its outcome applies to all
+            try (PhaseTimer.Scope scope = PhaseTimer.report(report(plugins.get(0)))) {
+                testCompilationAgainst(coreVersion, plugins, gitUrl, cloneDir);
+                plugins.forEach(plugin -> completed(plugin, null));
+            } catch (PluginCompatibilityTesterException e) {
+                plugins.forEach(plugin -> completed(plugin, e));
+                lastException = throwOrAddSuppressed(lastException, e, config.isFailFast());
+                LOGGER.log(
+                        Level.SEVERE,
+                        String.format(
+                                "Internal error while executing a test for core %s and repository %s.",
+                                coreVersion, gitUrl),
+                        e);
+            }
         }
-        if (lastException != null) {
-            throw lastException;
+        return lastException;
+    }
+
+    /**
+     * Test a plugin in the checkout of its repository. In speculative mode, a plugin that runs well beyond its 95th
+     * percentile is tested again alongside in a separate checkout, with its own build log, and the attempt that
+     * finishes first decides the outcome.
+     */
+    private void testPlugin(
+            String coreVersion,
+            Plugin plugin,
+            File cloneLocation,
+            ProjectFacts rootFacts,
+            PluginCompatTesterHooks pcth)
+            throws PluginCompatibilityTesterException {
+        Duration p95 = durationHistory != null ? durationHistory.percentile(plugin.getPluginId(), 95) : null;
+        if (speculation == null || p95 == null || plugin.getGitHash() == null) {
+            testPluginAgainst(coreVersion, plugin, cloneLocation, rootFacts, pcth);
+            return;
         }
+        File duplicateLocation = new File(cloneLocation.getParentFile(), cloneLocation.getName() + "-duplicate");
+        AtomicReference<File> duplicateLog = new AtomicReference<>();
+        try {
+            speculation.run(
+                    report(plugin),
+                    () -> testPluginAgainst(coreVersion, plugin, cloneLocation, rootFacts, pcth),
+                    SpeculativeExecution.threshold(p95),
+                    () -> {
+                        String detail = plugin.getGitUrl() + " " + plugin.getGitHash() + " (duplicate)";
+                        try (PhaseTimer timer = PhaseTimer.start(Phase.CHECKOUT, detail)) {
+                            cloneFromScm(
+                                    plugin.getGitUrl(),
+                                    config.getFallbackGitHubOrganization(),
+                                    plugin.getGitHash(),
+                                    duplicateLocation,
+                                    gitCache);
+                        }
+                        ProjectFacts duplicateFacts = new ProjectFacts(
+                                duplicateLocation, null, queryRunner, MavenRunners.userProperties(config));
+                        try (BuildLog buildLog = createBuildLog(config.getWorkingDir(), plugin, coreVersion, true)) {
+                            duplicateLog.set(buildLog.getFile());
+                            testPluginAgainst(
+                                    coreVersion,
+                                    plugin,
+                                    duplicateLocation,
+                                    duplicateFacts,
+                                    pcth,
+                                    new PluginCompatTesterConfig(config),
+                                    buildLog.getFile());
+                        }
+                    },
+                    () -> report(plugin).setLog(duplicateLog.get()));
+        } finally {
+            if (duplicateLocation.exists()) {
+                try {
+                    FileUtils.deleteDirectory(duplicateLocation);
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to remove the duplicate checkout " + duplicateLocation, e);
+                }
+            }
+        }
+    }
+
+    private BuildLog createBuildLog(File workDirectory, Plugin plugin, String coreVersion) {
+        return createBuildLog(workDirectory, plugin, coreVersion, false);
     }
 
-    private static File createBuildLogFile(File workDirectory, Plugin plugin, String coreVersion) {
-        File f = new File(workDirectory.getAbsolutePath()
+    private BuildLog createBuildLog(File workDirectory, Plugin plugin, String coreVersion, boolean duplicate) {
+        return createBuildLog(new File(workDirectory.getAbsolutePath()
                 + File.separator
                 + String.format(
-                        "logs/%s/v%s_against_core_version_%s.log",
-                        plugin.getPluginId(), plugin.getVersion(), coreVersion));
-        createBuildLogFile(f);
-        return f;
+                        "logs/%s/v%s_against_core_version_%s%s.log",
+                        plugin.getPluginId(), plugin.getVersion(), coreVersion, duplicate ? "_duplicate" : "")));
     }
 
-    private static File createBuildLogFile(File workDirectory, String gitUrl, String coreVersion)
+    private BuildLog createBuildLog(File workDirectory, String gitUrl, String coreVersion)
             throws PluginSourcesUnavailableException {
-        File f = new File(workDirectory.getAbsolutePath()
+        return createBuildLog(new File(workDirectory.getAbsolutePath()
                 + File.separator
-                + String.format("logs/%s/core_version_%s.log", getRepoNameFromGitUrl(gitUrl), coreVersion));
-        createBuildLogFile(f);
-        return f;
+                + String.format("logs/%s/core_version_%s.log", getRepoNameFromGitUrl(gitUrl), coreVersion)));
     }
 
-    private static void createBuildLogFile(File buildLogFile) {
-        try {
-            Files.createDirectories(buildLogFile.getParentFile().toPath());
-            Files.deleteIfExists(buildLogFile.toPath());
-            Files.createFile(buildLogFile.toPath());
-        } catch (IOException e) {
-            throw new UncheckedIOException("Failed to create build log file", e);
+    private BuildLog createBuildLog(File buildLogFile) {
+        if (config.isCompressLogs()) {
+            buildLogFile = new File(buildLogFile.getPath() + ".gz");
         }
+        return BuildLog.create(buildLogFile, config.isCompressLogs(), config.getMaxLogSize() * 1024L * 1024L);
     }
 
-    private void testPluginAgainst(String coreVersion, Plugin plugin, File cloneLocation, PluginCompatTesterHooks pcth)
+    private void testPluginAgainst(
+            String coreVersion,
+            Plugin plugin,
+            File cloneLocation,
+            ProjectFacts rootFacts,
+            PluginCompatTesterHooks pcth)
+            throws PluginCompatibilityTesterException {
+        try (BuildLog buildLog = createBuildLog(config.getWorkingDir(), plugin, coreVersion)) {
+            report(plugin).setLog(buildLog.getFile());
+            testPluginAgainst(
+                    coreVersion,
+                    plugin,
+                    cloneLocation,
+                    rootFacts,
+                    pcth,
+                    new PluginCompatTesterConfig(config),
+                    buildLog.getFile());
+        }
+    }
+
+    private void testPluginAgainst(
+            String coreVersion,
+            Plugin plugin,
+            File cloneLocation,
+            ProjectFacts rootFacts,
+            PluginCompatTesterHooks pcth,
+            PluginCompatTesterConfig attemptConfig,
+            File buildLogFile)
             throws PluginCompatibilityTesterException {
         LOGGER.log(
                 Level.INFO,
@@ -233,12 +606,18 @@ public class PluginCompatTester {
                         + "#############################################\n\n\n\n\n",
                 new Object[] {plugin.getName(), plugin.getVersion(), coreVersion});
 
-        File buildLogFile = createBuildLogFile(config.getWorkingDir(), plugin, coreVersion);
+        // Facts are shared by all the hooks for this plugin, and by the plugins of the repository for the root project
+        ProjectFacts projectFacts = plugin.getModule() == null
+                ? rootFacts
+                : new ProjectFacts(
+                        cloneLocation, plugin.getModule(), queryRunner, MavenRunners.userProperties(attemptConfig));
 
         // Run the before compile hooks
         BeforeCompilationContext beforeCompile =
-                new BeforeCompilationContext(coreVersion, plugin, config, cloneLocation);
-        pcth.runBeforeCompilation(beforeCompile);
+                new BeforeCompilationContext(coreVersion, plugin, attemptConfig, cloneLocation, projectFacts, warFacts);
+        try (PhaseTimer timer = PhaseTimer.start(Phase.BEFORE_COMPILATION, null)) {
+            pcth.runBeforeCompilation(beforeCompile);
+        }
 
         // First build against the original POM. This defends against source incompatibilities
         // (which we do not care about for this purpose); and ensures that we are testing a
@@ -254,17 +633,23 @@ public class PluginCompatTester {
          * for the second module.
          */
         boolean setChangelist = false;
-        ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(cloneLocation, null, runner);
-        if (!expressionEvaluator.evaluateList("project.modules").isEmpty()) {
-            String version = expressionEvaluator.evaluateString("project.version");
-            if (version.contains("999999-SNAPSHOT") && !plugin.getVersion().equals(version)) {
+        Map<String, String> project = rootFacts.get(List.of("project.modules", "project.version"));
+        if (!ExpressionEvaluator.toList(project.get("project.modules")).isEmpty()) {
+            String version = project.get("project.version");
+            if (version != null && version.contains("999999-SNAPSHOT") && !plugin.getVersion().equals(version)) {
                 setChangelist = true;
             }
         }
         if (setChangelist) {
             properties.put("set.changelist", "true");
         }
-        runner.run(properties, cloneLocation, plugin.getModule(), buildLogFile, "clean", "process-test-classes");
+        // kept build output is only worth keeping if the build picks up from it
+        String[] compileGoals = attemptConfig.isKeepBuildOutput()
+                ? new String[] {"process-test-classes"}
+                : new String[] {"clean", "process-test-classes"};
+        try (PhaseTimer timer = PhaseTimer.start(Phase.COMPILATION, String.join(" ", compileGoals))) {
+            runner.run(properties, cloneLocation, plugin.getModule(), buildLogFile, compileGoals);
+        }
 
         List<String> args = new ArrayList<>();
         args.add("hpi:resolve-test-dependencies");
@@ -273,12 +658,16 @@ public class PluginCompatTester {
         args.add("surefire:test");
 
         // Run preexecution hooks
-        BeforeExecutionContext forExecutionHooks =
-                new BeforeExecutionContext(coreVersion, plugin, config, cloneLocation, args);
-        pcth.runBeforeExecution(forExecutionHooks);
+        Map<String, String> configuredProperties = attemptConfig.getMavenProperties();
+        BeforeExecutionContext forExecutionHooks = new BeforeExecutionContext(
+                coreVersion, plugin, attemptConfig, cloneLocation, args, projectFacts, warFacts);
+        try (PhaseTimer timer = PhaseTimer.start(Phase.BEFORE_EXECUTION, null)) {
+            pcth.runBeforeExecution(forExecutionHooks);
+        }
 
-        properties = new LinkedHashMap<>(config.getMavenProperties());
-        properties.put("overrideWar", config.getWar().toString());
+        properties = mergeMavenProperties(
+                configuredProperties, attemptConfig.getMavenProperties(), forExecutionHooks.getMavenProperties());
+        properties.put("overrideWar", attemptConfig.getWar().toString());
         properties.put("jenkins.version", coreVersion);
         properties.put("useUpperBounds", "true");
         if (!forExecutionHooks.getOverrideVersions().isEmpty()) {
@@ -300,15 +689,50 @@ public class PluginCompatTester {
         }
 
         // Execute with tests
-        runner.run(
-                Collections.unmodifiableMap(properties),
-                cloneLocation,
-                plugin.getModule(),
-                buildLogFile,
-                args.toArray(new String[0]));
+        try (PhaseTimer timer = PhaseTimer.start(Phase.EXECUTION, String.join(" ", args))) {
+            runner.run(
+                    Collections.unmodifiableMap(properties),
+                    cloneLocation,
+                    plugin.getModule(),
+                    buildLogFile,
+                    args.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * The Maven properties to test a plugin with: those the hooks set in the context, over those a hook set in the
+     * configuration of the attempt through the deprecated {@link PluginCompatTesterConfig#setMavenProperties}.
+     *
+     * @param configured the properties of the configuration before the hooks ran
+     * @param reconfigured the properties of the configuration after the hooks ran
+     * @param context the properties of the context after the hooks ran, initially {@code configured}
+     */
+    static Map<String, String> mergeMavenProperties(
+            Map<String, String> configured, Map<String, String> reconfigured, Map<String, String> context) {
+        Map<String, String> properties = new LinkedHashMap<>(context);
+        if (reconfigured != configured) {
+            LOGGER.log(
+                    Level.WARNING,
+                    "A hook set the Maven properties of the configuration, which is deprecated;"
+                            + " hooks should add them to BeforeExecutionContext.getMavenProperties() instead");
+            reconfigured.forEach((key, value) -> {
+                if (Objects.equals(context.get(key), configured.get(key))) {
+                    properties.put(key, value);
+                }
+            });
+        }
+        return properties;
     }
 
-    private void testCompilationAgainst(String coreVersion, String gitUrl, File cloneLocation)
+    private void testCompilationAgainst(String coreVersion, List<Plugin> plugins, String gitUrl, File cloneLocation)
+            throws PluginCompatibilityTesterException {
+        try (BuildLog buildLog = createBuildLog(config.getWorkingDir(), gitUrl, coreVersion)) {
+            plugins.forEach(plugin -> report(plugin).setLog(buildLog.getFile()));
+            testCompilationAgainst(coreVersion, gitUrl, cloneLocation, buildLog.getFile());
+        }
+    }
+
+    private void testCompilationAgainst(String coreVersion, String gitUrl, File cloneLocation, File buildLogFile)
             throws PluginCompatibilityTesterException {
         LOGGER.log(
                 Level.INFO,
@@ -322,8 +746,6 @@ public class PluginCompatTester {
                         + "#############################################\n\n\n\n\n",
                 new Object[] {getRepoNameFromGitUrl(gitUrl), coreVersion});
 
-        File buildLogFile = createBuildLogFile(config.getWorkingDir(), gitUrl, coreVersion);
-
         Map<String, String> properties = new LinkedHashMap<>(config.getMavenProperties());
         properties.put("jenkins.version", coreVersion);
         properties.put("checkstyle.skip", "true");
@@ -355,19 +777,85 @@ public class PluginCompatTester {
         properties.put("tidy.skip", "true");
 
         List<String> args = new ArrayList<>();
-        args.add("clean");
+        if (!config.isKeepBuildOutput()) {
+            args.add("clean");
+        }
         args.add("verify");
 
-        runner.run(
-                Collections.unmodifiableMap(properties),
-                cloneLocation,
-                null,
-                buildLogFile,
-                args.toArray(new String[0]));
+        try (PhaseTimer timer = PhaseTimer.start(Phase.COMPILATION, String.join(" ", args))) {
+            runner.run(
+                    Collections.unmodifiableMap(properties),
+                    cloneLocation,
+                    null,
+                    buildLogFile,
+                    args.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Obtain a working directory containing the sources of the given repository.
+     */
+    @SuppressFBWarnings(
+            value = "UNSAFE_HASH_EQUALS",
+            justification = "We are not used Git SHA comparisons for security")
+    private File cloneRepository(String gitUrl, List<Plugin> plugins) throws PluginSourcesUnavailableException {
+        if (gitUrl.equals(LOCAL_CHECKOUT)) {
+            return config.getLocalCheckoutDir();
+        }
+        // Construct a single working directory for the clone
+        File cloneDir = new File(config.getWorkingDir(), getRepoNameFromGitUrl(gitUrl));
+        // All plugins from the same reactor are from the same hash/tag
+        String tag = plugins.get(0).getGitHash();
+        // the checkout is timed against the first plugin of the repository, as it is shared by all of them
+        try (PhaseTimer timer = PhaseTimer.start(report(plugins.get(0)), Phase.CHECKOUT, gitUrl + " " + tag)) {
+            if (config.isReuseCheckouts() && reuseCheckout(cloneDir, tag, config.isKeepBuildOutput())) {
+                return cloneDir;
+            }
+            cloneFromScm(gitUrl, config.getFallbackGitHubOrganization(), tag, cloneDir, gitCache);
+        }
+        return cloneDir;
+    }
+
+    /**
+     * Restore an existing checkout of the given commit to its pristine state, undoing any changes made by hooks (such
+     * as POM rewrites) and removing untracked files, optionally except for Maven build output.
+     *
+     * @param keepBuildOutput whether to keep the {@code target} directories, which builds then reuse rather than
+     *     cleaning
+     * @return {@code true} if the checkout was reused, {@code false} if it needs to be cloned again
+     */
+    static boolean reuseCheckout(File cloneDir, String hash, boolean keepBuildOutput) {
+        if (!new File(cloneDir, ".git").isDirectory()) {
+            return false;
+        }
+        try {
+            String head = runCommand(cloneDir, "git", "rev-parse", "HEAD");
+            if (!head.equalsIgnoreCase(hash)) {
+                LOGGER.log(Level.INFO, "Existing checkout {0} is at {1} rather than {2}; cloning again", new Object[] {
+                    cloneDir, head, hash
+                });
+                return false;
+            }
+            runCommand(cloneDir, "git", "reset", "--hard", "--quiet", "HEAD");
+            if (keepBuildOutput) {
+                runCommand(cloneDir, "git", "clean", "-fdxq", "-e", "target/");
+            } else {
+                runCommand(cloneDir, "git", "clean", "-fdxq");
+            }
+        } catch (IOException | PluginSourcesUnavailableException e) {
+            LOGGER.log(Level.WARNING, "Failed to reuse existing checkout " + cloneDir + "; cloning again", e);
+            return false;
+        }
+        LOGGER.log(Level.INFO, "Reusing existing checkout {0} at {1}", new Object[] {cloneDir, hash});
+        return true;
     }
 
     private static void cloneFromScm(
-            String url, String fallbackGitHubOrganization, String scmTag, File checkoutDirectory)
+            String url,
+            String fallbackGitHubOrganization,
+            String scmTag,
+            File checkoutDirectory,
+            @CheckForNull GitObjectCache gitCache)
             throws PluginSourcesUnavailableException {
         List<String> gitUrls = new ArrayList<>();
         gitUrls.add(url);
@@ -377,13 +865,37 @@ public class PluginCompatTester {
 
         PluginSourcesUnavailableException lastException = null;
         for (String gitUrl : gitUrls) {
+            CloneEvent event = new CloneEvent();
+            if (event.isEnabled()) {
+                event.gitUrl = gitUrl;
+                event.scmTag = scmTag;
+                event.directory = checkoutDirectory.toString();
+                event.cached = gitCache != null;
+            }
+            event.begin();
+            TraceRecorder.Span span = TraceRecorder.get()
+                    .start("git", "clone " + gitUrl)
+                    .arg("gitUrl", gitUrl)
+                    .arg("scmTag", scmTag)
+                    .arg("cached", gitCache != null);
+            long start = System.nanoTime();
             try {
-                cloneImpl(gitUrl, scmTag, checkoutDirectory);
+                if (gitCache != null) {
+                    gitCache.checkout(gitUrl, scmTag, checkoutDirectory);
+                } else {
+                    cloneImpl(gitUrl, scmTag, checkoutDirectory);
+                }
+                event.succeeded = true;
+                span.arg("succeeded", true);
                 return; // checkout was ok
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             } catch (PluginSourcesUnavailableException e) {
                 lastException = throwOrAddSuppressed(lastException, e, false);
+            } finally {
+                event.commit();
+                span.close();
+                PctMetrics.get().cloned(Duration.ofNanos(System.nanoTime() - start));
             }
         }
         if (lastException != null) {
@@ -452,6 +964,267 @@ public class PluginCompatTester {
         return gitUrls;
     }
 
+    /**
+     * The components of the fingerprint of a plugin that do not depend on the plugin: everything besides the sources
+     * of the plugin that can change the outcome of testing it.
+     */
+    private Map<String, String> runFingerprint(
+            String coreVersion, String warDigest, PluginCompatTesterHooks pcth, String mavenVersion) {
+        Map<String, String> components = new LinkedHashMap<>();
+        components.put("coreVersion", coreVersion);
+        components.put("war", warDigest);
+        components.put("hooks", String.join(",", pcth.getActiveHooks()));
+        for (File jar : config.getExternalHooksJars()) {
+            components.put("hooksJar." + jar.getAbsolutePath(), ResultCache.digest(jar));
+        }
+        components.put("mavenProperties", new TreeMap<>(config.getMavenProperties()).toString());
+        components.put("mavenArgs", String.join(" ", config.getMavenArgs()));
+        components.put("compileOnly", Boolean.toString(config.isCompileOnly()));
+        components.put("mavenSettings", mavenSettings());
+        components.put("mavenRunner", config.getMavenRunner() + "," + queryRunnerType());
+        components.put(
+                "externalMaven", config.getExternalMaven() != null ? config.getExternalMaven().getAbsolutePath() : "");
+        components.put(
+                "mavenDaemon", config.getMavenDaemon() != null ? config.getMavenDaemon().getAbsolutePath() : "");
+        components.put("mavenVersion", mavenVersion);
+        components.put("jdk", jdk());
+        components.put("pct", VersionProvider.getPctVersionString());
+        return components;
+    }
+
+    /**
+     * The digest of the settings Maven runs with: the given settings file, or else the user settings, which Maven
+     * reads by default.
+     */
+    private String mavenSettings() {
+        File settings = config.getMavenSettings();
+        if (settings == null) {
+            settings = new File(System.getProperty("user.home"), ".m2/settings.xml");
+        }
+        return settings.isFile() ? ResultCache.digest(settings) : "";
+    }
+
+    private MavenRunnerType queryRunnerType() {
+        MavenRunnerType type = config.getMavenQueryRunner();
+        return type != null ? type : config.getMavenRunner();
+    }
+
+    /**
+     * The version of each Maven installation that builds or queries the plugins, as reported by {@code --version}:
+     * the Maven daemon, or else the external Maven, whose installation the embedded runner also uses.
+     *
+     * @return the versions, or {@code null} if they cannot be determined, in which case no plugin can be cached
+     */
+    @CheckForNull
+    private String mavenVersion() {
+        Set<String> executables = new LinkedHashSet<>();
+        for (MavenRunnerType type : List.of(config.getMavenRunner(), queryRunnerType())) {
+            if (type == MavenRunnerType.DAEMON) {
+                executables.add(
+                        config.getMavenDaemon() != null
+                                ? config.getMavenDaemon().getAbsolutePath()
+                                : SystemUtils.IS_OS_WINDOWS ? "mvnd.cmd" : "mvnd");
+            } else {
+                executables.add(
+                        config.getExternalMaven() != null
+                                ? config.getExternalMaven().getAbsolutePath()
+                                : SystemUtils.IS_OS_WINDOWS ? "mvn.cmd" : "mvn");
+            }
+        }
+        List<String> versions = new ArrayList<>();
+        for (String executable : executables) {
+            try {
+                // Leave out the JDK, locale, and platform, which the rest of the fingerprint covers
+                runCommand(null, executable, "--version")
+                        .lines()
+                        .filter(line -> line.contains("Maven"))
+                        .forEach(versions::add);
+            } catch (IOException | PluginSourcesUnavailableException e) {
+                LOGGER.log(
+                        Level.WARNING, "Failed to determine the version of " + executable + "; not caching results", e);
+                return null;
+            }
+        }
+        return String.join("\n", versions);
+    }
+
+    /**
+     * The JDK that Maven runs with: the one in {@code JAVA_HOME} if set, like the {@code mvn} script, or else that of
+     * PCT. The {@code release} file of the JDK identifies its exact build.
+     */
+    private static String jdk() {
+        String javaHome = System.getenv("JAVA_HOME");
+        File home = new File(javaHome != null ? javaHome : System.getProperty("java.home"));
+        File release = new File(home, "release");
+        if (release.isFile()) {
+            return home.getAbsolutePath() + " " + ResultCache.digest(release);
+        }
+        return home.getAbsolutePath() + (javaHome == null ? " " + System.getProperty("java.version") : "");
+    }
+
+    @CheckForNull
+    private Map<String, String> fingerprint(Plugin plugin) {
+        if (runFingerprint == null || plugin.getGitHash() == null) {
+            return null;
+        }
+        Map<String, String> components = new LinkedHashMap<>(runFingerprint);
+        components.put("pluginId", plugin.getPluginId());
+        components.put("gitHash", plugin.getGitHash());
+        components.put("module", plugin.getModule());
+        return components;
+    }
+
+    /**
+     * Whether the given plugin passed before with the same fingerprint, in which case it is reported as cached.
+     */
+    private boolean isCached(Plugin plugin) {
+        Map<String, String> fingerprint = fingerprint(plugin);
+        if (resultCache == null || fingerprint == null || !resultCache.passed(ResultCache.fingerprint(fingerprint))) {
+            return false;
+        }
+        LOGGER.log(
+                Level.INFO,
+                "Skipping {0} at version {1} as it passed before with the same fingerprint",
+                new Object[] {plugin.getName(), plugin.getVersion()});
+        report(plugin).cached();
+        return true;
+    }
+
+    /**
+     * Leave out the plugins to skip, and the repositories with no plugin left.
+     */
+    private static NavigableMap<String, List<Plugin>> remaining(
+            NavigableMap<String, List<Plugin>> pluginsByRepository, Predicate<Plugin> skip) {
+        NavigableMap<String, List<Plugin>> remaining = new TreeMap<>();
+        for (Map.Entry<String, List<Plugin>> entry : pluginsByRepository.entrySet()) {
+            List<Plugin> plugins = new ArrayList<>();
+            for (Plugin plugin : entry.getValue()) {
+                if (!skip.test(plugin)) {
+                    plugins.add(plugin);
+                }
+            }
+            if (!plugins.isEmpty()) {
+                remaining.put(entry.getKey(), plugins);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Order the repositories so that the longest start first, and the short ones fill the gaps at the end of the run
+     * rather than the long ones extending it. Without any estimate, the repositories with the most plugins start first.
+     *
+     * @param estimates the estimated duration of each repository, or an empty map if there is none
+     */
+    private static Map<String, List<Plugin>> longestFirst(
+            NavigableMap<String, List<Plugin>> pluginsByRepository, Map<String, Duration> estimates) {
+        List<Map.Entry<String, List<Plugin>>> entries = new ArrayList<>(pluginsByRepository.entrySet());
+        // a stable sort, so repositories of the same length stay in the order of their URLs
+        if (estimates.isEmpty()) {
+            entries.sort(Comparator.comparing((Map.Entry<String, List<Plugin>> entry) -> entry.getValue().size())
+                    .reversed());
+        } else {
+            entries.sort(Comparator.comparing(
+                            (Map.Entry<String, List<Plugin>> entry) -> estimates.get(entry.getKey()))
+                    .reversed());
+        }
+        Map<String, List<Plugin>> schedule = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Plugin>> entry : entries) {
+            schedule.put(entry.getKey(), entry.getValue());
+        }
+        return schedule;
+    }
+
+    /**
+     * Identifies the run in the journal, so that only the same run can be resumed. The WAR is identified by its
+     * contents, which stay the same when the WAR is downloaded again or copied to another agent.
+     */
+    private String runId(String coreVersion) {
+        Shard shard = config.getShard();
+        return coreVersion + " " + warDigest() + (shard != null ? " shard " + shard : "");
+    }
+
+    private synchronized String warDigest() {
+        if (warDigest == null) {
+            warDigest = ResultCache.digest(config.getWar());
+        }
+        return warDigest;
+    }
+
+    /**
+     * Record the outcome of testing the given plugin.
+     *
+     * @param failure the reason the plugin failed, or {@code null} if it passed
+     */
+    private void completed(Plugin plugin, @CheckForNull PluginCompatibilityTesterException failure) {
+        if (failure == null) {
+            report(plugin).succeeded();
+            Map<String, String> fingerprint = fingerprint(plugin);
+            if (resultCache != null && fingerprint != null) {
+                try {
+                    resultCache.recordPassed(fingerprint);
+                } catch (UncheckedIOException e) {
+                    LOGGER.log(Level.WARNING, "Failed to record that " + plugin.getName() + " passed", e);
+                }
+            }
+        } else {
+            report(plugin).failed(failure);
+        }
+        RunJournal runJournal = journal;
+        if (runJournal != null) {
+            try {
+                runJournal.record(report(plugin));
+            } catch (UncheckedIOException e) {
+                LOGGER.log(Level.WARNING, "Failed to record " + plugin.getName() + " in the journal", e);
+            }
+        }
+        // A failure cut short or timed out says nothing about how long the plugin takes to test
+        Duration testTime = failure == null ? testTime(report(plugin)) : null;
+        if (durationHistory != null && testTime != null) {
+            durationHistory.record(plugin.getPluginId(), testTime);
+        }
+        PctMetrics.get().pluginCompleted(failure != null);
+    }
+
+    /**
+     * The time taken to check out and test a plugin, leaving out the before checkout hooks as they run before the
+     * repositories are scheduled. Phases that overlap, such as nested phases or those of a second attempt, are only
+     * counted once.
+     *
+     * @return the time taken, or {@code null} if the plugin was not timed, as when only compiling its repository
+     */
+    @CheckForNull
+    private static Duration testTime(PluginReport report) {
+        List<PhaseTiming> timings = new ArrayList<>();
+        for (PhaseTiming timing : report.getTimings()) {
+            if (timing.getPhase() != Phase.BEFORE_CHECKOUT) {
+                timings.add(timing);
+            }
+        }
+        if (timings.isEmpty()) {
+            return null;
+        }
+        timings.sort(Comparator.comparing(PhaseTiming::getStart));
+        Duration total = Duration.ZERO;
+        Instant covered = Instant.MIN;
+        for (PhaseTiming timing : timings) {
+            Instant start = timing.getStart().isAfter(covered) ? timing.getStart() : covered;
+            Instant end = timing.getStart().plus(timing.getWallTime());
+            if (end.isAfter(start)) {
+                total = total.plus(Duration.between(start, end));
+                covered = end;
+            }
+        }
+        return total;
+    }
+
+    private PluginReport report(Plugin plugin) {
+        if (runReport == null) {
+            throw new IllegalStateException("Plugins are being tested outside of testPlugins");
+        }
+        return runReport.get(plugin);
+    }
+
     private boolean localCheckoutProvided() {
         File localCheckoutDir = config.getLocalCheckoutDir();
         return localCheckoutDir != null && localCheckoutDir.exists();
@@ -498,11 +1271,12 @@ public class PluginCompatTester {
      * Runs the given command, waiting until it has completed before returning.
      * @param directory the directory to run the command in.
      * @param commandAndArgs the command and arguments to run.
+     * @return the trimmed output of the command.
      * @throws IOException if the process could not be started.
      * @throws PluginSourcesUnavailableException if the command failed (either it was interrupted or exited with a non zero status.
      */
     @SuppressFBWarnings(value = "COMMAND_INJECTION", justification = "intended behaviour")
-    private static void runCommand(File directory, String... commandAndArgs)
+    static String runCommand(File directory, String... commandAndArgs)
             throws IOException, PluginSourcesUnavailableException {
         Process p = new ProcessBuilder()
                 .directory(directory)
@@ -511,16 +1285,23 @@ public class PluginCompatTester {
                 .start();
         StreamGobbler gobbler = new StreamGobbler(p.getInputStream());
         gobbler.start();
+        PctMetrics.get().processStarted();
         try {
-            int exitStatus = p.waitFor();
+            int exitStatus = PhaseTimer.waitFor(p);
             gobbler.join();
             String output = gobbler.getOutput().trim();
             if (exitStatus != 0) {
                 throw new PluginSourcesUnavailableException(
                         String.join(" ", commandAndArgs) + " failed with exit status " + exitStatus + ": " + output);
             }
+            return output;
         } catch (InterruptedException e) {
+            p.descendants().forEach(ProcessHandle::destroyForcibly);
+            p.destroyForcibly();
+            Thread.currentThread().interrupt();
             throw new PluginSourcesUnavailableException(String.join(" ", commandAndArgs) + " was interrupted", e);
+        } finally {
+            PctMetrics.get().processEnded();
         }
     }
 }
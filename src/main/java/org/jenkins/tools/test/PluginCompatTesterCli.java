@@ -36,9 +36,15 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+import org.jenkins.tools.test.jfr.FlightRecording;
+import org.jenkins.tools.test.logging.ConsoleMode;
 import org.jenkins.tools.test.logging.LoggingConfiguration;
+import org.jenkins.tools.test.maven.MavenRunnerType;
+import org.jenkins.tools.test.metrics.MetricsExporter;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
 import org.jenkins.tools.test.picocli.ExistingFileTypeConverter;
+import org.jenkins.tools.test.picocli.ShardTypeConverter;
+import org.jenkins.tools.test.util.Shard;
 import picocli.CommandLine;
 
 @CommandLine.Command(
@@ -112,6 +118,27 @@ public class PluginCompatTesterCli implements Callable<Integer> {
             converter = ExistingFileTypeConverter.class)
     private File externalMaven;
 
+    @CommandLine.Option(
+            names = "--maven-runner",
+            defaultValue = "EXTERNAL",
+            description =
+                    "How to run Maven: EXTERNAL starts a new Maven process for every invocation; DAEMON uses the Maven daemon (mvnd), falling back to EXTERNAL if it is not available. EMBEDDED is only valid for --maven-query-runner. Valid values: ${COMPLETION-CANDIDATES}.")
+    private MavenRunnerType mavenRunner;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--maven-query-runner",
+            description =
+                    "How to run Maven for metadata queries such as expression evaluation and dependency collection. Defaults to the value of --maven-runner. Besides the values of --maven-runner, EMBEDDED runs the queries inside the PCT process, one invocation at a time, and cannot be combined with --parallelism greater than 1. Valid values: ${COMPLETION-CANDIDATES}.")
+    private MavenRunnerType mavenQueryRunner;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--mvnd",
+            description = "The path to the Maven daemon client, when using --maven-runner=DAEMON.",
+            converter = ExistingFileTypeConverter.class)
+    private File mavenDaemon;
+
     @CheckForNull
     @CommandLine.Option(
             names = "--maven-settings",
@@ -171,6 +198,155 @@ public class PluginCompatTesterCli implements Callable<Integer> {
                     "If multiple plugins are specified, fail the overall run after the first plugin failure occurs rather than continuing to test other plugins.")
     private boolean failFast;
 
+    @CommandLine.Option(
+            names = "--parallelism",
+            defaultValue = "1",
+            paramLabel = "N",
+            description =
+                    "Number of repositories to test concurrently. Each repository is cloned and built by its own worker; plugins within a repository are always tested sequentially.")
+    private int parallelism;
+
+    @CommandLine.Option(
+            names = "--prefetch",
+            defaultValue = "0",
+            paramLabel = "K",
+            description =
+                    "Number of repositories to clone in the background ahead of the repositories being tested. If 0, each repository is cloned just before it is tested.")
+    private int prefetch;
+
+    @CommandLine.Option(
+            names = "--console-output",
+            defaultValue = "FULL",
+            description =
+                    "How much of the build output to mirror to the console: FULL mirrors every line; SUMMARY only mirrors module headers, test results, errors, and build results. The build logs always contain the full output. Valid values: ${COMPLETION-CANDIDATES}.")
+    private ConsoleMode consoleOutput;
+
+    @CommandLine.Option(
+            names = "--console-rate-limit",
+            defaultValue = "0",
+            paramLabel = "KIB_PER_SECOND",
+            description =
+                    "Maximum rate at which build output is mirrored to the console, in KiB per second. Output beyond the limit is omitted from the console but kept in the build logs. If 0, the rate is not limited.")
+    private int consoleRateLimit;
+
+    @CommandLine.Option(
+            names = "--compress-logs",
+            negatable = true,
+            defaultValue = "false",
+            description =
+                    "Compress the build logs with gzip as they are written. Use the logs subcommand to read or search them.")
+    private boolean compressLogs;
+
+    @CommandLine.Option(
+            names = "--max-log-size",
+            defaultValue = "0",
+            paramLabel = "MIB",
+            description =
+                    "Maximum uncompressed size of each build log in MiB. Larger logs keep their first and last halves, with a note of how much was omitted in between. If 0, the size is not limited.")
+    private int maxLogSize;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--jfr",
+            paramLabel = "file",
+            description =
+                    "Record the run with Java Flight Recorder to the given file, including events for checkouts, Maven invocations, hooks, WAR extraction, and the phases of testing each plugin.")
+    private File jfr;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--metrics-port",
+            paramLabel = "port",
+            description =
+                    "Serve live metrics of the run (progress, Maven and clone durations, running processes, and estimated time remaining) in the OpenMetrics format at /metrics on the given port.")
+    private Integer metricsPort;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--metrics-file",
+            paramLabel = "file",
+            description =
+                    "Periodically write live metrics of the run in the OpenMetrics format to the given file, for example for the textfile collector of the Prometheus node exporter.")
+    private File metricsFile;
+
+    @CommandLine.Option(
+            names = "--reuse-checkouts",
+            negatable = true,
+            defaultValue = "false",
+            description =
+                    "If the working directory already contains a checkout of the commit to test, restore it in place (resetting tracked files and removing untracked files) rather than cloning it again.")
+    private boolean reuseCheckouts;
+
+    @CommandLine.Option(
+            names = "--keep-build-output",
+            negatable = true,
+            defaultValue = "false",
+            description =
+                    "When reusing a checkout, keep the Maven target directories rather than removing them, and build without the clean phase so that Maven picks up from them.")
+    private boolean keepBuildOutput;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--git-cache-dir",
+            paramLabel = "dir",
+            description =
+                    "Directory in which to keep a bare Git repository per plugin repository, shared by all checkouts and reused across runs so that only new objects are fetched. If not set, each checkout is fetched from scratch.")
+    private File gitCacheDir;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--war-index",
+            paramLabel = "file",
+            description =
+                    "File in which to keep the plugin metadata extracted from the WAR, so that later runs only need to examine the plugins that changed. If not set, the metadata of every plugin is extracted on each run.")
+    private File warIndex;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--result-cache-dir",
+            paramLabel = "dir",
+            description =
+                    "Directory in which to record the plugins that passed, by a fingerprint of the plugin commit and module, the core version, the WAR, the hooks, the Maven properties and arguments, and the JDK, so that later runs skip them. Defaults to result-cache in the working directory.")
+    private File resultCacheDir;
+
+    @CommandLine.Option(
+            names = "--resume",
+            description =
+                    "Resume a run that was interrupted, testing only the plugins it had not tested yet. The outcomes of the plugins tested before are restored from the journal in the working directory and included in the result.")
+    private boolean resume;
+
+    @CommandLine.Option(
+            names = "--cache",
+            negatable = true,
+            defaultValue = "true",
+            fallbackValue = "true",
+            description =
+                    "Skip the plugins that passed in an earlier run with the same fingerprint, and record those that pass, in the result cache directory. On by default; use --no-cache to test every plugin.")
+    private boolean cache;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--shard",
+            paramLabel = "i/N",
+            description =
+                    "Test only the i-th of N shards of the repositories in the WAR (counting from 1), so that a run can be split between N agents. The plugins of a repository are always in the same shard. Every agent must use the same WAR, plugin selection, and duration history to agree on the shards; the duration history is not updated by a sharded run.",
+            converter = ShardTypeConverter.class)
+    private Shard shard;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--duration-history",
+            paramLabel = "file",
+            description =
+                    "Properties file in which to record the time taken to test each plugin that passes, in milliseconds by plugin ID. Later runs test the repositories expected to take longest first, report the predicted against the actual duration, and balance the shards by duration. If not set, repositories are tested in the order of their URLs, and the shards are balanced by number of plugins. With --shard, the file is only read, so that every agent balances the shards from the same history.")
+    private File durationHistory;
+
+    @CommandLine.Option(
+            names = "--speculative",
+            description =
+                    "Test a plugin a second time alongside, in a separate checkout, when it has run well beyond the 95th percentile of its durations in the duration history while the machine has CPU and memory to spare; whichever attempt finishes first decides the outcome, and the other is stopped. Requires --duration-history and the external Maven runner for both builds and queries.")
+    private boolean speculative;
+
     @Override
     public Integer call() throws PluginCompatibilityTesterException {
         try {
@@ -191,6 +367,9 @@ public class PluginCompatTesterCli implements Callable<Integer> {
         }
         config.setFallbackGitHubOrganization(fallbackGitHubOrganization);
         config.setExternalMaven(externalMaven);
+        config.setMavenRunner(mavenRunner);
+        config.setMavenQueryRunner(mavenQueryRunner);
+        config.setMavenDaemon(mavenDaemon);
         config.setMavenSettings(mavenSettings);
         if (mavenProperties != null) {
             config.setMavenProperties(mavenProperties);
@@ -204,9 +383,29 @@ public class PluginCompatTesterCli implements Callable<Integer> {
         config.setLocalCheckoutDir(localCheckoutDir);
         config.setCompileOnly(compileOnly);
         config.setFailFast(failFast);
+        config.setParallelism(parallelism);
+        config.setPrefetch(prefetch);
+        config.setConsoleOutput(consoleOutput);
+        config.setConsoleRateLimit(consoleRateLimit);
+        config.setCompressLogs(compressLogs);
+        config.setMaxLogSize(maxLogSize);
+        config.setReuseCheckouts(reuseCheckouts);
+        config.setKeepBuildOutput(keepBuildOutput);
+        config.setGitCacheDir(gitCacheDir);
+        config.setWarIndex(warIndex);
+        config.setResume(resume);
+        if (cache) {
+            config.setResultCacheDir(resultCacheDir != null ? resultCacheDir : new File(workingDir, "result-cache"));
+        }
+        config.setShard(shard);
+        config.setDurationHistory(durationHistory);
+        config.setSpeculative(speculative);
 
         PluginCompatTester tester = new PluginCompatTester(config);
-        tester.testPlugins();
+        try (FlightRecording recording = FlightRecording.start(jfr);
+                MetricsExporter exporter = MetricsExporter.start(metricsPort, metricsFile)) {
+            tester.testPlugins();
+        }
         return Integer.valueOf(0);
     }
 }
@@ -18,7 +18,10 @@ import java.util.stream.Collectors;
 import org.jenkins.tools.test.exception.MetadataExtractionException;
 import org.jenkins.tools.test.model.plugin_metadata.Plugin;
 import org.jenkins.tools.test.picocli.ExistingFileTypeConverter;
+import org.jenkins.tools.test.picocli.ShardTypeConverter;
+import org.jenkins.tools.test.util.DurationHistory;
 import org.jenkins.tools.test.util.ServiceHelper;
+import org.jenkins.tools.test.util.Shard;
 import org.jenkins.tools.test.util.WarExtractor;
 import picocli.CommandLine;
 
@@ -78,15 +81,47 @@ public class PluginListerCli implements Callable<Integer> {
                     "Comma-separated list of plugin artifact IDs to skip. If not set, only the plugins specified by --plugins will be listed (or all plugins otherwise).")
     private Set<String> excludePlugins;
 
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--index-file",
+            paramLabel = "file",
+            description =
+                    "File in which to keep the plugin metadata extracted from the WAR, so that later invocations only need to examine the plugins that changed. If not set, every plugin is examined.")
+    private File indexFile;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--shard",
+            paramLabel = "i/N",
+            description =
+                    "List only the repositories of the i-th of N shards (counting from 1), as tested by the same shard of a run split between N agents.",
+            converter = ShardTypeConverter.class)
+    private Shard shard;
+
+    @CheckForNull
+    @CommandLine.Option(
+            names = "--duration-history",
+            paramLabel = "file",
+            description =
+                    "Properties file of the time taken to test each plugin in earlier runs, in milliseconds by plugin ID, used to balance the shards by duration. If not set, the shards are balanced by number of plugins.")
+    private File durationHistory;
+
     @Override
     public Integer call() throws MetadataExtractionException {
         ServiceHelper serviceHelper = new ServiceHelper(externalHooksJars);
-        WarExtractor warExtractor = new WarExtractor(warFile, serviceHelper, includePlugins, excludePlugins);
+        WarExtractor warExtractor = new WarExtractor(warFile, serviceHelper, includePlugins, excludePlugins, indexFile);
         List<Plugin> plugins = warExtractor.extractPlugins();
+        NavigableMap<String, List<Plugin>> pluginsByRepository = WarExtractor.byRepository(plugins);
+        if (shard != null) {
+            pluginsByRepository = shard.select(
+                    pluginsByRepository, durationHistory != null ? DurationHistory.load(durationHistory) : null);
+            Set<String> selected = pluginsByRepository.keySet();
+            plugins = plugins.stream()
+                    .filter(plugin -> selected.contains(plugin.getGitUrl()))
+                    .collect(Collectors.toList());
+        }
 
         if (output != null) {
-            NavigableMap<String, List<Plugin>> pluginsByRepository = WarExtractor.byRepository(plugins);
-
             try (BufferedWriter writer = Files.newBufferedWriter(output.toPath())) {
                 for (Map.Entry<String, List<Plugin>> entry : pluginsByRepository.entrySet()) {
                     Matcher matcher = PATTERN.matcher(entry.getKey());
@@ -111,7 +146,7 @@ public class PluginListerCli implements Callable<Integer> {
                     .map(Plugin::getPluginId)
                     .map(String::length)
                     .max(Integer::compareTo)
-                    .get();
+                    .orElse(0);
 
             // Add some padding for the longest entry
             maxLength += 4;
@@ -0,0 +1,97 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.util.List;
+import org.jenkins.tools.test.exception.PluginSourcesUnavailableException;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * The outcome of checking out the sources of a repository: either the directory containing the sources, or the reason
+ * the sources could not be obtained.
+ */
+final class RepositoryCheckout {
+
+    /**
+     * Obtains the sources of a repository.
+     */
+    @FunctionalInterface
+    interface Cloner {
+
+        @NonNull
+        File clone(@NonNull String gitUrl, @NonNull List<Plugin> plugins) throws PluginSourcesUnavailableException;
+    }
+
+    @NonNull
+    private final String gitUrl;
+
+    @NonNull
+    private final List<Plugin> plugins;
+
+    @CheckForNull
+    private final File cloneDirectory;
+
+    @CheckForNull
+    private final RuntimeException runtimeFailure;
+
+    @CheckForNull
+    private final PluginSourcesUnavailableException failure;
+
+    private RepositoryCheckout(
+            @NonNull String gitUrl,
+            @NonNull List<Plugin> plugins,
+            @CheckForNull File cloneDirectory,
+            @CheckForNull PluginSourcesUnavailableException failure,
+            @CheckForNull RuntimeException runtimeFailure) {
+        this.gitUrl = gitUrl;
+        this.plugins = plugins;
+        this.cloneDirectory = cloneDirectory;
+        this.failure = failure;
+        this.runtimeFailure = runtimeFailure;
+    }
+
+    /**
+     * Check out the given repository, capturing any failure so that it can be reported by whichever thread goes on to
+     * test the repository.
+     */
+    @NonNull
+    static RepositoryCheckout perform(@NonNull String gitUrl, @NonNull List<Plugin> plugins, @NonNull Cloner cloner) {
+        try {
+            return new RepositoryCheckout(gitUrl, plugins, cloner.clone(gitUrl, plugins), null, null);
+        } catch (PluginSourcesUnavailableException e) {
+            return new RepositoryCheckout(gitUrl, plugins, null, e, null);
+        } catch (RuntimeException e) {
+            return new RepositoryCheckout(gitUrl, plugins, null, null, e);
+        }
+    }
+
+    @NonNull
+    String getGitUrl() {
+        return gitUrl;
+    }
+
+    @NonNull
+    List<Plugin> getPlugins() {
+        return plugins;
+    }
+
+    /**
+     * The directory containing the sources of the repository.
+     *
+     * @throws PluginSourcesUnavailableException if the repository could not be checked out
+     */
+    @NonNull
+    File getCloneDirectory() throws PluginSourcesUnavailableException {
+        if (runtimeFailure != null) {
+            throw runtimeFailure;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (cloneDirectory == null) {
+            throw new AssertionError("Could never happen, but needed to silence SpotBugs");
+        }
+        return cloneDirectory;
+    }
+}
@@ -0,0 +1,107 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * Tests repositories on a bounded pool of workers, each testing one repository at a time. Repositories are started in
+ * iteration order. A failure thrown rather than returned by a repository, as in fail-fast mode, cancels the workers
+ * that are still running and the repositories not started yet; interrupting a worker kills any Maven or Git process it
+ * is waiting for.
+ */
+final class RepositoryWorkers {
+
+    private static final Logger LOGGER = Logger.getLogger(RepositoryWorkers.class.getName());
+
+    /**
+     * Tests a repository.
+     */
+    @FunctionalInterface
+    interface RepositoryTest {
+
+        /**
+         * @return the failures of the repository, chained through suppressed exceptions, or {@code null} if there
+         *     were none
+         * @throws PluginCompatibilityTesterException to cancel the other repositories
+         */
+        @CheckForNull
+        PluginCompatibilityTesterException test(@NonNull Map.Entry<String, List<Plugin>> repository)
+                throws PluginCompatibilityTesterException;
+    }
+
+    private RepositoryWorkers() {}
+
+    /**
+     * Test the given repositories with the given number of workers.
+     *
+     * @return the failures of all repositories, chained through suppressed exceptions, or {@code null} if there were
+     *     none
+     * @throws PluginCompatibilityTesterException as thrown by the first repository to throw
+     */
+    @CheckForNull
+    static PluginCompatibilityTesterException run(
+            @NonNull Map<String, List<Plugin>> pluginsByRepository, int parallelism, @NonNull RepositoryTest test)
+            throws PluginCompatibilityTesterException {
+        AtomicInteger workerCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                parallelism, r -> new Thread(r, "pct-worker-" + workerCount.incrementAndGet()));
+        CompletionService<PluginCompatibilityTesterException> completionService =
+                new ExecutorCompletionService<>(executor);
+        PluginCompatibilityTesterException lastException = null;
+        try {
+            for (Map.Entry<String, List<Plugin>> entry : pluginsByRepository.entrySet()) {
+                completionService.submit(() -> test.test(entry));
+            }
+            for (int i = 0; i < pluginsByRepository.size(); i++) {
+                PluginCompatibilityTesterException e;
+                try {
+                    e = completionService.take().get();
+                } catch (ExecutionException x) {
+                    Throwable cause = x.getCause();
+                    if (cause instanceof PluginCompatibilityTesterException) {
+                        // Only thrown in fail-fast mode; the remaining workers are cancelled below
+                        throw (PluginCompatibilityTesterException) cause;
+                    } else if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                } catch (InterruptedException x) {
+                    Thread.currentThread().interrupt();
+                    throw new PluginCompatibilityTesterException("Interrupted while testing repositories", x);
+                }
+                if (e != null) {
+                    if (lastException != null) {
+                        e.addSuppressed(lastException);
+                    }
+                    lastException = e;
+                }
+            }
+        } finally {
+            // Interrupting the workers kills any Maven or Git process they are waiting for
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOGGER.log(Level.WARNING, "Timed out waiting for cancelled workers to terminate");
+                }
+            } catch (InterruptedException x) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return lastException;
+    }
+}
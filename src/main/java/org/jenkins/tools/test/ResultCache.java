@@ -0,0 +1,131 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent record of the plugins that passed, keyed by a fingerprint of everything that went into testing them, so
+ * that later runs can skip the combinations already proven. There is one file per fingerprint, which lists the
+ * components of the fingerprint for troubleshooting; files are written atomically, so concurrent workers and runs
+ * never see a partial entry. Failures are not recorded, so failing plugins are always tested again.
+ */
+class ResultCache {
+
+    @NonNull
+    private final File cacheDirectory;
+
+    private final AtomicInteger hits = new AtomicInteger();
+
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private final AtomicInteger recorded = new AtomicInteger();
+
+    ResultCache(@NonNull File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * The fingerprint of the given components, which does not depend on their order.
+     */
+    @NonNull
+    static String fingerprint(@NonNull Map<String, String> components) {
+        MessageDigest digest = sha256();
+        digest.update(describe(components).getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The SHA-256 digest of the contents of the given file.
+     */
+    @NonNull
+    static String digest(@NonNull File file) {
+        MessageDigest digest = sha256();
+        try (InputStream is = Files.newInputStream(file.toPath())) {
+            byte[] buf = new byte[64 * 1024];
+            int n;
+            while ((n = is.read(buf)) != -1) {
+                digest.update(buf, 0, n);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compute the digest of " + file, e);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Whether a plugin with the given fingerprint passed before.
+     */
+    boolean passed(@NonNull String fingerprint) {
+        boolean passed = new File(cacheDirectory, fingerprint).isFile();
+        (passed ? hits : misses).incrementAndGet();
+        return passed;
+    }
+
+    /**
+     * Record that a plugin with the fingerprint of the given components passed.
+     */
+    void recordPassed(@NonNull Map<String, String> components) {
+        Path target = new File(cacheDirectory, fingerprint(components)).toPath();
+        try {
+            Files.createDirectories(cacheDirectory.toPath());
+            Path temp = Files.createTempFile(cacheDirectory.toPath(), target.getFileName() + ".", ".tmp");
+            try {
+                Files.writeString(temp, describe(components), StandardCharsets.UTF_8);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to record the result in " + cacheDirectory, e);
+        }
+        recorded.incrementAndGet();
+    }
+
+    int getHits() {
+        return hits.get();
+    }
+
+    int getMisses() {
+        return misses.get();
+    }
+
+    int getRecorded() {
+        return recorded.get();
+    }
+
+    @NonNull
+    File getCacheDirectory() {
+        return cacheDirectory;
+    }
+
+    private static String describe(Map<String, String> components) {
+        SortedMap<String, String> sorted = new TreeMap<>(components);
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : sorted.entrySet()) {
+            sb.append(entry.getKey()).append('=').append(entry.getValue()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always available", e);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package org.jenkins.tools.test;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+import org.jenkins.tools.test.exception.PluginSourcesUnavailableException;
+import org.jenkins.tools.test.report.PhaseTimer;
+import org.jenkins.tools.test.report.PluginReport;
+
+/**
+ * Tests a plugin, and tests it a second time alongside if the first attempt runs well beyond the usual duration of the
+ * plugin while the machine has CPU and memory to spare, as happens when tests hang or a build is starved. Whichever
+ * attempt finishes first decides the outcome, and the other is interrupted, which kills the Maven processes it waits
+ * for. Each attempt runs on its own thread with a report of its own, so that the calling thread can go on as soon as
+ * either attempt finishes, and the timings of the attempt that finished first are added to the report of the plugin
+ * once both have stopped.
+ */
+final class SpeculativeExecution {
+
+    private static final Logger LOGGER = Logger.getLogger(SpeculativeExecution.class.getName());
+
+    /** How much longer than its 95th percentile a plugin must have run before it is tested again. */
+    private static final int SLOWDOWN = 2;
+
+    /** The least a plugin must have run beyond its 95th percentile before it is tested again. */
+    private static final Duration MIN_MARGIN = Duration.ofMinutes(5);
+
+    /** The CPU load of the machine, between 0 and 1, at or above which no duplicate is started. */
+    private static final double MAX_CPU_LOAD = 0.75;
+
+    /** The memory that must be available for a duplicate to be started, enough for Maven and the tests it forks. */
+    private static final long MIN_AVAILABLE_MEMORY = 4L * 1024 * 1024 * 1024;
+
+    private static final Path MEMINFO = Paths.get("/proc/meminfo");
+
+    /**
+     * An attempt at testing the plugin.
+     */
+    @FunctionalInterface
+    interface Attempt {
+        void run() throws PluginCompatibilityTesterException;
+    }
+
+    private static final class Finished {
+
+        final boolean duplicate;
+
+        @CheckForNull
+        final Throwable failure;
+
+        Finished(boolean duplicate, @CheckForNull Throwable failure) {
+            this.duplicate = duplicate;
+            this.failure = failure;
+        }
+    }
+
+    @NonNull
+    private final BooleanSupplier spareCapacity;
+
+    private final long pollInterval;
+
+    /**
+     * @param spareCapacity whether the machine can take on a duplicate attempt, such as {@link #hasSpareCapacity()}
+     * @param pollInterval how often to check whether a duplicate attempt is needed
+     */
+    SpeculativeExecution(@NonNull BooleanSupplier spareCapacity, @NonNull Duration pollInterval) {
+        this.spareCapacity = spareCapacity;
+        this.pollInterval = pollInterval.toMillis();
+    }
+
+    /**
+     * How long an attempt at testing a plugin may run before a duplicate attempt is started, given the 95th percentile
+     * of the durations of the plugin.
+     */
+    @NonNull
+    static Duration threshold(@NonNull Duration p95) {
+        Duration slowed = p95.multipliedBy(SLOWDOWN);
+        Duration margin = p95.plus(MIN_MARGIN);
+        return slowed.compareTo(margin) > 0 ? slowed : margin;
+    }
+
+    /**
+     * Run the given attempt, and the given duplicate attempt if the first one is still running after the given
+     * threshold while there is spare capacity. A duplicate attempt that fails to check out the sources is abandoned.
+     * Both attempts have stopped by the time this method returns.
+     *
+     * @param threshold how long to wait before starting the duplicate attempt, or {@code null} never to start it
+     * @param duplicateFinishedFirst called if the duplicate attempt finished first, whether it passed or failed
+     * @throws PluginCompatibilityTesterException as thrown by the attempt that finished first
+     */
+    void run(
+            @NonNull PluginReport report,
+            @NonNull Attempt attempt,
+            @CheckForNull Duration threshold,
+            @NonNull Attempt duplicate,
+            @NonNull Runnable duplicateFinishedFirst)
+            throws PluginCompatibilityTesterException {
+        String pluginId = report.getPluginId();
+        BlockingQueue<Finished> finished = new LinkedBlockingQueue<>();
+        long start = System.nanoTime();
+        PluginReport firstReport = report.newAttempt();
+        PluginReport secondReport = report.newAttempt();
+        Thread first = start(firstReport, attempt, false, finished);
+        Thread second = null;
+        PluginReport winner = null;
+        try {
+            Finished result;
+            while ((result = finished.poll(pollInterval, TimeUnit.MILLISECONDS)) == null
+                    || result.duplicate && result.failure instanceof PluginSourcesUnavailableException) {
+                if (result != null) {
+                    // not a result for the plugin, so leave it to the first attempt
+                    LOGGER.log(
+                            Level.WARNING,
+                            "Failed to check out " + pluginId + " for a second attempt; waiting for the first one",
+                            result.failure);
+                    continue;
+                }
+                Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+                if (second == null
+                        && threshold != null
+                        && elapsed.compareTo(threshold) >= 0
+                        && spareCapacity.getAsBoolean()) {
+                    LOGGER.log(
+                            Level.INFO,
+                            "{0} has been running for {1} minutes, beyond the {2} minutes expected;"
+                                    + " testing it again alongside",
+                            new Object[] {pluginId, elapsed.toMinutes(), threshold.toMinutes()});
+                    second = start(secondReport, duplicate, true, finished);
+                }
+            }
+            winner = result.duplicate ? secondReport : firstReport;
+            if (second != null) {
+                LOGGER.log(
+                        Level.INFO,
+                        "The {0} attempt at testing {1} finished first; stopping the other",
+                        new Object[] {result.duplicate ? "second" : "first", pluginId});
+            }
+            if (result.duplicate) {
+                duplicateFinishedFirst.run();
+            }
+            Throwable failure = result.failure;
+            if (failure instanceof PluginCompatibilityTesterException) {
+                throw (PluginCompatibilityTesterException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            } else if (failure != null) {
+                throw new IllegalStateException(failure);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PluginCompatibilityTesterException("Interrupted while testing " + pluginId, e);
+        } finally {
+            stop(first);
+            stop(second);
+            if (winner != null) {
+                report.addAttempt(winner);
+            }
+        }
+    }
+
+    private static Thread start(
+            PluginReport report, Attempt attempt, boolean duplicate, BlockingQueue<Finished> finished) {
+        String name = Thread.currentThread().getName() + "-" + report.getPluginId() + (duplicate ? "-duplicate" : "");
+        Thread thread = new Thread(
+                () -> {
+                    Throwable failure = null;
+                    try (PhaseTimer.Scope scope = PhaseTimer.report(report)) {
+                        attempt.run();
+                    } catch (PluginCompatibilityTesterException | RuntimeException | Error e) {
+                        failure = e;
+                    }
+                    finished.add(new Finished(duplicate, failure));
+                },
+                name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * Interrupt an attempt, which kills the processes it waits for, and wait for it to stop so that its checkout can be
+     * reused or removed.
+     */
+    private static void stop(@CheckForNull Thread thread) {
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.MINUTES.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            LOGGER.log(Level.WARNING, "Timed out waiting for {0} to stop", thread.getName());
+        }
+    }
+
+    /**
+     * Whether the CPU load of the machine is moderate and there is enough memory available for a duplicate attempt.
+     * Memory available on Linux includes the page cache that the kernel can reclaim, unlike the free memory reported
+     * by the JVM elsewhere.
+     */
+    static boolean hasSpareCapacity() {
+        com.sun.management.OperatingSystemMXBean os =
+                ManagementFactory.getPlatformMXBean(com.sun.management.OperatingSystemMXBean.class);
+        double cpuLoad = os.getCpuLoad();
+        if (cpuLoad < 0 || cpuLoad >= MAX_CPU_LOAD) {
+            return false;
+        }
+        long available = os.getFreeMemorySize();
+        try {
+            for (String line : Files.readAllLines(MEMINFO, StandardCharsets.US_ASCII)) {
+                if (line.startsWith("MemAvailable:")) {
+                    available = Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not Linux, so keep the free memory
+        }
+        return available >= MIN_AVAILABLE_MEMORY;
+    }
+}
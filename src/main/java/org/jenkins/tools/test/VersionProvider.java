@@ -15,7 +15,7 @@ public class VersionProvider implements CommandLine.IVersionProvider {
         return new String[] {getPctVersionString(), getJavaVersionString()};
     }
 
-    private static String getPctVersionString() {
+    static String getPctVersionString() {
         StringBuilder sb = new StringBuilder("Plugin Compatibility Tester ");
         try (InputStream manifestStream = VersionProvider.class.getResourceAsStream("/META-INF/MANIFEST.MF")) {
             if (manifestStream != null) {
@@ -2,19 +2,10 @@ package org.jenkins.tools.test.hook;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.util.VersionNumber;
-import java.io.BufferedInputStream;
-import java.io.File;
-import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
-import java.util.jar.JarInputStream;
 import java.util.stream.Collectors;
 import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
 import org.jenkins.tools.test.exception.PomExecutionException;
-import org.jenkins.tools.test.maven.ExpressionEvaluator;
-import org.jenkins.tools.test.maven.ExternalMavenRunner;
 import org.jenkins.tools.test.model.hook.BeforeExecutionContext;
 import org.jenkins.tools.test.model.hook.PluginCompatTesterHookBeforeExecution;
 import org.kohsuke.MetaInfServices;
@@ -32,75 +23,14 @@ public class JenkinsTestHarnessHook extends PluginCompatTesterHookBeforeExecutio
             List.of(VERSION_BACKPORT_2244, VERSION_BACKPORT_2270, VERSION_WITH_WEB_FRAGMENTS);
     private static final String PROPERTY_NAME = "jenkins-test-harness.version";
 
-    private static boolean usesWebFragment(@NonNull BeforeExecutionContext context) {
-        // We only want this hook to be enabled if the Jetty 12 hook is not enabled at the same time
-        var war = context.getConfig().getWar();
-        try (var jarFile = new JarFile(war)) {
-            var jenkinsCoreEntry = getJenkinsCoreEntry(jarFile);
-            if (jenkinsCoreEntry == null) {
-                throw new IllegalArgumentException("Failed to find jenkins-core jar in " + war);
-            }
-            try (var is = jarFile.getInputStream(jenkinsCoreEntry);
-                    var bis = new BufferedInputStream(is);
-                    var jis = new JarInputStream(bis)) {
-                return hasWebFragment(jis);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException("Failed to determine whether " + war + " uses web fragments", e);
-        }
-    }
-
     @NonNull
     private static VersionNumber getPropertyAsVersion(
             @NonNull BeforeExecutionContext context, @NonNull String propertyName) throws PomExecutionException {
-        var expressionEvaluator = new ExpressionEvaluator(
-                context.getCloneDirectory(),
-                context.getPlugin().getModule(),
-                new ExternalMavenRunner(context.getConfig()));
-        return new VersionNumber(expressionEvaluator.evaluateString(propertyName));
-    }
-
-    private static boolean hasWebFragment(JarInputStream jis) throws IOException {
-        for (var entry = jis.getNextEntry(); entry != null; entry = jis.getNextEntry()) {
-            if ("META-INF/web-fragment.xml".equals(entry.getName())) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    private static JarEntry getJenkinsCoreEntry(JarFile jarFile) {
-        for (var entries = jarFile.entries(); entries.hasMoreElements(); ) {
-            var entry = entries.nextElement();
-            if (entry.getName().startsWith("WEB-INF/lib/jenkins-core-")) {
-                return entry;
-            }
-        }
-        return null;
-    }
-
-    private static VersionNumber getWinstoneVersion(File war) {
-        try (var jarFile = new JarFile(war)) {
-            var zipEntry = jarFile.getEntry("executable/winstone.jar");
-            if (zipEntry == null) {
-                throw new IllegalArgumentException("Failed to find winstone.jar in " + war);
-            }
-            try (var is = jarFile.getInputStream(zipEntry);
-                    var bis = new BufferedInputStream(is);
-                    var jis = new JarInputStream(bis)) {
-                var manifest = jis.getManifest();
-                if (manifest == null) {
-                    throw new IllegalArgumentException("Failed to read manifest in " + war);
-                }
-                var version = manifest.getMainAttributes().getValue("Implementation-Version");
-                if (version == null) {
-                    throw new IllegalArgumentException("Failed to read Winstone version from manifest in " + war);
-                }
-                return new VersionNumber(version);
-            }
-        } catch (IOException e) {
-            throw new UncheckedIOException("Failed to read Winstone version in " + war, e);
+        String version = context.getProjectFacts().getString(propertyName);
+        if (version == null) {
+            throw new PomExecutionException("Property " + propertyName + " is not defined");
         }
+        return new VersionNumber(version);
     }
 
     /**
@@ -134,7 +64,7 @@ public class JenkinsTestHarnessHook extends PluginCompatTesterHookBeforeExecutio
         if (JenkinsTestHarnessHook2.isEnabled()) {
             return false;
         }
-        var winstoneVersion = getWinstoneVersion(context.getConfig().getWar());
+        var winstoneVersion = context.getWarFacts().getWinstoneVersion();
         if (winstoneVersion.getDigitAt(0) < 7) {
             // Don't upgrade anything if winstone version is too old.
             return false;
@@ -142,7 +72,8 @@ public class JenkinsTestHarnessHook extends PluginCompatTesterHookBeforeExecutio
         try {
             var existingVersion = getPropertyAsVersion(context, PROPERTY_NAME);
             // If core uses web fragments, we need a version of jth with web fragments support
-            if (!usesWebFragment(context)) {
+            // We only want this hook to be enabled if the Jetty 12 hook is not enabled at the same time
+            if (!context.getWarFacts().usesWebFragment()) {
                 return existingVersion.isOlderThan(new VersionNumber(VERSION_WITH_WEB_FRAGMENTS));
             } else {
                 return VALID_VERSIONS.stream().map(VersionNumber::new).anyMatch(existingVersion::equals)
@@ -2,13 +2,8 @@ package org.jenkins.tools.test.hook;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import hudson.util.VersionNumber;
-import java.util.LinkedHashMap;
-import java.util.Map;
 import java.util.Optional;
 import org.jenkins.tools.test.exception.PomExecutionException;
-import org.jenkins.tools.test.maven.ExpressionEvaluator;
-import org.jenkins.tools.test.maven.ExternalMavenRunner;
-import org.jenkins.tools.test.maven.MavenRunner;
 import org.jenkins.tools.test.model.hook.BeforeExecutionContext;
 import org.jenkins.tools.test.model.hook.PluginCompatTesterHookBeforeExecution;
 
@@ -37,12 +32,10 @@ public abstract class PropertyVersionHook extends PluginCompatTesterHookBeforeEx
 
     @Override
     public boolean check(@NonNull BeforeExecutionContext context) {
-        MavenRunner runner = new ExternalMavenRunner(context.getConfig());
-        ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(
-                context.getCloneDirectory(), context.getPlugin().getModule(), runner);
         try {
-            String version = expressionEvaluator.evaluateString(getProperty());
-            return new VersionNumber(version).isOlderThan(new VersionNumber(getMinimumVersion(context)));
+            String version = context.getProjectFacts().getString(getProperty());
+            return version != null
+                    && new VersionNumber(version).isOlderThan(new VersionNumber(getMinimumVersion(context)));
         } catch (PomExecutionException e) {
             return false;
         }
@@ -50,9 +43,7 @@ public abstract class PropertyVersionHook extends PluginCompatTesterHookBeforeEx
 
     @Override
     public void action(@NonNull BeforeExecutionContext context) {
-        Map<String, String> mavenProperties =
-                new LinkedHashMap<>(context.getConfig().getMavenProperties());
-        mavenProperties.put(getProperty(), getMinimumVersion(context));
-        context.getConfig().setMavenProperties(mavenProperties);
+        // Only for this plugin, as the configuration is shared by the plugins tested concurrently
+        context.getMavenProperties().put(getProperty(), getMinimumVersion(context));
     }
 }
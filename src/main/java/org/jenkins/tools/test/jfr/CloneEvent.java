@@ -0,0 +1,32 @@
+package org.jenkins.tools.test.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.jenkins.tools.test.Clone")
+@Label("Clone")
+@Description("Checkout of a plugin repository at a tag or commit")
+@Category("Plugin Compatibility Tester")
+@StackTrace(false)
+public class CloneEvent extends Event {
+
+    @Label("Git URL")
+    public String gitUrl;
+
+    @Label("Tag or Commit")
+    public String scmTag;
+
+    @Label("Directory")
+    public String directory;
+
+    @Label("From Cache")
+    @Description("Whether the objects were fetched into the persistent Git cache rather than into the checkout")
+    public boolean cached;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,74 @@
+package org.jenkins.tools.test.jfr;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+/**
+ * A Java Flight Recorder recording of a run, with the default JDK events plus those of PCT. The recording is written
+ * to its file when closed. The events of PCT can also be recorded by starting JFR on the command line.
+ */
+public final class FlightRecording implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(FlightRecording.class.getName());
+
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            CloneEvent.class,
+            HookEvent.class,
+            MavenInvocationEvent.class,
+            PhaseEvent.class,
+            WarExtractionEvent.class);
+
+    @CheckForNull
+    private final Recording recording;
+
+    private FlightRecording(@CheckForNull Recording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Start recording to the given file, or do nothing if it is {@code null}.
+     */
+    @NonNull
+    public static FlightRecording start(@CheckForNull File file) {
+        if (file == null) {
+            return new FlightRecording(null);
+        }
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+            recording.setDestination(file.toPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to set up a flight recording to " + file, e);
+        } catch (ParseException e) {
+            throw new IllegalStateException("Failed to read the default flight recorder configuration", e);
+        }
+        recording.setName("PCT");
+        for (Class<? extends Event> event : EVENTS) {
+            recording.enable(event);
+        }
+        recording.start();
+        LOGGER.log(Level.INFO, "Recording flight to {0}", file);
+        return new FlightRecording(recording);
+    }
+
+    @Override
+    public void close() {
+        if (recording != null) {
+            Path destination = recording.getDestination();
+            recording.stop();
+            recording.close();
+            LOGGER.log(Level.INFO, "Wrote flight recording to {0}", destination);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.jenkins.tools.test.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.jenkins.tools.test.Hook")
+@Label("Hook")
+@Description("The check or action of a hook for a plugin")
+@Category("Plugin Compatibility Tester")
+@StackTrace(false)
+public class HookEvent extends Event {
+
+    @Label("Hook")
+    public String hook;
+
+    @Label("Stage")
+    public String stage;
+
+    @Label("Plugin")
+    public String plugin;
+
+    @Label("Step")
+    @Description("\"check\" or \"action\"")
+    public String step;
+
+    @Label("Applies")
+    @Description("For a check, whether the hook applies to the plugin")
+    public boolean applies;
+
+    @Label("Failure")
+    @Description("The exception thrown by the hook, if it failed")
+    public String failure;
+}
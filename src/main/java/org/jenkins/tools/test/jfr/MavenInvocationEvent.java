@@ -0,0 +1,34 @@
+package org.jenkins.tools.test.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.jenkins.tools.test.MavenInvocation")
+@Label("Maven Invocation")
+@Description("A run of Maven on a plugin repository")
+@Category("Plugin Compatibility Tester")
+@StackTrace(false)
+public class MavenInvocationEvent extends Event {
+
+    @Label("Executable")
+    @Description("The Maven executable, or \"embedded\" if Maven ran inside PCT")
+    public String executable;
+
+    @Label("Directory")
+    public String directory;
+
+    @Label("Module")
+    public String module;
+
+    @Label("Goals")
+    @Description("The goals and options specific to this invocation")
+    public String goals;
+
+    @Label("Exit Status")
+    @Description("The exit status of Maven, or -1 if it did not complete")
+    public int exitStatus = -1;
+}
@@ -0,0 +1,25 @@
+package org.jenkins.tools.test.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.jenkins.tools.test.Phase")
+@Label("Phase")
+@Description("A phase of testing a plugin, as in the timing report")
+@Category("Plugin Compatibility Tester")
+@StackTrace(false)
+public class PhaseEvent extends Event {
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Plugin")
+    public String plugin;
+
+    @Label("Detail")
+    public String detail;
+}
@@ -0,0 +1,26 @@
+package org.jenkins.tools.test.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.jenkins.tools.test.WarExtraction")
+@Label("WAR Extraction")
+@Description("Extraction of the core version and plugin metadata from the WAR")
+@Category("Plugin Compatibility Tester")
+@StackTrace(false)
+public class WarExtractionEvent extends Event {
+
+    @Label("WAR")
+    public String war;
+
+    @Label("Plugins")
+    public int plugins;
+
+    @Label("Parsed Plugins")
+    @Description("The plugins whose metadata was not found in the index")
+    public int parsedPlugins;
+}
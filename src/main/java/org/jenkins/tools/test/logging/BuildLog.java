@@ -0,0 +1,257 @@
+package org.jenkins.tools.test.logging;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The build log of a plugin, which stays open across the Maven invocations for that plugin. It can be compressed on
+ * the fly and capped in size; when capped, the log keeps the first half of the allowed size and the last half, with a
+ * note of how much was omitted in between. Until the log is closed, the last half is written as it comes to side files
+ * next to the log ({@code .tail} and {@code .tail.previous}, each of up to half the allowed size), so that it survives
+ * a crash; closing the log appends it and removes the side files.
+ *
+ * <p>Maven runners only know the file of the build log, so they write to it through {@link #append(File)}, which finds
+ * the open build log for that file.
+ */
+public final class BuildLog implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ConcurrentMap<File, BuildLog> OPEN = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final File file;
+
+    @NonNull
+    private final OutputStream out;
+
+    /** Size of the head of the log, or 0 if the log is not capped. */
+    private final long headSize;
+
+    /** Size of the tail of the log, or 0 if the log is not capped. */
+    private final int tailSize;
+
+    // guarded by this
+    private long written;
+
+    @NonNull
+    private final File tailFile;
+
+    @NonNull
+    private final File previousTailFile;
+
+    // guarded by this; opened once the head is full
+    @CheckForNull
+    private OutputStream tail;
+
+    // guarded by this; bytes written to the tail file, which is rotated when it reaches tailSize
+    private long tailFileSize;
+
+    // guarded by this; total bytes that went to the tail, of which only the last tailSize are kept
+    private long tailWritten;
+
+    private BuildLog(@NonNull File file, @NonNull OutputStream out, long maxSize) {
+        this.file = file;
+        this.out = out;
+        this.headSize = maxSize / 2;
+        this.tailSize = Math.toIntExact(maxSize - headSize);
+        this.tailFile = new File(file.getPath() + ".tail");
+        this.previousTailFile = new File(file.getPath() + ".tail.previous");
+    }
+
+    /**
+     * Create (or replace) a build log.
+     *
+     * @param file the file of the build log, which should end with {@code .gz} if {@code compress} is set
+     * @param compress whether to compress the build log with gzip
+     * @param maxSize the maximum uncompressed size of the build log in bytes, or 0 if unlimited
+     */
+    @NonNull
+    public static BuildLog create(@NonNull File file, boolean compress, long maxSize) {
+        if (maxSize < 0 || maxSize / 2 >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid maximum log size: " + maxSize);
+        }
+        File key = file.getAbsoluteFile();
+        BuildLog log;
+        try {
+            Files.createDirectories(key.getParentFile().toPath());
+            OutputStream os = new FileOutputStream(key);
+            try {
+                // flush each Maven invocation completely, so that the log can be read while the next one runs
+                log = new BuildLog(key, compress ? new GZIPOutputStream(os, BUFFER_SIZE, true) : os, maxSize);
+            } catch (IOException e) {
+                os.close();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create build log file", e);
+        }
+        BuildLog previous = OPEN.put(key, log);
+        if (previous != null) {
+            previous.close();
+        }
+        return log;
+    }
+
+    /**
+     * Open a stream that appends to the given build log. If the build log was created through {@link #create(File,
+     * boolean, long)} and is still open, closing the stream only flushes it; otherwise the file is appended to as is.
+     */
+    @NonNull
+    public static OutputStream append(@NonNull File file) throws IOException {
+        BuildLog log = OPEN.get(file.getAbsoluteFile());
+        if (log == null) {
+            return Channels.newOutputStream(
+                    FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+        }
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[] {(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                log.write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                log.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                log.flush();
+            }
+        };
+    }
+
+    @NonNull
+    public File getFile() {
+        return file;
+    }
+
+    synchronized void write(byte[] b, int off, int len) throws IOException {
+        if (headSize == 0) {
+            out.write(b, off, len);
+            return;
+        }
+        if (written < headSize) {
+            int n = (int) Math.min(len, headSize - written);
+            out.write(b, off, n);
+            written += n;
+            off += n;
+            len -= n;
+        }
+        if (len > 0) {
+            // only the last tailSize bytes of this write can survive
+            int skip = Math.max(0, len - tailSize);
+            tailWritten += skip;
+            off += skip;
+            len -= skip;
+            while (len > 0) {
+                if (tail == null || tailFileSize == tailSize) {
+                    rotateTail();
+                }
+                int n = (int) Math.min(len, tailSize - tailFileSize);
+                tail.write(b, off, n);
+                tailFileSize += n;
+                tailWritten += n;
+                off += n;
+                len -= n;
+            }
+        }
+    }
+
+    /**
+     * Start a new tail file, keeping the current one (if any) as the previous tail file, which together always hold at
+     * least the last tailSize bytes.
+     */
+    private void rotateTail() throws IOException {
+        if (tail != null) {
+            tail.close();
+            Files.move(tailFile.toPath(), previousTailFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(previousTailFile.toPath());
+        }
+        tail = new BufferedOutputStream(new FileOutputStream(tailFile), BUFFER_SIZE);
+        tailFileSize = 0;
+    }
+
+    synchronized void flush() throws IOException {
+        out.flush();
+        if (tail != null) {
+            tail.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        OPEN.remove(file, this);
+        try (OutputStream os = out) {
+            if (tail != null) {
+                tail.close();
+                writeTail(readTail());
+                Files.delete(tailFile.toPath());
+                Files.deleteIfExists(previousTailFile.toPath());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close build log file " + file, e);
+        }
+        tail = null;
+    }
+
+    /**
+     * The last tailSize bytes written to the tail files, or fewer if less was written.
+     */
+    private byte[] readTail() throws IOException {
+        byte[] current = Files.readAllBytes(tailFile.toPath());
+        int length = (int) Math.min(tailWritten, tailSize);
+        if (length <= current.length) {
+            return Arrays.copyOfRange(current, current.length - length, current.length);
+        }
+        byte[] result = new byte[length];
+        int fromPrevious = length - current.length;
+        try (RandomAccessFile previous = new RandomAccessFile(previousTailFile, "r")) {
+            previous.seek(previous.length() - fromPrevious);
+            previous.readFully(result, 0, fromPrevious);
+        }
+        System.arraycopy(current, 0, result, fromPrevious, current.length);
+        return result;
+    }
+
+    private void writeTail(byte[] tail) throws IOException {
+        int start = 0;
+        int length = tail.length;
+        if (tailWritten > tailSize) {
+            // skip the partial line at the start of the tail
+            while (start < length && tail[start] != '\n') {
+                start++;
+            }
+            start = Math.min(start + 1, length);
+            long omitted = tailWritten - (length - start);
+            out.write(("\n[PCT] " + omitted + " bytes omitted from this log as it exceeds the maximum log size\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+        out.write(tail, start, length - start);
+    }
+}
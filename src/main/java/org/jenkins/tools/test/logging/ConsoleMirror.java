@@ -0,0 +1,228 @@
+package org.jenkins.tools.test.logging;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mirrors the output of builds to the console on a separate thread, so that builds are not held up by a console that
+ * is merely slow to take a burst of output. Output is handed over in chunks of complete lines, which keeps the lines of
+ * concurrent builds from being interleaved. Nothing is lost unless a rate limit is configured: once the queue is full,
+ * builds wait for the console to catch up. With a rate limit, further chunks are dropped instead, and a note saying how
+ * much was omitted is printed once the console catches up.
+ *
+ * <p>The queued output is written out before the console is reconfigured and before the JVM exits.
+ */
+public final class ConsoleMirror {
+
+    private static final int QUEUE_CAPACITY = 256;
+
+    private static final List<byte[]> SUMMARY_PREFIXES = List.of(
+            bytes("[ERROR]"),
+            bytes("[INFO] Building "),
+            bytes("[INFO] BUILD "),
+            bytes("[INFO] Tests run:"),
+            bytes("[WARNING] Tests run:"),
+            bytes("Tests run:"));
+
+    /** Marks the end of the output of a mirror that is being closed. */
+    private static final byte[] END = new byte[0];
+
+    private static volatile ConsoleMirror instance = new ConsoleMirror(ConsoleMode.FULL, 0, System.out);
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> instance.close(), "pct-console-shutdown"));
+    }
+
+    @NonNull
+    private final ConsoleMode mode;
+
+    /** Maximum console throughput in bytes per second, or 0 if unlimited. */
+    private final long rateLimit;
+
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    @NonNull
+    private final PrintStream out;
+
+    @NonNull
+    private final Thread writer;
+
+    private volatile boolean closed;
+
+    /**
+     * @param rateLimit the maximum console throughput in bytes per second, or 0 if unlimited
+     */
+    ConsoleMirror(@NonNull ConsoleMode mode, long rateLimit, @NonNull PrintStream out) {
+        this.mode = mode;
+        this.rateLimit = rateLimit;
+        this.out = out;
+        writer = new Thread(this::drain, "pct-console");
+        // not holding up the exit of the JVM, which runs close() instead
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Configure how builds are mirrored to the console from now on.
+     *
+     * @param rateLimit the maximum console throughput in KiB per second, or 0 if unlimited
+     */
+    public static synchronized void configure(@NonNull ConsoleMode mode, int rateLimit) {
+        if (rateLimit < 0) {
+            throw new IllegalArgumentException("Console rate limit must not be negative, but was " + rateLimit);
+        }
+        ConsoleMirror previous = instance;
+        if (previous.mode != mode || previous.rateLimit != rateLimit * 1024L) {
+            instance = new ConsoleMirror(mode, rateLimit * 1024L, System.out);
+            previous.close();
+        }
+    }
+
+    @NonNull
+    public static ConsoleMirror get() {
+        return instance;
+    }
+
+    /**
+     * Mirror the given complete lines to the console. Without a rate limit, this blocks while the console is behind.
+     */
+    public void write(byte[] buf, int off, int len) {
+        if (mode == ConsoleMode.SUMMARY) {
+            int start = off;
+            for (int i = off; i < off + len; i++) {
+                if (buf[i] == '\n') {
+                    if (isSummary(buf, start, i + 1)) {
+                        offer(buf, start, i + 1 - start);
+                    }
+                    start = i + 1;
+                }
+            }
+            if (start < off + len && isSummary(buf, start, off + len)) {
+                offer(buf, start, off + len - start);
+            }
+        } else {
+            offer(buf, off, len);
+        }
+    }
+
+    private void offer(byte[] buf, int off, int len) {
+        if (closed) {
+            // output of a build that started before the console was reconfigured
+            ConsoleMirror current = instance;
+            if (current != this) {
+                current.offer(buf, off, len);
+                return;
+            }
+        }
+        byte[] chunk = new byte[len];
+        System.arraycopy(buf, off, chunk, 0, len);
+        if (rateLimit > 0) {
+            if (!queue.offer(chunk)) {
+                dropped.addAndGet(len);
+            }
+            return;
+        }
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            // the build is being cancelled, so its output may as well be omitted
+            Thread.currentThread().interrupt();
+            dropped.addAndGet(len);
+        }
+    }
+
+    /**
+     * Write out the output queued so far and stop the thread writing it.
+     */
+    void close() {
+        closed = true;
+        try {
+            if (queue.offer(END, 1, TimeUnit.MINUTES)) {
+                writer.join(TimeUnit.MINUTES.toMillis(1));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isSummary(byte[] buf, int start, int end) {
+        for (byte[] prefix : SUMMARY_PREFIXES) {
+            if (end - start >= prefix.length && startsWith(buf, start, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean startsWith(byte[] buf, int start, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (buf[start + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void drain() {
+        long windowStart = System.nanoTime();
+        long windowBytes = 0;
+        try {
+            while (true) {
+                byte[] chunk = queue.poll(1, TimeUnit.SECONDS);
+                if (chunk == null) {
+                    // report output omitted at the end of a build without waiting for the next one
+                    reportOmitted();
+                    continue;
+                }
+                if (chunk == END) {
+                    // and whatever was queued by builds racing with close()
+                    while ((chunk = queue.poll()) != null) {
+                        out.write(chunk, 0, chunk.length);
+                    }
+                    reportOmitted();
+                    out.flush();
+                    return;
+                }
+                // once closing, what is left is written out at once
+                if (rateLimit > 0 && !closed) {
+                    long elapsed = System.nanoTime() - windowStart;
+                    if (elapsed >= TimeUnit.SECONDS.toNanos(1)) {
+                        windowStart = System.nanoTime();
+                        windowBytes = 0;
+                    } else if (windowBytes + chunk.length > rateLimit) {
+                        TimeUnit.NANOSECONDS.sleep(TimeUnit.SECONDS.toNanos(1) - elapsed);
+                        windowStart = System.nanoTime();
+                        windowBytes = 0;
+                    }
+                    windowBytes += chunk.length;
+                }
+                reportOmitted();
+                out.write(chunk, 0, chunk.length);
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reportOmitted() {
+        long omitted = dropped.getAndSet(0);
+        if (omitted > 0) {
+            out.println("[PCT] " + omitted + " bytes of build output omitted from the console;"
+                    + " see the build log for the full output");
+            out.flush();
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,12 @@
+package org.jenkins.tools.test.logging;
+
+/**
+ * How much of the output of builds is mirrored to the console. The build logs always receive the full output.
+ */
+public enum ConsoleMode {
+    /** Mirror every line. */
+    FULL,
+
+    /** Mirror only module headers, test results, errors, and the build result. */
+    SUMMARY
+}
@@ -0,0 +1,114 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.apache.commons.lang.SystemUtils;
+import org.jenkins.tools.test.exception.PomExecutionException;
+
+/**
+ * Runs Maven through the <a href="https://github.com/apache/maven-mvnd">Maven daemon</a>, which keeps warm JVMs with
+ * their class loaders and plugin caches between invocations. If the daemon client is not available, every invocation
+ * falls back to the given runner.
+ */
+public class DaemonMavenRunner implements MavenRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(DaemonMavenRunner.class.getName());
+
+    /** Availability of each daemon client, probed once per JVM. */
+    private static final ConcurrentMap<String, Boolean> AVAILABLE = new ConcurrentHashMap<>();
+
+    @NonNull
+    private final String executable;
+
+    @NonNull
+    private final MavenRunner daemon;
+
+    @NonNull
+    private final MavenRunner fallback;
+
+    /**
+     * @param mavenDaemon Path to the Maven daemon client. If {@code null}, {@code mvnd} from {@code PATH} will be used
+     * @param fallback the runner to use if the daemon is unavailable
+     */
+    public DaemonMavenRunner(
+            @CheckForNull File mavenDaemon,
+            @CheckForNull File mavenSettings,
+            @NonNull List<String> mavenArgs,
+            @NonNull MavenRunner fallback) {
+        this.executable = mavenDaemon != null
+                ? mavenDaemon.getAbsolutePath()
+                : SystemUtils.IS_OS_WINDOWS ? "mvnd.cmd" : "mvnd";
+        List<String> daemonArgs = new ArrayList<>();
+        // Build modules one at a time like Maven does, so that the build logs are not interleaved
+        daemonArgs.add("--serial");
+        daemonArgs.addAll(mavenArgs);
+        this.daemon = ExternalMavenRunner.forExecutable(executable, mavenSettings, daemonArgs);
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void run(
+            Map<String, String> properties, File baseDirectory, String moduleName, File buildLogFile, String... args)
+            throws PomExecutionException {
+        if (isAvailable()) {
+            daemon.run(properties, baseDirectory, moduleName, buildLogFile, args);
+        } else {
+            fallback.run(properties, baseDirectory, moduleName, buildLogFile, args);
+        }
+    }
+
+    /**
+     * Whether the daemon client can be run.
+     */
+    public boolean isAvailable() {
+        return AVAILABLE.computeIfAbsent(executable, DaemonMavenRunner::probe);
+    }
+
+    @SuppressFBWarnings(value = "COMMAND_INJECTION", justification = "intended behavior")
+    private static boolean probe(String executable) {
+        Process p;
+        try {
+            p = new ProcessBuilder(executable, "--version")
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Maven daemon {0} is not available; falling back to Maven: {1}", new Object[] {
+                executable, e.getMessage()
+            });
+            return false;
+        }
+        try {
+            if (!p.waitFor(1, TimeUnit.MINUTES)) {
+                p.destroyForcibly();
+                LOGGER.log(Level.WARNING, "Maven daemon {0} did not respond; falling back to Maven", executable);
+                return false;
+            }
+        } catch (InterruptedException e) {
+            // The run is being cancelled, so the fallback will not start anything either
+            p.destroyForcibly();
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        if (p.exitValue() != 0) {
+            LOGGER.log(
+                    Level.WARNING,
+                    "Maven daemon {0} failed with exit status {1}; falling back to Maven",
+                    new Object[] {executable, p.exitValue()});
+            return false;
+        }
+        LOGGER.log(Level.INFO, "Using Maven daemon {0}", executable);
+        return true;
+    }
+}
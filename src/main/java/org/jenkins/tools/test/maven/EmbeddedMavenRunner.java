@@ -0,0 +1,312 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import org.apache.commons.lang.SystemUtils;
+import org.jenkins.tools.test.exception.PomExecutionException;
+import org.jenkins.tools.test.jfr.MavenInvocationEvent;
+import org.jenkins.tools.test.logging.BuildLog;
+import org.jenkins.tools.test.logging.ConsoleMirror;
+import org.jenkins.tools.test.metrics.PctMetrics;
+import org.jenkins.tools.test.report.TraceRecorder;
+
+/**
+ * Runs Maven inside the PCT JVM, avoiding the cost of starting a new JVM for every invocation. This is meant for the
+ * many short metadata queries PCT makes, such as expression evaluation and dependency collection; builds that run
+ * tests are better isolated in their own process.
+ *
+ * <p>Maven is loaded from the installation that would otherwise be run externally, through a class loader that does
+ * not see the classes of PCT. Maven relies on JVM-wide state: it sets system properties, replaces the standard output
+ * and error streams of the JVM for the duration of each invocation, and cannot be interrupted. So invocations are
+ * serialized, the system properties are restored after each one, and Maven is handed the current standard streams so
+ * that replacing them has no effect; PCT only uses this runner with a single worker and without speculative execution.
+ * The output of each invocation is written to a log file by Maven and then appended to the build log. If Maven cannot
+ * be loaded, every invocation falls back to the given runner.
+ *
+ * <p>The logging backend of Maven reads its level once per class loader, so each verbosity ({@code -q}, {@code -X}, or
+ * neither) gets its own class loader.
+ */
+public class EmbeddedMavenRunner implements MavenRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(EmbeddedMavenRunner.class.getName());
+
+    private static final String MAVEN_CLI = "org.apache.maven.cli.MavenCli";
+
+    /** Serializes invocations, which share system properties and the Maven class loader. */
+    private static final Object LOCK = new Object();
+
+    // guarded by LOCK; keyed by installation and verbosity, and the class loaders live as long as the JVM
+    private static final Map<List<Object>, ClassLoader> CLASS_LOADERS = new HashMap<>();
+
+    @CheckForNull
+    private final File externalMaven;
+
+    @NonNull
+    private final ExternalMavenRunner fallback;
+
+    /**
+     * @param externalMaven Path to the Maven executable whose installation should be loaded. If {@code null}, the
+     *     installation is located through {@code MAVEN_HOME} or the {@code mvn} executable in {@code PATH}
+     * @param fallback the runner used to compute the arguments of each invocation, and to run it if Maven cannot be
+     *     loaded
+     */
+    public EmbeddedMavenRunner(@CheckForNull File externalMaven, @NonNull ExternalMavenRunner fallback) {
+        this.externalMaven = externalMaven;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public void run(
+            Map<String, String> properties, File baseDirectory, String moduleName, File buildLogFile, String... args)
+            throws PomExecutionException {
+        List<String> arguments = fallback.getArguments(properties, moduleName, args);
+        synchronized (LOCK) {
+            ClassLoader loader = getClassLoader(verbosity(arguments));
+            if (loader == null) {
+                fallback.run(properties, baseDirectory, moduleName, buildLogFile, args);
+                return;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                throw new PomExecutionException(
+                        "mvn " + String.join(" ", arguments) + " was not started as the run was cancelled");
+            }
+            if (buildLogFile != null) {
+                LOGGER.log(Level.INFO, "Running embedded mvn {0} in {1} >> {2}", new Object[] {
+                    String.join(" ", arguments), baseDirectory, buildLogFile
+                });
+            } else {
+                LOGGER.log(Level.INFO, "Running embedded mvn {0} in {1}", new Object[] {
+                    String.join(" ", arguments), baseDirectory
+                });
+            }
+            MavenInvocationEvent event = new MavenInvocationEvent();
+            if (event.isEnabled()) {
+                event.executable = "embedded";
+                event.directory = baseDirectory.toString();
+                event.module = moduleName;
+                event.goals = String.join(" ", args);
+            }
+            event.begin();
+            TraceRecorder.Span span = TraceRecorder.get()
+                    .start("maven", String.join(" ", args))
+                    .arg("module", moduleName)
+                    .arg("directory", baseDirectory)
+                    .arg("executable", "embedded");
+            long start = System.nanoTime();
+            int exitStatus;
+            Path log = null;
+            try {
+                log = Files.createTempFile("pct-embedded-maven", ".log");
+                List<String> withLog = new ArrayList<>(arguments);
+                withLog.add(0, "-l");
+                withLog.add(1, log.toString());
+                exitStatus = doMain(loader, withLog, baseDirectory);
+                event.exitStatus = exitStatus;
+                span.arg("exitStatus", exitStatus);
+                copyLog(log, buildLogFile);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (ReflectiveOperationException e) {
+                throw new PomExecutionException("Failed to run embedded Maven in " + baseDirectory, e);
+            } finally {
+                event.commit();
+                span.close();
+                PctMetrics.get().mavenInvoked(args, Duration.ofNanos(System.nanoTime() - start));
+                if (log != null) {
+                    try {
+                        Files.deleteIfExists(log);
+                    } catch (IOException e) {
+                        LOGGER.log(Level.WARNING, "Failed to delete " + log, e);
+                    }
+                }
+            }
+            if (exitStatus != 0) {
+                throw new PomExecutionException("mvn " + String.join(" ", arguments) + " in " + baseDirectory
+                        + " failed with exit status " + exitStatus);
+            }
+        }
+    }
+
+    private static int doMain(ClassLoader loader, List<String> arguments, File baseDirectory)
+            throws ReflectiveOperationException {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        // Maven sets the user properties (-D) and its logging configuration as system properties
+        Properties systemProperties = new Properties();
+        systemProperties.putAll(System.getProperties());
+        thread.setContextClassLoader(loader);
+        System.setProperty("maven.multiModuleProjectDirectory", baseDirectory.getAbsolutePath());
+        // Maven replaces the streams of the JVM with these until it returns; its own output goes to its log file
+        PrintStream out = System.out;
+        PrintStream err = System.err;
+        try {
+            Class<?> cli = loader.loadClass(MAVEN_CLI);
+            Method doMain = cli.getMethod("doMain", String[].class, String.class, PrintStream.class, PrintStream.class);
+            Object result = doMain.invoke(
+                    cli.getConstructor().newInstance(),
+                    arguments.toArray(new String[0]),
+                    baseDirectory.getAbsolutePath(),
+                    out,
+                    err);
+            return (Integer) result;
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        } finally {
+            restore(systemProperties);
+            System.setOut(out);
+            System.setErr(err);
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    /**
+     * Restore the system properties to the given ones, in place, as other code may hold on to the system properties.
+     */
+    private static void restore(Properties systemProperties) {
+        Properties current = System.getProperties();
+        for (String name : current.stringPropertyNames()) {
+            if (!systemProperties.containsKey(name)) {
+                current.remove(name);
+            }
+        }
+        for (String name : systemProperties.stringPropertyNames()) {
+            String value = systemProperties.getProperty(name);
+            if (!value.equals(current.getProperty(name))) {
+                current.setProperty(name, value);
+            }
+        }
+    }
+
+    /**
+     * The logging level requested by the given arguments.
+     */
+    private static String verbosity(List<String> arguments) {
+        String verbosity = "info";
+        for (String argument : arguments) {
+            if (argument.equals("-q") || argument.equals("--quiet")) {
+                verbosity = "quiet";
+            } else if (argument.equals("-X") || argument.equals("--debug")) {
+                verbosity = "debug";
+            }
+        }
+        return verbosity;
+    }
+
+    /**
+     * Echo the log written by Maven to the console and append it to the build log, as {@link ExternalMavenRunner}
+     * does with the output of the Maven process.
+     */
+    private static void copyLog(Path log, @CheckForNull File buildLogFile) throws IOException {
+        byte[] output = Files.readAllBytes(log);
+        ConsoleMirror.get().write(output, 0, output.length);
+        if (buildLogFile != null) {
+            try (OutputStream os = BuildLog.append(buildLogFile)) {
+                os.write(output);
+            }
+        }
+    }
+
+    /**
+     * The class loader for the Maven installation at the given verbosity, or {@code null} if it could not be located.
+     */
+    @CheckForNull
+    @SuppressFBWarnings(value = "DP_CREATE_CLASSLOADER_INSIDE_DO_PRIVILEGED", justification = "no security manager")
+    private ClassLoader getClassLoader(String verbosity) {
+        Path home = getMavenHome();
+        if (home == null) {
+            LOGGER.log(Level.WARNING, "Failed to locate a Maven installation to embed; running Maven externally");
+            return null;
+        }
+        List<Object> key = List.of(home, verbosity);
+        if (CLASS_LOADERS.containsKey(key)) {
+            return CLASS_LOADERS.get(key);
+        }
+        ClassLoader loader = null;
+        List<URL> urls = new ArrayList<>();
+        try (Stream<Path> boot = list(home.resolve("boot"));
+                Stream<Path> lib = list(home.resolve("lib"))) {
+            for (Path jar : (Iterable<Path>) Stream.concat(boot, lib)::iterator) {
+                urls.add(jar.toUri().toURL());
+            }
+            if (!urls.isEmpty()) {
+                System.setProperty("maven.home", home.toString());
+                loader = new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getPlatformClassLoader());
+                loader.loadClass(MAVEN_CLI);
+                LOGGER.log(Level.INFO, "Embedding Maven from {0} at {1} verbosity", new Object[] {home, verbosity});
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            LOGGER.log(Level.WARNING, "Failed to load Maven from " + home + "; running Maven externally", e);
+            loader = null;
+        }
+        CLASS_LOADERS.put(key, loader);
+        return loader;
+    }
+
+    private static Stream<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Stream.empty();
+        }
+        return Files.list(directory).filter(p -> p.getFileName().toString().endsWith(".jar"));
+    }
+
+    @CheckForNull
+    private Path getMavenHome() {
+        Path executable = null;
+        if (externalMaven != null) {
+            executable = externalMaven.toPath();
+        } else {
+            String mavenHome = System.getenv("MAVEN_HOME");
+            if (mavenHome != null && !mavenHome.isBlank()) {
+                return Path.of(mavenHome);
+            }
+            String path = System.getenv("PATH");
+            if (path != null) {
+                String name = SystemUtils.IS_OS_WINDOWS ? "mvn.cmd" : "mvn";
+                for (String dir : path.split(File.pathSeparator)) {
+                    Path candidate = Path.of(dir, name);
+                    if (Files.isExecutable(candidate)) {
+                        executable = candidate;
+                        break;
+                    }
+                }
+            }
+        }
+        if (executable == null) {
+            return null;
+        }
+        try {
+            // bin/mvn is often a symbolic link, e.g. from /usr/bin
+            Path bin = executable.toRealPath().getParent();
+            return bin == null ? null : bin.getParent();
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to resolve " + executable, e);
+            return null;
+        }
+    }
+}
@@ -2,23 +2,43 @@ package org.jenkins.tools.test.maven;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.UncheckedIOException;
-import java.nio.charset.Charset;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.commons.lang.StringUtils;
+import java.util.stream.Collectors;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.jenkins.tools.test.exception.PomExecutionException;
+import org.jenkins.tools.test.report.Phase;
+import org.jenkins.tools.test.report.PhaseTimer;
 
 /**
  * A high-level wrapper over {@link MavenRunner} that allows for the evaluation of arbitrary expressions.
+ *
+ * <p>Each call to {@link #evaluate(Collection)} costs a single Maven invocation, regardless of the number of
+ * expressions, so callers needing several values from the same project should request them together.
  */
 public class ExpressionEvaluator {
 
+    private static final String PROJECT_PREFIX = "project.";
+
+    /** What {@code help:evaluate} prints for an expression without a value. */
+    private static final String UNDEFINED = "null object or invalid expression";
+
     @NonNull
     private final File pluginPath;
 
@@ -28,54 +48,169 @@ public class ExpressionEvaluator {
     @NonNull
     private final MavenRunner runner;
 
+    @NonNull
+    private final Map<String, String> userProperties;
+
     public ExpressionEvaluator(File pluginPath, String module, MavenRunner runner) {
+        this(pluginPath, module, runner, Map.of());
+    }
+
+    /**
+     * @param userProperties the properties the project is built with, such as those returned by {@link
+     *     MavenRunners#userProperties}, which override the properties of the project
+     */
+    public ExpressionEvaluator(
+            File pluginPath, String module, MavenRunner runner, @NonNull Map<String, String> userProperties) {
         this.pluginPath = pluginPath;
         this.module = module;
         this.runner = runner;
+        this.userProperties = userProperties;
     }
 
     public String evaluateString(String expression) throws PomExecutionException {
-        Path log = pluginPath.toPath().resolve(expression + ".log");
-        runner.run(
-                Map.of("expression", expression, "output", log.toAbsolutePath().toString()),
-                pluginPath,
-                module,
-                null,
-                "-q",
-                "help:evaluate");
-        String result;
+        return evaluate(List.of(expression)).get(expression);
+    }
+
+    public List<String> evaluateList(String expression) throws PomExecutionException {
+        return toList(evaluate(List.of(expression)).get(expression));
+    }
+
+    /**
+     * Evaluate several expressions against the project (or the module, if one was given) with as few Maven invocations
+     * as possible.
+     *
+     * <p>{@code help:evaluate} accepts only one expression per invocation, so instead the effective POM is computed
+     * once and each expression is resolved against it. Expressions of the form {@code project.foo.bar} are resolved
+     * against the model; any other expression is treated as the name of a property, taking the value of the user
+     * property of that name if there is one, as Maven does, or else that of the project. The effective POM knows
+     * nothing of the settings, the session, or the system properties, so an expression it cannot resolve is evaluated
+     * with {@code help:evaluate} on its own.
+     *
+     * @param expressions the expressions to evaluate
+     * @return a map from each expression to its value, or to {@code null} if the expression has no value. The values of
+     *     collections (such as {@code project.modules}) contain one element per line; see {@link #toList(String)}.
+     */
+    @NonNull
+    public Map<String, String> evaluate(@NonNull Collection<String> expressions) throws PomExecutionException {
+        try (PhaseTimer timer = PhaseTimer.start(Phase.EXPRESSION_EVALUATION, String.join(" ", expressions))) {
+            Model model = null;
+            Map<String, String> result = new LinkedHashMap<>();
+            for (String expression : expressions) {
+                if (!expression.startsWith(PROJECT_PREFIX) && userProperties.containsKey(expression)) {
+                    result.put(expression, userProperties.get(expression));
+                    continue;
+                }
+                if (model == null) {
+                    model = readEffectiveModel();
+                }
+                String value = resolve(model, expression);
+                result.put(expression, value != null ? value : evaluateWithHelpPlugin(expression));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Split the value of a collection-valued expression into its elements.
+     */
+    @NonNull
+    public static List<String> toList(@CheckForNull String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+        return value.lines().map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList());
+    }
+
+    private Model readEffectiveModel() throws PomExecutionException {
+        List<String> output = runToFile("effective-pom", Map.of(), "help:effective-pom");
         try {
-            result = Files.readString(log, Charset.defaultCharset()).trim();
-            Files.deleteIfExists(log);
+            return new MavenXpp3Reader().read(new StringReader(String.join("\n", output)), false);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } catch (XmlPullParserException e) {
+            throw new PomExecutionException("Failed to parse the effective POM of " + pluginPath, e);
         }
-        return result;
     }
 
-    public List<String> evaluateList(String expression) throws PomExecutionException {
-        Path log = pluginPath.toPath().resolve(expression + ".log");
-        runner.run(
-                Map.of("expression", expression, "output", log.toAbsolutePath().toString()),
-                pluginPath,
-                module,
-                null,
-                "-q",
-                "help:evaluate");
-        List<String> output;
+    @CheckForNull
+    private String evaluateWithHelpPlugin(String expression) throws PomExecutionException {
+        List<String> output = runToFile("expression", Map.of("expression", expression), "help:evaluate");
+        if (output.stream().anyMatch(line -> line.trim().startsWith("<string>"))) {
+            return output.stream()
+                    .map(String::trim)
+                    .filter(line -> line.startsWith("<string>"))
+                    .map(line -> line.replace("<string>", "").replace("</string>", "").trim())
+                    .collect(Collectors.joining("\n"));
+        }
+        String value = String.join("\n", output).trim();
+        return value.isEmpty() || value.equals(UNDEFINED) ? null : value;
+    }
+
+    /**
+     * Run the given goal of the project (or the module, if one was given) with its output written to a temporary file
+     * outside the checkout, so that it does not show up as a change to the sources.
+     *
+     * @return the lines of the output
+     */
+    private List<String> runToFile(String prefix, Map<String, String> properties, String goal)
+            throws PomExecutionException {
+        Path output;
         try {
-            output = Files.readAllLines(log, Charset.defaultCharset());
-            Files.deleteIfExists(log);
+            output = Files.createTempFile(prefix, ".txt");
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
-        List<String> result = new ArrayList<>();
-        for (String line : output) {
-            if (!StringUtils.startsWith(line.trim(), "<string>")) {
-                continue;
+        try {
+            Map<String, String> allProperties = new LinkedHashMap<>(properties);
+            allProperties.put("output", output.toAbsolutePath().toString());
+            if (module == null) {
+                // Without a module, only the root project is of interest (and not every project in the reactor).
+                runner.run(allProperties, pluginPath, null, null, "-q", "-N", goal);
+            } else {
+                runner.run(allProperties, pluginPath, module, null, "-q", goal);
+            }
+            return Files.readAllLines(output, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                Files.deleteIfExists(output);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @CheckForNull
+    static String resolve(@NonNull Model model, @NonNull String expression) {
+        if (!expression.startsWith(PROJECT_PREFIX)) {
+            return model.getProperties().getProperty(expression);
+        }
+        Object value = model;
+        for (String name : expression.substring(PROJECT_PREFIX.length()).split("\\.")) {
+            value = getProperty(value, name);
+            if (value == null) {
+                return null;
+            }
+        }
+        if (value instanceof Collection) {
+            return ((Collection<?>) value).stream().map(Object::toString).collect(Collectors.joining("\n"));
+        }
+        return value.toString();
+    }
+
+    @CheckForNull
+    private static Object getProperty(@NonNull Object bean, @NonNull String name) {
+        try {
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(bean.getClass()).getPropertyDescriptors()) {
+                Method getter = pd.getReadMethod();
+                if (pd.getName().equals(name) && getter != null) {
+                    return getter.invoke(bean);
+                }
             }
-            result.add(line.replace("<string>", "").replace("</string>", "").trim());
+        } catch (IntrospectionException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalArgumentException("Failed to evaluate " + name + " on " + bean.getClass().getName(), e);
         }
-        return result;
+        return null;
     }
 }
@@ -4,35 +4,42 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.io.Reader;
 import java.io.UncheckedIOException;
-import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.apache.commons.lang.SystemUtils;
 import org.jenkins.tools.test.exception.PomExecutionException;
+import org.jenkins.tools.test.jfr.MavenInvocationEvent;
+import org.jenkins.tools.test.logging.BuildLog;
+import org.jenkins.tools.test.logging.ConsoleMirror;
+import org.jenkins.tools.test.metrics.PctMetrics;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+import org.jenkins.tools.test.report.PhaseTimer;
+import org.jenkins.tools.test.report.ProcessSampler;
+import org.jenkins.tools.test.report.ProcessUsage;
+import org.jenkins.tools.test.report.TraceRecorder;
 
 /** Runs external Maven executable. */
 public class ExternalMavenRunner implements MavenRunner {
 
     private static final Logger LOGGER = Logger.getLogger(ExternalMavenRunner.class.getName());
 
-    @CheckForNull
-    private final File externalMaven;
+    @NonNull
+    private final String executable;
 
     @CheckForNull
     private final File mavenSettings;
@@ -48,11 +55,29 @@ public class ExternalMavenRunner implements MavenRunner {
      */
     public ExternalMavenRunner(
             @CheckForNull File externalMaven, @CheckForNull File mavenSettings, @NonNull List<String> mavenArgs) {
-        this.externalMaven = externalMaven;
+        this(
+                externalMaven != null
+                        ? externalMaven.getAbsolutePath()
+                        : SystemUtils.IS_OS_WINDOWS ? "mvn.cmd" : "mvn",
+                mavenSettings,
+                mavenArgs);
+    }
+
+    private ExternalMavenRunner(
+            @NonNull String executable, @CheckForNull File mavenSettings, @NonNull List<String> mavenArgs) {
+        this.executable = executable;
         this.mavenSettings = mavenSettings;
         this.mavenArgs = mavenArgs;
     }
 
+    /**
+     * @param executable the path to a Maven-compatible executable, or its name to look it up in {@code PATH}
+     */
+    static ExternalMavenRunner forExecutable(
+            @NonNull String executable, @CheckForNull File mavenSettings, @NonNull List<String> mavenArgs) {
+        return new ExternalMavenRunner(executable, mavenSettings, mavenArgs);
+    }
+
     /**
      * @param config The PCT configuration to extract maven arguments from.
      */
@@ -66,28 +91,8 @@ public class ExternalMavenRunner implements MavenRunner {
             Map<String, String> properties, File baseDirectory, String moduleName, File buildLogFile, String... args)
             throws PomExecutionException {
         List<String> cmd = new ArrayList<>();
-        if (externalMaven != null) {
-            cmd.add(externalMaven.getAbsolutePath());
-        } else {
-            cmd.add(SystemUtils.IS_OS_WINDOWS ? "mvn.cmd" : "mvn");
-        }
-        cmd.add("-B"); // --batch-mode
-        cmd.add("-V"); // --show-version
-        cmd.add("-e"); // --errors
-        cmd.add("-ntp"); // --no-transfer-progress
-        if (mavenSettings != null) {
-            cmd.add("-s");
-            cmd.add(mavenSettings.toString());
-        }
-        if (moduleName != null && !moduleName.isBlank()) {
-            cmd.add("-pl");
-            cmd.add(moduleName);
-        }
-        for (Map.Entry<String, String> entry : properties.entrySet()) {
-            cmd.add("-D" + entry);
-        }
-        cmd.addAll(mavenArgs);
-        cmd.addAll(List.of(args));
+        cmd.add(executable);
+        cmd.addAll(getArguments(properties, moduleName, args));
         if (buildLogFile != null) {
             LOGGER.log(Level.INFO, "Running {0} in {1} >> {2}", new Object[] {
                 String.join(" ", cmd), baseDirectory, buildLogFile
@@ -95,6 +100,23 @@ public class ExternalMavenRunner implements MavenRunner {
         } else {
             LOGGER.log(Level.INFO, "Running {0} in {1}", new Object[] {String.join(" ", cmd), baseDirectory});
         }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new PomExecutionException(String.join(" ", cmd) + " was not started as the run was cancelled");
+        }
+        MavenInvocationEvent event = new MavenInvocationEvent();
+        if (event.isEnabled()) {
+            event.executable = executable;
+            event.directory = baseDirectory.toString();
+            event.module = moduleName;
+            event.goals = String.join(" ", args);
+        }
+        event.begin();
+        TraceRecorder.Span span = TraceRecorder.get()
+                .start("maven", String.join(" ", args))
+                .arg("module", moduleName)
+                .arg("directory", baseDirectory)
+                .arg("executable", executable);
+        long start = System.nanoTime();
         Process p;
         try {
             p = new ProcessBuilder(cmd)
@@ -102,16 +124,37 @@ public class ExternalMavenRunner implements MavenRunner {
                     .redirectErrorStream(true)
                     .start();
         } catch (IOException e) {
+            span.close();
             throw new UncheckedIOException(e);
         }
+        PctMetrics.get().processStarted();
         MavenGobbler gobbler = new MavenGobbler(p, buildLogFile);
         gobbler.start();
+        ProcessSampler sampler = new ProcessSampler(p, String.join(" ", args));
         int exitStatus;
         try {
-            exitStatus = p.waitFor();
+            exitStatus = PhaseTimer.waitFor(p, sampler);
+            event.exitStatus = exitStatus;
+            span.arg("exitStatus", exitStatus);
             gobbler.join();
+            writeUsage(sampler.getUsage(), buildLogFile);
         } catch (InterruptedException e) {
+            // Another worker failed in fail-fast mode, so do not leave the build running in the background
+            p.descendants().forEach(ProcessHandle::destroyForcibly);
+            p.destroyForcibly();
+            // the build log is closed once the plugin is done, so let the gobbler finish writing to it first
+            try {
+                gobbler.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException x) {
+                e.addSuppressed(x);
+            }
+            Thread.currentThread().interrupt();
             throw new PomExecutionException(String.join(" ", cmd) + " was interrupted", e);
+        } finally {
+            event.commit();
+            span.close();
+            PctMetrics.get().processEnded();
+            PctMetrics.get().mavenInvoked(args, Duration.ofNanos(System.nanoTime() - start));
         }
         if (exitStatus != 0) {
             throw new PomExecutionException(
@@ -119,37 +162,120 @@ public class ExternalMavenRunner implements MavenRunner {
         }
     }
 
-    private static class MavenGobbler extends Thread {
+    /**
+     * Append the resources used by Maven to the build log, after its own output.
+     */
+    private static void writeUsage(@CheckForNull ProcessUsage usage, @CheckForNull File buildLogFile) {
+        if (usage == null || buildLogFile == null) {
+            return;
+        }
+        try (OutputStream os = BuildLog.append(buildLogFile)) {
+            os.write(("[PCT] Resource usage: " + usage + System.lineSeparator()).getBytes(Charset.defaultCharset()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The arguments to pass to Maven for the given invocation, not including the executable.
+     */
+    List<String> getArguments(Map<String, String> properties, @CheckForNull String moduleName, String... args) {
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-B"); // --batch-mode
+        arguments.add("-V"); // --show-version
+        arguments.add("-e"); // --errors
+        arguments.add("-ntp"); // --no-transfer-progress
+        if (mavenSettings != null) {
+            arguments.add("-s");
+            arguments.add(mavenSettings.toString());
+        }
+        if (moduleName != null && !moduleName.isBlank()) {
+            arguments.add("-pl");
+            arguments.add(moduleName);
+        }
+        for (Map.Entry<String, String> entry : properties.entrySet()) {
+            arguments.add("-D" + entry);
+        }
+        arguments.addAll(mavenArgs);
+        arguments.addAll(List.of(args));
+        return arguments;
+    }
+
+    /**
+     * Copies the output of Maven to the {@link BuildLog} as raw bytes, without decoding it into lines, and hands
+     * complete lines over to the {@link ConsoleMirror} so that a slow console does not hold up the build.
+     */
+    static class MavenGobbler extends Thread {
+
+        private static final int BUFFER_SIZE = 64 * 1024;
 
         @NonNull
-        private final Process p;
+        private final InputStream is;
 
         @CheckForNull
         private final File buildLogFile;
 
+        @NonNull
+        private final ConsoleMirror console;
+
         public MavenGobbler(@NonNull Process p, @Nullable File buildLogFile) {
-            this.p = p;
+            this(p.getInputStream(), buildLogFile, ConsoleMirror.get());
+        }
+
+        MavenGobbler(@NonNull InputStream is, @Nullable File buildLogFile, @NonNull ConsoleMirror console) {
+            super("pct-maven-gobbler");
+            this.is = is;
             this.buildLogFile = buildLogFile;
+            this.console = console;
         }
 
         @Override
         public void run() {
-            try (InputStream is = p.getInputStream();
-                    Reader isr = new InputStreamReader(is, Charset.defaultCharset());
-                    BufferedReader r = new BufferedReader(isr);
-                    OutputStream os = buildLogFile == null
-                            ? OutputStream.nullOutputStream()
-                            : new FileOutputStream(buildLogFile, true);
-                    Writer osw = new OutputStreamWriter(os, Charset.defaultCharset());
-                    PrintWriter w = new PrintWriter(osw)) {
-                String line;
-                while ((line = r.readLine()) != null) {
-                    System.out.println(line);
-                    w.println(line);
+            try (ReadableByteChannel in = Channels.newChannel(is);
+                    WritableByteChannel log = Channels.newChannel(
+                            buildLogFile == null
+                                    ? OutputStream.nullOutputStream()
+                                    : BuildLog.append(buildLogFile))) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                byte[] buf = buffer.array();
+                // bytes at the start of buf that belong to a line not yet mirrored to the console
+                int pending = 0;
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    // the raw bytes go to the log as they are, without decoding them into lines
+                    ByteBuffer read = ByteBuffer.wrap(buf, pending, n);
+                    while (read.hasRemaining()) {
+                        log.write(read);
+                    }
+                    int end = pending + n;
+                    int lineEnd = lastIndexOf(buf, (byte) '\n', end) + 1;
+                    if (lineEnd == 0 && end == buf.length) {
+                        // a single line longer than the buffer
+                        lineEnd = end;
+                    }
+                    if (lineEnd > 0) {
+                        console.write(buf, 0, lineEnd);
+                        System.arraycopy(buf, lineEnd, buf, 0, end - lineEnd);
+                    }
+                    pending = end - lineEnd;
+                    buffer.position(pending);
+                }
+                if (pending > 0) {
+                    buf[pending] = '\n';
+                    console.write(buf, 0, pending + 1);
                 }
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
         }
+
+        private static int lastIndexOf(byte[] buf, byte b, int end) {
+            for (int i = end - 1; i >= 0; i--) {
+                if (buf[i] == b) {
+                    return i;
+                }
+            }
+            return -1;
+        }
     }
 }
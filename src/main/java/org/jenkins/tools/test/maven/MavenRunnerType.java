@@ -0,0 +1,20 @@
+package org.jenkins.tools.test.maven;
+
+/**
+ * The ways of running Maven.
+ *
+ * @see MavenRunners#create
+ */
+public enum MavenRunnerType {
+    /** Start a new Maven JVM for every invocation. */
+    EXTERNAL,
+
+    /** Send each invocation to a long-lived Maven daemon, falling back to {@link #EXTERNAL} if it is unavailable. */
+    DAEMON,
+
+    /**
+     * Run Maven inside the PCT JVM, one invocation at a time, falling back to {@link #EXTERNAL} if it cannot be loaded.
+     * Only for short metadata queries: builds fork tests and load plugin classes, which must stay out of the PCT JVM.
+     */
+    EMBEDDED
+}
@@ -0,0 +1,89 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+
+/**
+ * Creates the {@link MavenRunner} selected by the configuration.
+ */
+public final class MavenRunners {
+
+    // Suppress default constructor for noninstantiability
+    private MavenRunners() {
+        throw new AssertionError();
+    }
+
+    /**
+     * The runner for builds, selected by {@link PluginCompatTesterConfig#getMavenRunner}.
+     */
+    @NonNull
+    public static MavenRunner create(@NonNull PluginCompatTesterConfig config) {
+        if (config.getMavenRunner() == MavenRunnerType.EMBEDDED) {
+            throw new IllegalArgumentException(
+                    "The embedded Maven runner can only be used for metadata queries, not for builds");
+        }
+        return create(config, config.getMavenRunner());
+    }
+
+    /**
+     * The runner for metadata queries such as expression evaluation and dependency collection, selected by {@link
+     * PluginCompatTesterConfig#getMavenQueryRunner}.
+     */
+    @NonNull
+    public static MavenRunner createForQueries(@NonNull PluginCompatTesterConfig config) {
+        MavenRunnerType type = config.getMavenQueryRunner();
+        return create(config, type != null ? type : config.getMavenRunner());
+    }
+
+    /**
+     * The user properties the plugins are built with: the Maven properties of the configuration, overridden by those
+     * defined with {@code -D} in the Maven arguments, which come later on the command line.
+     */
+    @NonNull
+    public static Map<String, String> userProperties(@NonNull PluginCompatTesterConfig config) {
+        Map<String, String> properties = new LinkedHashMap<>(config.getMavenProperties());
+        List<String> args = config.getMavenArgs();
+        for (int i = 0; i < args.size(); i++) {
+            String arg = args.get(i);
+            String definition;
+            if (arg.equals("-D") || arg.equals("--define")) {
+                if (++i == args.size()) {
+                    break;
+                }
+                definition = args.get(i);
+            } else if (arg.startsWith("-D")) {
+                definition = arg.substring(2);
+            } else if (arg.startsWith("--define=")) {
+                definition = arg.substring("--define=".length());
+            } else {
+                continue;
+            }
+            int equals = definition.indexOf('=');
+            if (equals < 0) {
+                properties.put(definition, "true");
+            } else {
+                properties.put(definition.substring(0, equals), definition.substring(equals + 1));
+            }
+        }
+        return properties;
+    }
+
+    @NonNull
+    private static MavenRunner create(@NonNull PluginCompatTesterConfig config, @NonNull MavenRunnerType type) {
+        ExternalMavenRunner external = new ExternalMavenRunner(config);
+        switch (type) {
+            case DAEMON:
+                return new DaemonMavenRunner(
+                        config.getMavenDaemon(), config.getMavenSettings(), config.getMavenArgs(), external);
+            case EMBEDDED:
+                return new EmbeddedMavenRunner(config.getExternalMaven(), external);
+            case EXTERNAL:
+                return external;
+            default:
+                throw new IllegalArgumentException("Unknown Maven runner " + type);
+        }
+    }
+}
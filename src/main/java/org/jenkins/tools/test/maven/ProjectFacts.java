@@ -0,0 +1,242 @@
+package org.jenkins.tools.test.maven;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.exception.PomExecutionException;
+
+/**
+ * Lazily evaluated, memoized facts about a project (or one of its modules) in a clone directory, such as the values of
+ * Maven expressions. Hooks should query the facts from their context rather than running Maven themselves, so that
+ * the same value is computed at most once per plugin no matter how many hooks (or how many of their {@code check} and
+ * {@code action} methods) need it.
+ *
+ * <p>Memoized values are keyed by the path, size and modification time of the POMs in the clone directory, so they are
+ * discarded automatically as soon as a POM is rewritten (for example by a hook using {@link
+ * org.jenkins.tools.test.model.MavenPom}) without reading the POMs on every query.
+ */
+public class ProjectFacts {
+
+    private static final Logger LOGGER = Logger.getLogger(ProjectFacts.class.getName());
+
+    /** Directories that never contain POMs of the reactor. */
+    private static final Set<String> IGNORED_DIRECTORIES = Set.of(".git", "node_modules", "src", "target");
+
+    /** Modules deeper than this are not taken into account when checking whether the POMs changed. */
+    private static final int MAX_POM_DEPTH = 4;
+
+    @NonNull
+    private final File cloneDirectory;
+
+    @CheckForNull
+    private final String module;
+
+    @NonNull
+    private final MavenRunner runner;
+
+    @NonNull
+    private final Map<String, String> userProperties;
+
+    // guarded by this; values may be null for expressions that are not defined
+    private final Map<String, String> values = new HashMap<>();
+
+    // guarded by this
+    @CheckForNull
+    private String pomStamp;
+
+    /**
+     * @param cloneDirectory the directory containing the project
+     * @param module the module to query, or {@code null} for the root project
+     * @param runner the runner to use when a fact needs to be computed
+     */
+    public ProjectFacts(@NonNull File cloneDirectory, @CheckForNull String module, @NonNull MavenRunner runner) {
+        this(cloneDirectory, module, runner, Map.of());
+    }
+
+    /**
+     * @param cloneDirectory the directory containing the project
+     * @param module the module to query, or {@code null} for the root project
+     * @param runner the runner to use when a fact needs to be computed
+     * @param userProperties the properties the project is built with, which override those of the project
+     */
+    public ProjectFacts(
+            @NonNull File cloneDirectory,
+            @CheckForNull String module,
+            @NonNull MavenRunner runner,
+            @NonNull Map<String, String> userProperties) {
+        this.cloneDirectory = cloneDirectory;
+        this.module = module;
+        this.runner = runner;
+        this.userProperties = userProperties;
+    }
+
+    @NonNull
+    public File getCloneDirectory() {
+        return cloneDirectory;
+    }
+
+    @CheckForNull
+    public String getModule() {
+        return module;
+    }
+
+    /**
+     * The value of the given expression, or {@code null} if the expression is not defined.
+     *
+     * @see ExpressionEvaluator#evaluate(Collection)
+     */
+    @CheckForNull
+    public String getString(@NonNull String expression) throws PomExecutionException {
+        return get(List.of(expression)).get(expression);
+    }
+
+    /**
+     * The elements of a collection-valued expression such as {@code project.modules}.
+     */
+    @NonNull
+    public List<String> getList(@NonNull String expression) throws PomExecutionException {
+        return ExpressionEvaluator.toList(getString(expression));
+    }
+
+    /**
+     * The values of the given expressions. Expressions that have not been evaluated yet are evaluated together with a
+     * single Maven invocation.
+     */
+    @NonNull
+    public synchronized Map<String, String> get(@NonNull Collection<String> expressions) throws PomExecutionException {
+        invalidateIfChanged();
+        List<String> missing = new ArrayList<>();
+        for (String expression : expressions) {
+            if (!values.containsKey(expression)) {
+                missing.add(expression);
+            }
+        }
+        if (!missing.isEmpty()) {
+            values.putAll(new ExpressionEvaluator(cloneDirectory, module, runner, userProperties).evaluate(missing));
+        }
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String expression : expressions) {
+            result.put(expression, values.get(expression));
+        }
+        return result;
+    }
+
+    /**
+     * The version of the given dependency after Maven resolved the dependency tree, or {@code null} if the project
+     * does not depend on it in the given scope.
+     */
+    @CheckForNull
+    public synchronized String getResolvedDependencyVersion(
+            @NonNull String groupId, @NonNull String artifactId, @NonNull String scope) throws PomExecutionException {
+        invalidateIfChanged();
+        String key = "dependency:" + groupId + ":" + artifactId + ":" + scope;
+        if (!values.containsKey(key)) {
+            values.put(key, collectDependencyVersion(groupId, artifactId, scope));
+        }
+        return values.get(key);
+    }
+
+    @CheckForNull
+    private String collectDependencyVersion(String groupId, String artifactId, String scope)
+            throws PomExecutionException {
+        Path log = cloneDirectory.toPath().resolve(artifactId + ".log");
+        runner.run(
+                Map.of(
+                        "includeGroupIds",
+                        groupId,
+                        "includeArtifactIds",
+                        artifactId,
+                        "includeScope",
+                        scope,
+                        "outputFile",
+                        log.toAbsolutePath().toString(),
+                        "set.changelist",
+                        "true",
+                        "ignore.dirt",
+                        "true"),
+                cloneDirectory,
+                module,
+                null,
+                "-q",
+                "dependency:collect");
+        List<String> output;
+        try {
+            output = Files.readAllLines(log, Charset.defaultCharset());
+            Files.deleteIfExists(log);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        String prefix = groupId + ":" + artifactId + ":";
+        for (String line : output) {
+            if (line.trim().startsWith(prefix)) {
+                return line.trim().split(":")[3];
+            }
+        }
+        return null;
+    }
+
+    private void invalidateIfChanged() {
+        String stamp = stampPoms();
+        if (!stamp.equals(pomStamp)) {
+            if (pomStamp != null) {
+                LOGGER.log(Level.FINE, "POMs in {0} changed; discarding {1} memoized facts", new Object[] {
+                    cloneDirectory, values.size()
+                });
+            }
+            values.clear();
+            pomStamp = stamp;
+        }
+    }
+
+    /**
+     * The path, size and modification time of each POM, which change whenever a POM is rewritten.
+     */
+    private String stampPoms() {
+        Path root = cloneDirectory.toPath();
+        Map<Path, String> poms = new TreeMap<>();
+        try {
+            Files.walkFileTree(root, EnumSet.noneOf(FileVisitOption.class), MAX_POM_DEPTH, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    Path name = dir.getFileName();
+                    if (!dir.equals(root) && name != null && IGNORED_DIRECTORIES.contains(name.toString())) {
+                        return FileVisitResult.SKIP_SUBTREE;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    Path name = file.getFileName();
+                    if (name != null && name.toString().equals("pom.xml")) {
+                        poms.put(root.relativize(file), attrs.size() + "@" + attrs.lastModifiedTime());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list the POMs in " + cloneDirectory, e);
+        }
+        return poms.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package org.jenkins.tools.test.metrics;
+
+import java.util.Locale;
+
+/**
+ * A histogram with fixed buckets, in seconds.
+ */
+final class Histogram {
+
+    private final double[] bounds;
+
+    // guarded by this; cumulative counts are computed when written
+    private final long[] counts;
+
+    // guarded by this
+    private long count;
+
+    // guarded by this
+    private double sum;
+
+    Histogram(double... bounds) {
+        this.bounds = bounds;
+        this.counts = new long[bounds.length];
+    }
+
+    synchronized void observe(double seconds) {
+        for (int i = 0; i < bounds.length; i++) {
+            if (seconds <= bounds[i]) {
+                counts[i]++;
+                break;
+            }
+        }
+        count++;
+        sum += seconds;
+    }
+
+    /**
+     * Write the samples of the histogram in the OpenMetrics text format.
+     *
+     * @param labels the labels of the histogram, formatted as {@code name="value",} (with a trailing comma), or an
+     *     empty string
+     */
+    synchronized void write(StringBuilder sb, String name, String labels) {
+        long cumulative = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            cumulative += counts[i];
+            sb.append(name)
+                    .append("_bucket{")
+                    .append(labels)
+                    .append("le=\"")
+                    .append(format(bounds[i]))
+                    .append("\"} ")
+                    .append(cumulative)
+                    .append('\n');
+        }
+        sb.append(name).append("_bucket{").append(labels).append("le=\"+Inf\"} ").append(count).append('\n');
+        String braces = labels.isEmpty() ? "" : "{" + labels.substring(0, labels.length() - 1) + "}";
+        sb.append(name).append("_count").append(braces).append(' ').append(count).append('\n');
+        sb.append(name).append("_sum").append(braces).append(' ').append(format(sum)).append('\n');
+    }
+
+    static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            return String.format(Locale.ROOT, "%.1f", value);
+        }
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
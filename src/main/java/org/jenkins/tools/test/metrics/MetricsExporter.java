@@ -0,0 +1,133 @@
+package org.jenkins.tools.test.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Exposes {@link PctMetrics} while a run is in progress, over HTTP at {@code /metrics}, or as a file that is rewritten
+ * periodically for the textfile collector of the Prometheus node exporter, or both.
+ */
+public final class MetricsExporter implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(MetricsExporter.class.getName());
+
+    private static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final long FILE_INTERVAL_SECONDS = 15;
+
+    @NonNull
+    private final PctMetrics metrics;
+
+    @CheckForNull
+    private final HttpServer server;
+
+    @CheckForNull
+    private final File file;
+
+    @CheckForNull
+    private final ScheduledExecutorService writer;
+
+    private MetricsExporter(@NonNull PctMetrics metrics, @CheckForNull Integer port, @CheckForNull File file) {
+        this.metrics = metrics;
+        this.file = file;
+        if (port != null) {
+            try {
+                server = HttpServer.create(new InetSocketAddress(port), 0);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to listen for metrics requests on port " + port, e);
+            }
+            server.createContext("/metrics", this::handle);
+            server.start();
+            LOGGER.log(
+                    Level.INFO,
+                    "Serving metrics at http://localhost:{0,number,#}/metrics",
+                    server.getAddress().getPort());
+        } else {
+            server = null;
+        }
+        if (file != null) {
+            writer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "pct-metrics-writer");
+                t.setDaemon(true);
+                return t;
+            });
+            writer.scheduleWithFixedDelay(this::writeFile, 0, FILE_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } else {
+            writer = null;
+        }
+    }
+
+    /**
+     * Start exporting the metrics of the run.
+     *
+     * @param port the port to serve the metrics on, or {@code null} not to serve them (0 picks a free port)
+     * @param file the file to write the metrics to periodically, or {@code null} not to write them
+     */
+    @NonNull
+    public static MetricsExporter start(@CheckForNull Integer port, @CheckForNull File file) {
+        return new MetricsExporter(PctMetrics.get(), port, file);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = metrics.toOpenMetrics().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        }
+    }
+
+    /**
+     * Replace the file atomically, as the collector may read it at any time.
+     */
+    private void writeFile() {
+        Path target = file.toPath();
+        try {
+            Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName() + ".", ".tmp");
+            try {
+                Files.writeString(temp, metrics.toOpenMetrics(), StandardCharsets.UTF_8);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write metrics to " + file, e);
+        }
+    }
+
+    /**
+     * Stop exporting, writing the final metrics to the file first.
+     */
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.shutdownNow();
+            writeFile();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+}
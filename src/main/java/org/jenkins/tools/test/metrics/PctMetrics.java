@@ -0,0 +1,158 @@
+package org.jenkins.tools.test.metrics;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Live metrics of a run: the progress through the plugins, the durations of Maven invocations and clones, and the
+ * child processes running. Recording is cheap and always on; {@link MetricsExporter} makes the metrics available in
+ * the OpenMetrics text format.
+ */
+public final class PctMetrics {
+
+    private static final double[] MAVEN_BUCKETS = {1, 5, 10, 30, 60, 120, 300, 600, 1200, 1800, 3600};
+
+    private static final double[] CLONE_BUCKETS = {0.5, 1, 2, 5, 10, 30, 60, 120, 300};
+
+    private static final PctMetrics INSTANCE = new PctMetrics();
+
+    private final AtomicLong runStart = new AtomicLong();
+
+    private final AtomicInteger pluginsTotal = new AtomicInteger();
+
+    private final AtomicInteger pluginsCompleted = new AtomicInteger();
+
+    private final AtomicInteger pluginsFailed = new AtomicInteger();
+
+    private final AtomicInteger childProcesses = new AtomicInteger();
+
+    // guarded by itself
+    private final Map<String, Histogram> mavenInvocations = new TreeMap<>();
+
+    private final Histogram clones = new Histogram(CLONE_BUCKETS);
+
+    PctMetrics() {}
+
+    @NonNull
+    public static PctMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Start tracking the progress of a run through the given number of plugins.
+     */
+    public void runStarted(int plugins) {
+        runStart.set(System.nanoTime());
+        pluginsTotal.set(plugins);
+        pluginsCompleted.set(0);
+        pluginsFailed.set(0);
+    }
+
+    /**
+     * Record that a plugin has been tested, whether it passed or not.
+     */
+    public void pluginCompleted(boolean failed) {
+        pluginsCompleted.incrementAndGet();
+        if (failed) {
+            pluginsFailed.incrementAndGet();
+        }
+    }
+
+    public void processStarted() {
+        childProcesses.incrementAndGet();
+    }
+
+    public void processEnded() {
+        childProcesses.decrementAndGet();
+    }
+
+    /**
+     * Record the duration of a Maven invocation, labelled with its goals (but not its options, which would make for
+     * too many distinct labels).
+     */
+    public void mavenInvoked(@NonNull String[] args, @NonNull Duration duration) {
+        String goals = Stream.of(args).filter(arg -> !arg.startsWith("-")).collect(Collectors.joining(" "));
+        Histogram histogram;
+        synchronized (mavenInvocations) {
+            histogram = mavenInvocations.computeIfAbsent(goals, k -> new Histogram(MAVEN_BUCKETS));
+        }
+        histogram.observe(seconds(duration));
+    }
+
+    public void cloned(@NonNull Duration duration) {
+        clones.observe(seconds(duration));
+    }
+
+    /**
+     * The estimated time until all the plugins have been tested, assuming the remaining plugins take as long on
+     * average as those tested so far, or {@link Double#NaN} if no plugin has been tested yet.
+     */
+    double getEtaSeconds() {
+        int completed = pluginsCompleted.get();
+        if (completed == 0) {
+            return Double.NaN;
+        }
+        int remaining = Math.max(0, pluginsTotal.get() - completed);
+        double elapsed = (System.nanoTime() - runStart.get()) / 1e9;
+        return elapsed / completed * remaining;
+    }
+
+    /**
+     * The metrics in the OpenMetrics text format.
+     */
+    @NonNull
+    public String toOpenMetrics() {
+        StringBuilder sb = new StringBuilder();
+        int completed = pluginsCompleted.get();
+        counter(sb, "pct_plugins_completed", "Plugins tested so far, whether they passed or not", completed);
+        counter(sb, "pct_plugins_failed", "Plugins that failed so far", pluginsFailed.get());
+        gauge(
+                sb,
+                "pct_plugins_remaining",
+                "Plugins still to be tested",
+                Math.max(0, pluginsTotal.get() - completed));
+        gauge(sb, "pct_child_processes", "Maven and Git processes running", childProcesses.get());
+        gauge(sb, "pct_eta_seconds", "Estimated time until all plugins have been tested", getEtaSeconds());
+
+        header(sb, "pct_maven_invocation_duration_seconds", "histogram", "Duration of Maven invocations by goals");
+        synchronized (mavenInvocations) {
+            for (Map.Entry<String, Histogram> entry : mavenInvocations.entrySet()) {
+                String labels = "goals=\"" + escape(entry.getKey()) + "\",";
+                entry.getValue().write(sb, "pct_maven_invocation_duration_seconds", labels);
+            }
+        }
+        header(sb, "pct_clone_duration_seconds", "histogram", "Duration of repository checkouts");
+        clones.write(sb, "pct_clone_duration_seconds", "");
+        sb.append("# EOF\n");
+        return sb.toString();
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        header(sb, name, "counter", help);
+        sb.append(name).append("_total ").append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String help, double value) {
+        header(sb, name, "gauge", help);
+        sb.append(name).append(' ').append(Histogram.format(value)).append('\n');
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toNanos() / 1e9;
+    }
+}
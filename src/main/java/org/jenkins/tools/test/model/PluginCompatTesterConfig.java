@@ -30,9 +30,14 @@ import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.File;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.jenkins.tools.test.logging.ConsoleMode;
+import org.jenkins.tools.test.maven.MavenRunnerType;
+import org.jenkins.tools.test.model.hook.BeforeExecutionContext;
+import org.jenkins.tools.test.util.Shard;
 
 /**
  * POJO used to configure Plugin Compatibility Tester execution
@@ -98,11 +103,112 @@ public class PluginCompatTesterConfig {
     // rather than continuing to test other plugins.
     private boolean failFast;
 
+    // Number of repositories to test concurrently
+    private int parallelism = 1;
+
+    // Number of repositories to clone ahead of the repository being tested; 0 to clone each repository just before
+    // testing it
+    private int prefetch;
+
+    @NonNull
+    private MavenRunnerType mavenRunner = MavenRunnerType.EXTERNAL;
+
+    // How much of the build output to mirror to the console; the build logs always get all of it
+    @NonNull
+    private ConsoleMode consoleOutput = ConsoleMode.FULL;
+
+    // Maximum rate at which build output is mirrored to the console in KiB/s; 0 for unlimited
+    private int consoleRateLimit;
+
+    // Compress the build logs with gzip
+    private boolean compressLogs;
+
+    // Maximum uncompressed size of each build log in MiB, keeping its head and tail; 0 for unlimited
+    private int maxLogSize;
+
+    // Runner for metadata queries; if null, the same as for builds
+    @CheckForNull
+    private MavenRunnerType mavenQueryRunner;
+
+    // Path to the Maven daemon client; if null, mvnd from the PATH is used
+    @CheckForNull
+    private File mavenDaemon;
+
+    // Restore an existing checkout of the right commit in place rather than cloning it again
+    private boolean reuseCheckouts;
+
+    // Keep the Maven build output when restoring a reused checkout
+    private boolean keepBuildOutput;
+
+    // Persistent cache of Git objects shared by the checkouts; null to fetch each checkout from scratch
+    @CheckForNull
+    private File gitCacheDir;
+
+    // Persistent index of the plugin metadata in the WAR; null to extract it from scratch on each run
+    @CheckForNull
+    private File warIndex;
+
+    // Whether to resume the run recorded in the journal in the working directory rather than start anew
+    private boolean resume;
+
+    // Persistent record of the plugins that passed, to skip them in later runs; null to test every plugin
+    @CheckForNull
+    private File resultCacheDir;
+
+    // The shard of the repositories to test, when the run is split between agents; null to test every repository
+    @CheckForNull
+    private Shard shard;
+
+    // Durations of each plugin, recorded to test the longest repositories first and balance the shards; null not to
+    @CheckForNull
+    private File durationHistory;
+
+    // Test plugins that run well beyond their usual duration a second time alongside, taking the first to finish
+    private boolean speculative;
+
     public PluginCompatTesterConfig(@NonNull File war, @NonNull File workingDir) {
         this.war = war;
         this.workingDir = workingDir;
     }
 
+    /**
+     * Copy the given configuration, so that changes to the copy, such as those made by the hooks of one attempt at
+     * testing a plugin, do not affect the original. The collections are immutable, so they are shared.
+     */
+    public PluginCompatTesterConfig(@NonNull PluginCompatTesterConfig config) {
+        this(config.war, config.workingDir);
+        this.includePlugins = config.includePlugins;
+        this.excludePlugins = config.excludePlugins;
+        this.excludeHooks = config.excludeHooks;
+        this.fallbackGitHubOrganization = config.fallbackGitHubOrganization;
+        this.externalMaven = config.externalMaven;
+        this.mavenSettings = config.mavenSettings;
+        this.mavenProperties = config.mavenProperties;
+        this.mavenArgs = config.mavenArgs;
+        this.externalHooksJars = config.externalHooksJars;
+        this.localCheckoutDir = config.localCheckoutDir;
+        this.compileOnly = config.compileOnly;
+        this.failFast = config.failFast;
+        this.parallelism = config.parallelism;
+        this.prefetch = config.prefetch;
+        this.mavenRunner = config.mavenRunner;
+        this.consoleOutput = config.consoleOutput;
+        this.consoleRateLimit = config.consoleRateLimit;
+        this.compressLogs = config.compressLogs;
+        this.maxLogSize = config.maxLogSize;
+        this.mavenQueryRunner = config.mavenQueryRunner;
+        this.mavenDaemon = config.mavenDaemon;
+        this.reuseCheckouts = config.reuseCheckouts;
+        this.keepBuildOutput = config.keepBuildOutput;
+        this.gitCacheDir = config.gitCacheDir;
+        this.warIndex = config.warIndex;
+        this.resume = config.resume;
+        this.resultCacheDir = config.resultCacheDir;
+        this.shard = config.shard;
+        this.durationHistory = config.durationHistory;
+        this.speculative = config.speculative;
+    }
+
     @NonNull
     public File getWar() {
         return war;
@@ -172,8 +278,14 @@ public class PluginCompatTesterConfig {
         return mavenProperties;
     }
 
+    /**
+     * @deprecated for hooks, which should add properties to {@link BeforeExecutionContext#getMavenProperties()}
+     *     instead. A hook only gets a copy of the configuration for the plugin it is testing, and the properties it
+     *     sets here still apply to that plugin, under those of the context.
+     */
+    @Deprecated
     public void setMavenProperties(@NonNull Map<String, String> mavenProperties) {
-        this.mavenProperties = Collections.unmodifiableMap(mavenProperties);
+        this.mavenProperties = Collections.unmodifiableMap(new LinkedHashMap<>(mavenProperties));
     }
 
     @NonNull
@@ -218,4 +330,169 @@ public class PluginCompatTesterConfig {
     public void setFailFast(boolean failFast) {
         this.failFast = failFast;
     }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least 1, but was " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(int prefetch) {
+        if (prefetch < 0) {
+            throw new IllegalArgumentException("Prefetch must not be negative, but was " + prefetch);
+        }
+        this.prefetch = prefetch;
+    }
+
+    @NonNull
+    public ConsoleMode getConsoleOutput() {
+        return consoleOutput;
+    }
+
+    public void setConsoleOutput(@NonNull ConsoleMode consoleOutput) {
+        this.consoleOutput = consoleOutput;
+    }
+
+    public int getConsoleRateLimit() {
+        return consoleRateLimit;
+    }
+
+    public void setConsoleRateLimit(int consoleRateLimit) {
+        if (consoleRateLimit < 0) {
+            throw new IllegalArgumentException("Console rate limit must not be negative, but was " + consoleRateLimit);
+        }
+        this.consoleRateLimit = consoleRateLimit;
+    }
+
+    public boolean isCompressLogs() {
+        return compressLogs;
+    }
+
+    public void setCompressLogs(boolean compressLogs) {
+        this.compressLogs = compressLogs;
+    }
+
+    public int getMaxLogSize() {
+        return maxLogSize;
+    }
+
+    public void setMaxLogSize(int maxLogSize) {
+        if (maxLogSize < 0) {
+            throw new IllegalArgumentException("Maximum log size must not be negative, but was " + maxLogSize);
+        }
+        this.maxLogSize = maxLogSize;
+    }
+
+    @NonNull
+    public MavenRunnerType getMavenRunner() {
+        return mavenRunner;
+    }
+
+    public void setMavenRunner(@NonNull MavenRunnerType mavenRunner) {
+        this.mavenRunner = mavenRunner;
+    }
+
+    @CheckForNull
+    public MavenRunnerType getMavenQueryRunner() {
+        return mavenQueryRunner;
+    }
+
+    public void setMavenQueryRunner(@CheckForNull MavenRunnerType mavenQueryRunner) {
+        this.mavenQueryRunner = mavenQueryRunner;
+    }
+
+    @CheckForNull
+    public File getMavenDaemon() {
+        return mavenDaemon;
+    }
+
+    public void setMavenDaemon(@CheckForNull File mavenDaemon) {
+        this.mavenDaemon = mavenDaemon;
+    }
+
+    public boolean isReuseCheckouts() {
+        return reuseCheckouts;
+    }
+
+    public void setReuseCheckouts(boolean reuseCheckouts) {
+        this.reuseCheckouts = reuseCheckouts;
+    }
+
+    public boolean isKeepBuildOutput() {
+        return keepBuildOutput;
+    }
+
+    public void setKeepBuildOutput(boolean keepBuildOutput) {
+        this.keepBuildOutput = keepBuildOutput;
+    }
+
+    @CheckForNull
+    public File getGitCacheDir() {
+        return gitCacheDir;
+    }
+
+    public void setGitCacheDir(@CheckForNull File gitCacheDir) {
+        this.gitCacheDir = gitCacheDir;
+    }
+
+    @CheckForNull
+    public File getWarIndex() {
+        return warIndex;
+    }
+
+    public void setWarIndex(@CheckForNull File warIndex) {
+        this.warIndex = warIndex;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    @CheckForNull
+    public File getResultCacheDir() {
+        return resultCacheDir;
+    }
+
+    public void setResultCacheDir(@CheckForNull File resultCacheDir) {
+        this.resultCacheDir = resultCacheDir;
+    }
+
+    @CheckForNull
+    public Shard getShard() {
+        return shard;
+    }
+
+    public void setShard(@CheckForNull Shard shard) {
+        this.shard = shard;
+    }
+
+    @CheckForNull
+    public File getDurationHistory() {
+        return durationHistory;
+    }
+
+    public void setDurationHistory(@CheckForNull File durationHistory) {
+        this.durationHistory = durationHistory;
+    }
+
+    public boolean isSpeculative() {
+        return speculative;
+    }
+
+    public void setSpeculative(boolean speculative) {
+        this.speculative = speculative;
+    }
 }
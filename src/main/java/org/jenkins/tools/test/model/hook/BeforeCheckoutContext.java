@@ -1,8 +1,10 @@
 package org.jenkins.tools.test.model.hook;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
 import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.jenkins.tools.test.util.WarFacts;
 
 public final class BeforeCheckoutContext extends StageContext {
 
@@ -10,4 +12,12 @@ public final class BeforeCheckoutContext extends StageContext {
             @NonNull String coreVersion, @NonNull Plugin plugin, @NonNull PluginCompatTesterConfig config) {
         super(Stage.CHECKOUT, coreVersion, plugin, config);
     }
+
+    public BeforeCheckoutContext(
+            @NonNull String coreVersion,
+            @NonNull Plugin plugin,
+            @NonNull PluginCompatTesterConfig config,
+            @CheckForNull WarFacts warFacts) {
+        super(Stage.CHECKOUT, coreVersion, plugin, config, warFacts);
+    }
 }
@@ -3,14 +3,20 @@ package org.jenkins.tools.test.model.hook;
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.File;
+import org.jenkins.tools.test.maven.MavenRunners;
+import org.jenkins.tools.test.maven.ProjectFacts;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
 import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.jenkins.tools.test.util.WarFacts;
 
 public final class BeforeCompilationContext extends StageContext {
 
     @CheckForNull
     private final File cloneDirectory;
 
+    @CheckForNull
+    private ProjectFacts projectFacts;
+
     public BeforeCompilationContext(
             @NonNull String coreVersion,
             @NonNull Plugin plugin,
@@ -20,8 +26,38 @@ public final class BeforeCompilationContext extends StageContext {
         this.cloneDirectory = cloneDirectory;
     }
 
+    public BeforeCompilationContext(
+            @NonNull String coreVersion,
+            @NonNull Plugin plugin,
+            @NonNull PluginCompatTesterConfig config,
+            @NonNull File cloneDirectory,
+            @NonNull ProjectFacts projectFacts,
+            @CheckForNull WarFacts warFacts) {
+        super(Stage.COMPILATION, coreVersion, plugin, config, warFacts);
+        this.cloneDirectory = cloneDirectory;
+        this.projectFacts = projectFacts;
+    }
+
     @CheckForNull
     public File getCloneDirectory() {
         return cloneDirectory;
     }
+
+    /**
+     * Memoized facts about the plugin's module. Hooks should query these rather than running Maven themselves.
+     */
+    @NonNull
+    public synchronized ProjectFacts getProjectFacts() {
+        if (projectFacts == null) {
+            if (cloneDirectory == null) {
+                throw new IllegalStateException("No clone directory for " + getPlugin().getPluginId());
+            }
+            projectFacts = new ProjectFacts(
+                    cloneDirectory,
+                    getPlugin().getModule(),
+                    MavenRunners.createForQueries(getConfig()),
+                    MavenRunners.userProperties(getConfig()));
+        }
+        return projectFacts;
+    }
 }
@@ -1,14 +1,20 @@
 package org.jenkins.tools.test.model.hook;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.io.File;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import org.jenkins.tools.test.maven.MavenRunners;
+import org.jenkins.tools.test.maven.ProjectFacts;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
 import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.jenkins.tools.test.util.WarFacts;
 
 public final class BeforeExecutionContext extends StageContext {
 
@@ -24,6 +30,12 @@ public final class BeforeExecutionContext extends StageContext {
     @NonNull
     private final NavigableSet<String> upperBoundsExcludes = new TreeSet<>();
 
+    @NonNull
+    private final Map<String, String> mavenProperties;
+
+    @CheckForNull
+    private ProjectFacts projectFacts;
+
     public BeforeExecutionContext(
             @NonNull String coreVersion,
             @NonNull Plugin plugin,
@@ -33,6 +45,22 @@ public final class BeforeExecutionContext extends StageContext {
         super(Stage.EXECUTION, coreVersion, plugin, config);
         this.cloneDirectory = cloneDirectory;
         this.args = args;
+        this.mavenProperties = new LinkedHashMap<>(config.getMavenProperties());
+    }
+
+    public BeforeExecutionContext(
+            @NonNull String coreVersion,
+            @NonNull Plugin plugin,
+            @NonNull PluginCompatTesterConfig config,
+            @NonNull File cloneDirectory,
+            @NonNull List<String> args,
+            @NonNull ProjectFacts projectFacts,
+            @CheckForNull WarFacts warFacts) {
+        super(Stage.EXECUTION, coreVersion, plugin, config, warFacts);
+        this.cloneDirectory = cloneDirectory;
+        this.args = args;
+        this.mavenProperties = new LinkedHashMap<>(config.getMavenProperties());
+        this.projectFacts = projectFacts;
     }
 
     @NonNull
@@ -40,6 +68,21 @@ public final class BeforeExecutionContext extends StageContext {
         return cloneDirectory;
     }
 
+    /**
+     * Memoized facts about the plugin's module. Hooks should query these rather than running Maven themselves.
+     */
+    @NonNull
+    public synchronized ProjectFacts getProjectFacts() {
+        if (projectFacts == null) {
+            projectFacts = new ProjectFacts(
+                    getCloneDirectory(),
+                    getPlugin().getModule(),
+                    MavenRunners.createForQueries(getConfig()),
+                    MavenRunners.userProperties(getConfig()));
+        }
+        return projectFacts;
+    }
+
     @NonNull
     public List<String> getArgs() {
         return args;
@@ -54,6 +97,17 @@ public final class BeforeExecutionContext extends StageContext {
         return overrideVersions;
     }
 
+    /**
+     * Maven properties to set when testing the plugin, initially those of the configuration. Hooks add properties here
+     * rather than set them in the configuration through the deprecated
+     * {@link PluginCompatTesterConfig#setMavenProperties}, which still applies to the plugin but is overridden by the
+     * properties here.
+     */
+    @NonNull
+    public Map<String, String> getMavenProperties() {
+        return mavenProperties;
+    }
+
     /**
      * Set of exclusions to upper bound updates in the form {@code groupId:artifactId}.
      */
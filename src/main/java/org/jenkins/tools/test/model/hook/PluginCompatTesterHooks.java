@@ -5,9 +5,13 @@ import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+import org.jenkins.tools.test.jfr.HookEvent;
+import org.jenkins.tools.test.report.TraceRecorder;
 import org.jenkins.tools.test.util.ServiceHelper;
 
 /**
@@ -38,6 +42,21 @@ public class PluginCompatTesterHooks {
         hooksByStage.put(Stage.EXECUTION, serviceHelper.loadServices(PluginCompatTesterHookBeforeExecution.class));
     }
 
+    /**
+     * The class names of the hooks that may run, that is all the hooks that are not excluded.
+     */
+    @NonNull
+    public SortedSet<String> getActiveHooks() {
+        SortedSet<String> hooks = new TreeSet<>();
+        for (List<? extends PluginCompatTesterHook<? extends StageContext>> stageHooks : hooksByStage.values()) {
+            for (PluginCompatTesterHook<? extends StageContext> hook : stageHooks) {
+                hooks.add(hook.getClass().getName());
+            }
+        }
+        hooks.removeAll(excludeHooks);
+        return hooks;
+    }
+
     public void runBeforeCheckout(@NonNull BeforeCheckoutContext context) throws PluginCompatibilityTesterException {
         runHooks(context);
     }
@@ -68,11 +87,23 @@ public class PluginCompatTesterHooks {
             return;
         }
         for (PluginCompatTesterHook<C> hook : hooks) {
-            if (!excludeHooks.contains(hook.getClass().getName()) && hook.check(context)) {
+            if (!excludeHooks.contains(hook.getClass().getName()) && check(hook, context)) {
                 LOGGER.log(Level.INFO, "Running hook: {0} for {1}", new Object[] {
                     hook.getClass().getName(), context.getPlugin().getName()
                 });
-                hook.action(context);
+                HookEvent event = newEvent(hook, context, "action");
+                event.begin();
+                try (TraceRecorder.Span span = TraceRecorder.get()
+                        .start("hook", hook.getClass().getSimpleName())
+                        .arg("stage", context.getStage())
+                        .arg("plugin", context.getPlugin().getPluginId())) {
+                    hook.action(context);
+                } catch (PluginCompatibilityTesterException | RuntimeException | Error e) {
+                    event.failure = e.toString();
+                    throw e;
+                } finally {
+                    event.commit();
+                }
             } else {
                 LOGGER.log(Level.FINE, "Skipping hook: {0} for {1}", new Object[] {
                     hook.getClass().getName(), context.getPlugin().getName()
@@ -80,4 +111,30 @@ public class PluginCompatTesterHooks {
             }
         }
     }
+
+    private static <C extends StageContext> boolean check(@NonNull PluginCompatTesterHook<C> hook, @NonNull C context) {
+        HookEvent event = newEvent(hook, context, "check");
+        event.begin();
+        try {
+            boolean applies = hook.check(context);
+            event.applies = applies;
+            return applies;
+        } catch (RuntimeException | Error e) {
+            event.failure = e.toString();
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static HookEvent newEvent(PluginCompatTesterHook<?> hook, StageContext context, String step) {
+        HookEvent event = new HookEvent();
+        if (event.isEnabled()) {
+            event.hook = hook.getClass().getName();
+            event.stage = context.getStage().name();
+            event.plugin = context.getPlugin().getPluginId();
+            event.step = step;
+        }
+        return event;
+    }
 }
@@ -1,8 +1,12 @@
 package org.jenkins.tools.test.model.hook;
 
+import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import org.jenkins.tools.test.exception.MetadataExtractionException;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
 import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.jenkins.tools.test.util.WarExtractor;
+import org.jenkins.tools.test.util.WarFacts;
 
 public abstract class StageContext {
 
@@ -18,6 +22,9 @@ public abstract class StageContext {
     @NonNull
     private final PluginCompatTesterConfig config;
 
+    @CheckForNull
+    private WarFacts warFacts;
+
     public StageContext(
             @NonNull Stage stage,
             @NonNull String coreVersion,
@@ -29,6 +36,16 @@ public abstract class StageContext {
         this.config = config;
     }
 
+    public StageContext(
+            @NonNull Stage stage,
+            @NonNull String coreVersion,
+            @NonNull Plugin plugin,
+            @NonNull PluginCompatTesterConfig config,
+            @CheckForNull WarFacts warFacts) {
+        this(stage, coreVersion, plugin, config);
+        this.warFacts = warFacts;
+    }
+
     @NonNull
     public Stage getStage() {
         return stage;
@@ -44,8 +61,27 @@ public abstract class StageContext {
         return plugin;
     }
 
+    /**
+     * The configuration of the run. Hooks other than the before checkout hooks get a copy of it for the plugin being
+     * tested, so that their changes to it do not reach the other plugins.
+     */
     @NonNull
     public PluginCompatTesterConfig getConfig() {
         return config;
     }
+
+    /**
+     * Facts about the WAR under test. Hooks should query these rather than reading the WAR themselves.
+     */
+    @NonNull
+    public synchronized WarFacts getWarFacts() {
+        if (warFacts == null) {
+            try {
+                warFacts = new WarExtractor(config.getWar(), null, null, null).extractFacts(false);
+            } catch (MetadataExtractionException e) {
+                throw new IllegalArgumentException("Failed to read " + config.getWar(), e);
+            }
+        }
+        return warFacts;
+    }
 }
@@ -6,6 +6,7 @@ import java.io.File;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jenkins.tools.test.exception.MetadataExtractionException;
@@ -77,10 +78,11 @@ public class LocalCheckoutPluginMetadataExtractor {
     @CheckForNull
     private Plugin getPlugin(String module) throws PomExecutionException {
         ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(localCheckoutDir, module, runner);
-        String packaging = expressionEvaluator.evaluateString("project.packaging");
-        if ("hpi".equals(packaging)) {
-            String pluginId = expressionEvaluator.evaluateString("project.artifactId");
-            String version = expressionEvaluator.evaluateString("project.version");
+        Map<String, String> project =
+                expressionEvaluator.evaluate(List.of("project.packaging", "project.artifactId", "project.version"));
+        if ("hpi".equals(project.get("project.packaging"))) {
+            String pluginId = project.get("project.artifactId");
+            String version = project.get("project.version");
             return toPlugin(pluginId, version, localCheckoutDir, ":" + pluginId);
         }
         return null;
@@ -32,10 +32,23 @@ public final class PluginMetadataExtractor {
      * @param manifest the plugins' manifest.
      * @param model the plugins' model (from the HPI).
      * @return a fully populated {@link Plugin} for the given plugin.
+     * @deprecated the model is not used; use {@link #extractMetadata(String, Manifest)}
      */
+    @Deprecated
     @NonNull
     public static Plugin extractMetadata(String pluginId, Manifest manifest, Model model)
             throws MetadataExtractionException {
+        return extractMetadata(pluginId, manifest);
+    }
+
+    /**
+     * Obtain the metadata for a give plugin from its manifest, without needing to read its POM.
+     *
+     * @param manifest the plugins' manifest.
+     * @return a fully populated {@link Plugin} for the given plugin.
+     */
+    @NonNull
+    public static Plugin extractMetadata(String pluginId, Manifest manifest) throws MetadataExtractionException {
         // All the information is stored in the plugin's manifest
         Attributes mainAttributes = manifest.getMainAttributes();
 
@@ -0,0 +1,18 @@
+package org.jenkins.tools.test.picocli;
+
+import org.jenkins.tools.test.util.Shard;
+import picocli.CommandLine.ITypeConverter;
+import picocli.CommandLine.TypeConversionException;
+
+/** Converter that converts a value of the form {@code i/N} to a {@link Shard} */
+public class ShardTypeConverter implements ITypeConverter<Shard> {
+
+    @Override
+    public Shard convert(String value) {
+        try {
+            return Shard.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new TypeConversionException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.jenkins.tools.test.report;
+
+/**
+ * The phases of testing a plugin that are timed in the {@link RunReport}.
+ */
+public enum Phase {
+    BEFORE_CHECKOUT("before-checkout"),
+    CHECKOUT("checkout"),
+    BEFORE_COMPILATION("before-compilation"),
+    COMPILATION("compilation"),
+    BEFORE_EXECUTION("before-execution"),
+    EXECUTION("execution"),
+    EXPRESSION_EVALUATION("expression-evaluation");
+
+    private final String id;
+
+    Phase(String id) {
+        this.id = id;
+    }
+
+    /**
+     * The identifier of the phase in reports.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * The phase with the given identifier.
+     *
+     * @throws IllegalArgumentException if there is no such phase
+     */
+    public static Phase fromId(String id) {
+        for (Phase phase : values()) {
+            if (phase.id.equals(id)) {
+                return phase;
+            }
+        }
+        throw new IllegalArgumentException("Unknown phase " + id);
+    }
+}
@@ -0,0 +1,188 @@
+package org.jenkins.tools.test.report;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.jenkins.tools.test.jfr.PhaseEvent;
+
+/**
+ * Times a {@link Phase} of testing a plugin, from its creation until it is closed, and adds the timing to a {@link
+ * PluginReport}. Timers are used with try-with-resources and may be nested on a thread.
+ *
+ * <p>Code that does not know which plugin it works for, such as {@link
+ * org.jenkins.tools.test.maven.ExpressionEvaluator}, times itself against the report set for the current thread with
+ * {@link #report(PluginReport)}. Code that waits for a process does so through {@link #waitFor(Process)}, so that the
+ * CPU time of the process counts towards the phases that are running, or through {@link #waitFor(Process,
+ * ProcessSampler)} to also add the resources used by the process to the report.
+ *
+ * <p>Each phase is also a span of the {@link TraceRecorder} timeline.
+ */
+public final class PhaseTimer implements AutoCloseable {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private static final long MAX_SAMPLE_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+
+    private static final ThreadLocal<PluginReport> REPORT = new ThreadLocal<>();
+
+    private static final ThreadLocal<PhaseTimer> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Restores the report of the thread when closed.
+     */
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    @CheckForNull
+    private final PluginReport report;
+
+    @NonNull
+    private final Phase phase;
+
+    @CheckForNull
+    private final String detail;
+
+    @CheckForNull
+    private final PhaseTimer parent;
+
+    @NonNull
+    private final Instant start = Instant.now();
+
+    @NonNull
+    private final PhaseEvent event = new PhaseEvent();
+
+    @NonNull
+    private final TraceRecorder.Span span;
+
+    private final long startNanos = System.nanoTime();
+
+    private final long startCpu = threadCpuTime();
+
+    // only accessed by the thread that created the timer
+    private long childCpu;
+
+    private PhaseTimer(@CheckForNull PluginReport report, @NonNull Phase phase, @CheckForNull String detail) {
+        this.report = report;
+        this.phase = phase;
+        this.detail = detail;
+        this.parent = CURRENT.get();
+        CURRENT.set(this);
+        event.begin();
+        span = TraceRecorder.get()
+                .start("phase", report != null ? phase.getId() + " " + report.getPluginId() : phase.getId())
+                .arg("detail", detail);
+    }
+
+    /**
+     * Set the report that phases timed by the current thread are added to, until the returned scope is closed.
+     */
+    @NonNull
+    public static Scope report(@CheckForNull PluginReport report) {
+        PluginReport previous = REPORT.get();
+        REPORT.set(report);
+        return () -> REPORT.set(previous);
+    }
+
+    /**
+     * Start timing a phase for the report of the current thread, if any.
+     */
+    @NonNull
+    public static PhaseTimer start(@NonNull Phase phase, @CheckForNull String detail) {
+        return new PhaseTimer(REPORT.get(), phase, detail);
+    }
+
+    /**
+     * Start timing a phase for the given report.
+     */
+    @NonNull
+    public static PhaseTimer start(
+            @CheckForNull PluginReport report, @NonNull Phase phase, @CheckForNull String detail) {
+        return new PhaseTimer(report, phase, detail);
+    }
+
+    /**
+     * Wait for the given process to terminate, adding the CPU time of the process and its descendants to the running
+     * phases. The CPU time is sampled while the process runs, so the last moments of each process are not accounted
+     * for.
+     *
+     * @return the exit value of the process
+     */
+    public static int waitFor(@NonNull Process p) throws InterruptedException {
+        return waitFor(p, null);
+    }
+
+    /**
+     * Wait for the given process to terminate like {@link #waitFor(Process)}, sampling it with the given sampler as
+     * well. The usage sampled is added to the report of the current thread, if any.
+     *
+     * @return the exit value of the process
+     */
+    public static int waitFor(@NonNull Process p, @CheckForNull ProcessSampler sampler) throws InterruptedException {
+        PhaseTimer timer = CURRENT.get();
+        if (timer == null && sampler == null) {
+            return p.waitFor();
+        }
+        Map<Long, Duration> cpu = new HashMap<>();
+        try {
+            long interval = 50;
+            while (!p.waitFor(interval, TimeUnit.MILLISECONDS)) {
+                if (timer != null) {
+                    Stream.concat(Stream.of(p.toHandle()), p.descendants())
+                            .forEach(h -> h.info()
+                                    .totalCpuDuration()
+                                    .ifPresent(d -> cpu.merge(h.pid(), d, (a, b) -> a.compareTo(b) >= 0 ? a : b)));
+                }
+                if (sampler != null) {
+                    sampler.sample();
+                }
+                interval = Math.min(interval * 2, MAX_SAMPLE_INTERVAL);
+            }
+        } finally {
+            if (timer != null) {
+                for (Duration d : cpu.values()) {
+                    timer.childCpu += d.toNanos();
+                }
+            }
+            PluginReport report = REPORT.get();
+            ProcessUsage usage = sampler != null ? sampler.getUsage() : null;
+            if (report != null && usage != null) {
+                report.add(usage);
+            }
+        }
+        return p.exitValue();
+    }
+
+    @Override
+    public void close() {
+        if (event.shouldCommit()) {
+            event.phase = phase.getId();
+            event.plugin = report != null ? report.getPluginId() : null;
+            event.detail = detail;
+            event.commit();
+        }
+        span.close();
+        CURRENT.set(parent);
+        if (parent != null) {
+            // the thread CPU time is already included in that of the parent
+            parent.childCpu += childCpu;
+        }
+        if (report != null) {
+            Duration wallTime = Duration.ofNanos(System.nanoTime() - startNanos);
+            Duration cpuTime = Duration.ofNanos(threadCpuTime() - startCpu + childCpu);
+            report.add(new PhaseTiming(phase, detail, start, wallTime, cpuTime));
+        }
+    }
+
+    private static long threadCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : 0;
+    }
+}
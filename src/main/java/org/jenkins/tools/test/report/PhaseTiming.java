@@ -0,0 +1,71 @@
+package org.jenkins.tools.test.report;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The time spent in one occurrence of a {@link Phase}.
+ */
+public final class PhaseTiming {
+
+    @NonNull
+    private final Phase phase;
+
+    @CheckForNull
+    private final String detail;
+
+    @NonNull
+    private final Instant start;
+
+    @NonNull
+    private final Duration wallTime;
+
+    @NonNull
+    private final Duration cpuTime;
+
+    PhaseTiming(
+            @NonNull Phase phase,
+            @CheckForNull String detail,
+            @NonNull Instant start,
+            @NonNull Duration wallTime,
+            @NonNull Duration cpuTime) {
+        this.phase = phase;
+        this.detail = detail;
+        this.start = start;
+        this.wallTime = wallTime;
+        this.cpuTime = cpuTime;
+    }
+
+    @NonNull
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * What was run in the phase, such as the Maven goals.
+     */
+    @CheckForNull
+    public String getDetail() {
+        return detail;
+    }
+
+    @NonNull
+    public Instant getStart() {
+        return start;
+    }
+
+    @NonNull
+    public Duration getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * The CPU time of the thread that ran the phase, plus that of the processes it waited for (as last sampled).
+     */
+    @NonNull
+    public Duration getCpuTime() {
+        return cpuTime;
+    }
+}
@@ -0,0 +1,157 @@
+package org.jenkins.tools.test.report;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The timings, outcome, and process resource usage of testing a plugin.
+ */
+public final class PluginReport {
+
+    public enum Outcome {
+        SUCCESS,
+        FAILURE,
+        /** Not tested, for example because the run failed fast or was aborted. */
+        SKIPPED,
+        /** Not tested, as it passed in an earlier run with the same fingerprint. */
+        CACHED
+    }
+
+    @NonNull
+    private final String pluginId;
+
+    @NonNull
+    private final String version;
+
+    @CheckForNull
+    private final String gitUrl;
+
+    // guarded by this
+    private final List<PhaseTiming> timings = new ArrayList<>();
+
+    // guarded by this
+    private final List<ProcessUsage> processes = new ArrayList<>();
+
+    // guarded by this
+    private Outcome outcome = Outcome.SKIPPED;
+
+    // guarded by this
+    @CheckForNull
+    private String message;
+
+    // guarded by this
+    @CheckForNull
+    private File log;
+
+    PluginReport(@NonNull String pluginId, @NonNull String version, @CheckForNull String gitUrl) {
+        this.pluginId = pluginId;
+        this.version = version;
+        this.gitUrl = gitUrl;
+    }
+
+    @NonNull
+    public String getPluginId() {
+        return pluginId;
+    }
+
+    @NonNull
+    public String getVersion() {
+        return version;
+    }
+
+    @CheckForNull
+    public String getGitUrl() {
+        return gitUrl;
+    }
+
+    /**
+     * The timed phases, in the order in which they ended. Phases may be nested, such as expression evaluations run
+     * by hooks, in which case the time of the inner phase is included in the outer one.
+     */
+    @NonNull
+    public synchronized List<PhaseTiming> getTimings() {
+        return new ArrayList<>(timings);
+    }
+
+    /**
+     * The resources used by each Maven invocation, where they could be sampled.
+     */
+    @NonNull
+    public synchronized List<ProcessUsage> getProcesses() {
+        return new ArrayList<>(processes);
+    }
+
+    @NonNull
+    public synchronized Outcome getOutcome() {
+        return outcome;
+    }
+
+    @CheckForNull
+    public synchronized String getMessage() {
+        return message;
+    }
+
+    synchronized void add(@NonNull PhaseTiming timing) {
+        timings.add(timing);
+    }
+
+    /**
+     * The build log of the plugin, if it got as far as being built.
+     */
+    @CheckForNull
+    public synchronized File getLog() {
+        return log;
+    }
+
+    public synchronized void setLog(@CheckForNull File log) {
+        this.log = log;
+    }
+
+    synchronized void add(@NonNull ProcessUsage usage) {
+        processes.add(usage);
+    }
+
+    /**
+     * A report of its own for another attempt at testing the plugin, such as a duplicate running alongside, whose
+     * timings can be added to this report with {@link #addAttempt(PluginReport)} once it has finished.
+     */
+    @NonNull
+    public PluginReport newAttempt() {
+        return new PluginReport(pluginId, version, gitUrl);
+    }
+
+    /**
+     * Add the timings and process usage of an attempt at testing the plugin that has finished.
+     */
+    public void addAttempt(@NonNull PluginReport attempt) {
+        List<PhaseTiming> attemptTimings = attempt.getTimings();
+        List<ProcessUsage> attemptProcesses = attempt.getProcesses();
+        synchronized (this) {
+            timings.addAll(attemptTimings);
+            processes.addAll(attemptProcesses);
+        }
+    }
+
+    public synchronized void succeeded() {
+        outcome = Outcome.SUCCESS;
+        message = null;
+    }
+
+    public synchronized void cached() {
+        outcome = Outcome.CACHED;
+        message = null;
+    }
+
+    synchronized void restore(@NonNull Outcome outcome, @CheckForNull String message) {
+        this.outcome = outcome;
+        this.message = message;
+    }
+
+    public synchronized void failed(@NonNull Throwable t) {
+        outcome = Outcome.FAILURE;
+        message = t.getMessage() != null ? t.getMessage() : t.toString();
+    }
+}
@@ -0,0 +1,158 @@
+package org.jenkins.tools.test.report;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Samples the resources used by a process and its descendants from {@code /proc}: the CPU time, the resident set size,
+ * the storage I/O, and the number of threads. The counters of each process are taken from its last sample, so the last
+ * moments of each process are not accounted for; the resident set size also uses the high-water mark the kernel keeps
+ * for each process, which catches peaks between samples.
+ *
+ * <p>Only Linux is supported; elsewhere, {@link #getUsage()} returns {@code null}. A sampler is used by the thread
+ * waiting for the process, through {@link PhaseTimer#waitFor(Process, ProcessSampler)}.
+ */
+public final class ProcessSampler {
+
+    private static final Path PROC = Paths.get("/proc");
+
+    /** {@code USER_HZ}, which the kernel exposes to user space as 100 on all common architectures. */
+    static final long CLOCK_TICKS_PER_SECOND = 100;
+
+    private static final int USER_TIME = 0;
+
+    private static final int SYSTEM_TIME = 1;
+
+    private static final int READ_BYTES = 2;
+
+    private static final int WRITTEN_BYTES = 3;
+
+    @NonNull
+    private final Process process;
+
+    @NonNull
+    private final String command;
+
+    private final boolean supported = Files.isDirectory(PROC.resolve("self"));
+
+    // the last cumulative counters of each process, indexed by the constants above
+    private final Map<Long, long[]> counters = new HashMap<>();
+
+    private long peakRss;
+
+    private int peakThreads;
+
+    /**
+     * @param command what the process runs, such as the Maven goals
+     */
+    public ProcessSampler(@NonNull Process process, @NonNull String command) {
+        this.process = process;
+        this.command = command;
+    }
+
+    /**
+     * Sample the process and the descendants it has at this time. Processes that exit while being sampled are skipped.
+     */
+    public void sample() {
+        if (!supported) {
+            return;
+        }
+        long rss = 0;
+        int threads = 0;
+        List<ProcessHandle> handles =
+                Stream.concat(Stream.of(process.toHandle()), process.descendants()).collect(Collectors.toList());
+        for (ProcessHandle handle : handles) {
+            Path dir = PROC.resolve(Long.toString(handle.pid()));
+            long[] sample = new long[4];
+            Map<String, Long> status;
+            try {
+                long[] times = parseStat(Files.readString(dir.resolve("stat"), StandardCharsets.US_ASCII));
+                sample[USER_TIME] = times[0];
+                sample[SYSTEM_TIME] = times[1];
+                status = parseFields(Files.readString(dir.resolve("status"), StandardCharsets.US_ASCII));
+            } catch (IOException | RuntimeException e) {
+                // exited in the meantime, or not in the format expected
+                continue;
+            }
+            try {
+                Map<String, Long> io = parseFields(Files.readString(dir.resolve("io"), StandardCharsets.US_ASCII));
+                sample[READ_BYTES] = io.getOrDefault("read_bytes", 0L);
+                sample[WRITTEN_BYTES] = io.getOrDefault("write_bytes", 0L);
+            } catch (IOException e) {
+                // not accessible on some kernels, so keep the other figures
+            }
+            counters.put(handle.pid(), sample);
+            rss += status.getOrDefault("VmRSS", 0L) * 1024;
+            peakRss = Math.max(peakRss, status.getOrDefault("VmHWM", 0L) * 1024);
+            threads += status.getOrDefault("Threads", 0L).intValue();
+        }
+        peakRss = Math.max(peakRss, rss);
+        peakThreads = Math.max(peakThreads, threads);
+    }
+
+    /**
+     * The usage sampled so far, or {@code null} if {@code /proc} is not available.
+     */
+    @CheckForNull
+    public ProcessUsage getUsage() {
+        if (!supported) {
+            return null;
+        }
+        long[] total = new long[4];
+        for (long[] sample : counters.values()) {
+            for (int i = 0; i < total.length; i++) {
+                total[i] += sample[i];
+            }
+        }
+        return new ProcessUsage(
+                command,
+                Duration.ofMillis(total[USER_TIME] * 1000 / CLOCK_TICKS_PER_SECOND),
+                Duration.ofMillis(total[SYSTEM_TIME] * 1000 / CLOCK_TICKS_PER_SECOND),
+                peakRss,
+                total[READ_BYTES],
+                total[WRITTEN_BYTES],
+                peakThreads,
+                counters.size());
+    }
+
+    /**
+     * The user and system CPU time, in clock ticks, from the contents of {@code /proc/<pid>/stat}.
+     */
+    static long[] parseStat(@NonNull String stat) {
+        // the command name is in parentheses and may itself contain spaces or parentheses
+        String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        // utime and stime are the 14th and 15th fields, counting from the pid
+        return new long[] {Long.parseLong(fields[11]), Long.parseLong(fields[12])};
+    }
+
+    /**
+     * The numeric fields of {@code /proc/<pid>/status} (in kB where there is a unit) or {@code /proc/<pid>/io}.
+     */
+    static Map<String, Long> parseFields(@NonNull String contents) {
+        Map<String, Long> fields = new HashMap<>();
+        for (String line : contents.split("\n")) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String[] value = line.substring(colon + 1).trim().split("\\s+");
+            try {
+                fields.put(line.substring(0, colon), Long.parseLong(value[0]));
+            } catch (NumberFormatException e) {
+                // not a numeric field
+            }
+        }
+        return fields;
+    }
+}
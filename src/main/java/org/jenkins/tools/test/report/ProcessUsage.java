@@ -0,0 +1,124 @@
+package org.jenkins.tools.test.report;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * The resources used by a process and its descendants, as sampled by a {@link ProcessSampler}.
+ */
+public final class ProcessUsage {
+
+    @NonNull
+    private final String command;
+
+    @NonNull
+    private final Duration userTime;
+
+    @NonNull
+    private final Duration systemTime;
+
+    private final long peakRss;
+
+    private final long readBytes;
+
+    private final long writtenBytes;
+
+    private final int peakThreads;
+
+    private final int processes;
+
+    ProcessUsage(
+            @NonNull String command,
+            @NonNull Duration userTime,
+            @NonNull Duration systemTime,
+            long peakRss,
+            long readBytes,
+            long writtenBytes,
+            int peakThreads,
+            int processes) {
+        this.command = command;
+        this.userTime = userTime;
+        this.systemTime = systemTime;
+        this.peakRss = peakRss;
+        this.readBytes = readBytes;
+        this.writtenBytes = writtenBytes;
+        this.peakThreads = peakThreads;
+        this.processes = processes;
+    }
+
+    /**
+     * What was run, such as the Maven goals.
+     */
+    @NonNull
+    public String getCommand() {
+        return command;
+    }
+
+    @NonNull
+    public Duration getUserTime() {
+        return userTime;
+    }
+
+    @NonNull
+    public Duration getSystemTime() {
+        return systemTime;
+    }
+
+    /**
+     * The largest resident set size of the process tree, in bytes.
+     */
+    public long getPeakRss() {
+        return peakRss;
+    }
+
+    /**
+     * The bytes read from storage, not counting those served from the page cache.
+     */
+    public long getReadBytes() {
+        return readBytes;
+    }
+
+    /**
+     * The bytes written to storage.
+     */
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    /**
+     * The largest number of threads of the process tree.
+     */
+    public int getPeakThreads() {
+        return peakThreads;
+    }
+
+    /**
+     * The number of processes seen in the process tree.
+     */
+    public int getProcesses() {
+        return processes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                Locale.ROOT,
+                "CPU %.1f s user, %.1f s system; peak RSS %s; %s read, %s written; peak %d threads in %d processes",
+                userTime.toMillis() / 1000.0,
+                systemTime.toMillis() / 1000.0,
+                bytes(peakRss),
+                bytes(readBytes),
+                bytes(writtenBytes),
+                peakThreads,
+                processes);
+    }
+
+    private static String bytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        int unit = (63 - Long.numberOfLeadingZeros(bytes)) / 10;
+        return String.format(Locale.ROOT, "%.1f %ciB", bytes / (double) (1L << (unit * 10)), "KMGTPE".charAt(unit - 1));
+    }
+}
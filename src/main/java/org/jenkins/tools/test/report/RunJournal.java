@@ -0,0 +1,295 @@
+package org.jenkins.tools.test.report;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Durable record of the plugins tested so far in a run, so that a run that was interrupted can be resumed with only the
+ * plugins that were not tested yet. Each plugin is recorded as soon as it has been tested, with its outcome, build log,
+ * and timings, on a single line that is forced to disk before the next plugin is tested. A line that was only partly
+ * written when the run was interrupted is discarded on resume, and a plugin whose line cannot be parsed is tested
+ * again.
+ *
+ * <p>The first line identifies the run, so that a journal is only resumed by the same run. It is written along with
+ * the first plugin, so that a run that records nothing need not identify itself.
+ */
+public final class RunJournal implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(RunJournal.class.getName());
+
+    public static final String FILE_NAME = "pct-journal.tsv";
+
+    private static final String HEADER = "# pct journal ";
+
+    private static final String NULL = "\\N";
+
+    /** The number of fields of a plugin before its timings: plugin ID, version, outcome, message, and build log. */
+    private static final int FIELDS = 5;
+
+    @NonNull
+    private final File file;
+
+    // guarded by this
+    @NonNull
+    private final FileChannel channel;
+
+    /** The plugins recorded in an earlier segment of the run, by {@link #key(String, String)}. */
+    private final Map<String, String[]> previous;
+
+    @NonNull
+    private final Supplier<String> runId;
+
+    // guarded by this
+    private boolean identified;
+
+    private RunJournal(
+            @NonNull File file,
+            @NonNull FileChannel channel,
+            @NonNull Map<String, String[]> previous,
+            @NonNull Supplier<String> runId,
+            boolean identified) {
+        this.file = file;
+        this.channel = channel;
+        this.previous = previous;
+        this.runId = runId;
+        this.identified = identified;
+    }
+
+    /**
+     * Open the journal of a run.
+     *
+     * @param runId identifies the run, such as by the core version and the WAR under test
+     * @param resume whether to keep the plugins recorded by an earlier segment of the same run, rather than start anew
+     * @throws IllegalArgumentException if resuming a journal written by a different run
+     */
+    @NonNull
+    public static RunJournal open(@NonNull File file, @NonNull String runId, boolean resume) {
+        return open(file, () -> runId, resume);
+    }
+
+    /**
+     * Open the journal of a run.
+     *
+     * @param runId identifies the run, such as by the core version and the WAR under test; only asked for when resuming
+     *     a journal that identifies its run, or when recording the first plugin
+     * @param resume whether to keep the plugins recorded by an earlier segment of the same run, rather than start anew
+     * @throws IllegalArgumentException if resuming a journal written by a different run
+     */
+    @NonNull
+    public static RunJournal open(@NonNull File file, @NonNull Supplier<String> runId, boolean resume) {
+        Map<String, String[]> previous = new HashMap<>();
+        try {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+            long validLength = 0;
+            if (resume && file.isFile()) {
+                validLength = read(file, runId, previous);
+                LOGGER.log(
+                        Level.INFO,
+                        "Resuming the run recorded in {0}, where {1} plugins were already tested",
+                        new Object[] {file, previous.size()});
+            } else if (resume) {
+                LOGGER.log(Level.INFO, "No journal found at {0}, so starting the run from the beginning", file);
+            }
+            FileChannel channel = FileChannel.open(
+                    file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            channel.truncate(validLength);
+            channel.position(validLength);
+            return new RunJournal(file, channel, previous, runId, validLength > 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open the journal " + file, e);
+        }
+    }
+
+    /**
+     * Read the entries of the journal.
+     *
+     * @return the length of the complete lines, to which the journal is truncated before appending to it
+     */
+    private static long read(File file, Supplier<String> runId, Map<String, String[]> entries) throws IOException {
+        byte[] contents = Files.readAllBytes(file.toPath());
+        int end = 0;
+        int lineNumber = 1;
+        while (end < contents.length) {
+            int newline = end;
+            while (newline < contents.length && contents[newline] != '\n') {
+                newline++;
+            }
+            if (newline == contents.length) {
+                // only partly written
+                break;
+            }
+            String line = new String(contents, end, newline - end, StandardCharsets.UTF_8);
+            if (end == 0) {
+                if (!line.equals(HEADER + escape(runId.get()))) {
+                    throw new IllegalArgumentException("The journal " + file + " was written by a different run ("
+                            + line.substring(Math.min(line.length(), HEADER.length()))
+                            + "), so it cannot be resumed; run without --resume to start anew");
+                }
+            } else {
+                String[] fields = line.split("\t", -1);
+                if (fields.length < FIELDS) {
+                    LOGGER.log(
+                            Level.WARNING,
+                            "Skipping the malformed line {0} of the journal {1}, so that plugin is tested again",
+                            new Object[] {lineNumber, file});
+                } else {
+                    entries.put(key(unescape(fields[0]), unescape(fields[1])), fields);
+                }
+            }
+            end = newline + 1;
+            lineNumber++;
+        }
+        return end;
+    }
+
+    /**
+     * Restore the outcome, build log, and timings of a plugin recorded in an earlier segment of the run.
+     *
+     * @return whether the plugin was recorded, in which case it need not be tested again
+     */
+    public boolean restore(@NonNull PluginReport report) {
+        String[] fields = previous.get(key(report.getPluginId(), report.getVersion()));
+        if (fields == null) {
+            return false;
+        }
+        PluginReport.Outcome outcome;
+        List<PhaseTiming> timings = new ArrayList<>();
+        try {
+            outcome = PluginReport.Outcome.valueOf(fields[2]);
+            for (int i = FIELDS; i + 4 < fields.length; i += 5) {
+                timings.add(new PhaseTiming(
+                        Phase.fromId(fields[i]),
+                        unescape(fields[i + 1]),
+                        Instant.parse(fields[i + 2]),
+                        Duration.ofNanos(Long.parseLong(fields[i + 3])),
+                        Duration.ofNanos(Long.parseLong(fields[i + 4]))));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            LOGGER.log(
+                    Level.WARNING,
+                    "Skipping the malformed entry for " + report.getPluginId() + " in the journal " + file
+                            + ", so it is tested again",
+                    e);
+            return false;
+        }
+        report.restore(outcome, unescape(fields[3]));
+        String log = unescape(fields[4]);
+        report.setLog(log != null ? new File(log) : null);
+        timings.forEach(report::add);
+        return true;
+    }
+
+    /**
+     * Durably record that a plugin has been tested.
+     */
+    public void record(@NonNull PluginReport report) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(escape(report.getPluginId())).append('\t');
+        sb.append(escape(report.getVersion())).append('\t');
+        sb.append(report.getOutcome().name()).append('\t');
+        sb.append(escape(report.getMessage())).append('\t');
+        File log = report.getLog();
+        sb.append(escape(log != null ? log.getPath() : null));
+        for (PhaseTiming timing : report.getTimings()) {
+            sb.append('\t').append(timing.getPhase().getId());
+            sb.append('\t').append(escape(timing.getDetail()));
+            sb.append('\t').append(timing.getStart());
+            sb.append('\t').append(timing.getWallTime().toNanos());
+            sb.append('\t').append(timing.getCpuTime().toNanos());
+        }
+        sb.append('\n');
+        try {
+            append(sb.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to record " + report.getPluginId() + " in the journal " + file, e);
+        }
+    }
+
+    private synchronized void append(String line) throws IOException {
+        if (!identified) {
+            line = HEADER + escape(runId.get()) + "\n" + line;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        identified = true;
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to close the journal " + file, e);
+        }
+    }
+
+    private static String key(String pluginId, String version) {
+        return pluginId + ":" + version;
+    }
+
+    static String escape(@CheckForNull String s) {
+        if (s == null) {
+            return NULL;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    @CheckForNull
+    static String unescape(@NonNull String s) {
+        if (s.equals(NULL)) {
+            return null;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                char next = s.charAt(++i);
+                sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,248 @@
+package org.jenkins.tools.test.report;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.dom4j.Document;
+import org.dom4j.DocumentHelper;
+import org.dom4j.Element;
+import org.dom4j.io.OutputFormat;
+import org.dom4j.io.XMLWriter;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * Machine-readable report of a run, with the time spent in each {@link Phase} and the outcome for every plugin. It is
+ * written both as JSON, for tracking the phases over time, and as JUnit XML, which CI systems can display and trend.
+ */
+public final class RunReport {
+
+    public static final String JSON_FILE_NAME = "pct-report.json";
+
+    public static final String JUNIT_FILE_NAME = "pct-report.xml";
+
+    @NonNull
+    private final String coreVersion;
+
+    @NonNull
+    private final Instant start = Instant.now();
+
+    private final long startNanos = System.nanoTime();
+
+    // guarded by this
+    private final Map<String, PluginReport> plugins = new LinkedHashMap<>();
+
+    public RunReport(@NonNull String coreVersion) {
+        this.coreVersion = coreVersion;
+    }
+
+    /**
+     * The report for the given plugin, created on first use.
+     */
+    @NonNull
+    public synchronized PluginReport get(@NonNull Plugin plugin) {
+        return plugins.computeIfAbsent(
+                plugin.getPluginId(), k -> new PluginReport(k, plugin.getVersion(), plugin.getGitUrl()));
+    }
+
+    @NonNull
+    public synchronized List<PluginReport> getPlugins() {
+        return new ArrayList<>(plugins.values());
+    }
+
+    /**
+     * Write the report to {@link #JSON_FILE_NAME} and {@link #JUNIT_FILE_NAME} in the given directory.
+     */
+    public void write(@NonNull File directory) {
+        Duration wallTime = Duration.ofNanos(System.nanoTime() - startNanos);
+        List<PluginReport> reports = getPlugins();
+        try {
+            Files.createDirectories(directory.toPath());
+            try (Writer w = Files.newBufferedWriter(
+                    new File(directory, JSON_FILE_NAME).toPath(), StandardCharsets.UTF_8)) {
+                writeJson(w, reports, wallTime);
+            }
+            try (Writer w = Files.newBufferedWriter(
+                    new File(directory, JUNIT_FILE_NAME).toPath(), StandardCharsets.UTF_8)) {
+                XMLWriter writer = new XMLWriter(w, OutputFormat.createPrettyPrint());
+                try {
+                    writer.write(toJUnit(reports, wallTime));
+                } finally {
+                    writer.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the report to " + directory, e);
+        }
+    }
+
+    void writeJson(Writer w, List<PluginReport> reports, Duration wallTime) throws IOException {
+        w.write("{\n");
+        w.write("  \"coreVersion\": " + quote(coreVersion) + ",\n");
+        w.write("  \"start\": " + quote(start.toString()) + ",\n");
+        w.write("  \"wallMillis\": " + wallTime.toMillis() + ",\n");
+        w.write("  \"plugins\": [");
+        String pluginSeparator = "\n";
+        for (PluginReport report : reports) {
+            w.write(pluginSeparator);
+            pluginSeparator = ",\n";
+            w.write("    {\n");
+            w.write("      \"pluginId\": " + quote(report.getPluginId()) + ",\n");
+            w.write("      \"version\": " + quote(report.getVersion()) + ",\n");
+            w.write("      \"gitUrl\": " + quote(report.getGitUrl()) + ",\n");
+            w.write("      \"outcome\": " + quote(report.getOutcome().name()) + ",\n");
+            w.write("      \"message\": " + quote(report.getMessage()) + ",\n");
+            File log = report.getLog();
+            w.write("      \"log\": " + quote(log != null ? log.getPath() : null) + ",\n");
+            w.write("      \"phases\": [");
+            String phaseSeparator = "\n";
+            for (PhaseTiming timing : report.getTimings()) {
+                w.write(phaseSeparator);
+                phaseSeparator = ",\n";
+                w.write("        {\"phase\": " + quote(timing.getPhase().getId())
+                        + ", \"detail\": " + quote(timing.getDetail())
+                        + ", \"start\": " + quote(timing.getStart().toString())
+                        + ", \"wallMillis\": " + timing.getWallTime().toMillis()
+                        + ", \"cpuMillis\": " + timing.getCpuTime().toMillis() + "}");
+            }
+            w.write(report.getTimings().isEmpty() ? "],\n" : "\n      ],\n");
+            w.write("      \"processes\": [");
+            String processSeparator = "\n";
+            for (ProcessUsage usage : report.getProcesses()) {
+                w.write(processSeparator);
+                processSeparator = ",\n";
+                w.write("        {\"command\": " + quote(usage.getCommand())
+                        + ", \"userMillis\": " + usage.getUserTime().toMillis()
+                        + ", \"systemMillis\": " + usage.getSystemTime().toMillis()
+                        + ", \"peakRssBytes\": " + usage.getPeakRss()
+                        + ", \"readBytes\": " + usage.getReadBytes()
+                        + ", \"writtenBytes\": " + usage.getWrittenBytes()
+                        + ", \"peakThreads\": " + usage.getPeakThreads()
+                        + ", \"processes\": " + usage.getProcesses() + "}");
+            }
+            w.write(report.getProcesses().isEmpty() ? "]\n" : "\n      ]\n");
+            w.write("    }");
+        }
+        w.write(reports.isEmpty() ? "]\n" : "\n  ]\n");
+        w.write("}\n");
+    }
+
+    /**
+     * One test suite per plugin with one test case per phase, so that CI systems can trend the time of each phase.
+     * A failed plugin has its failure recorded on the last phase that ended, which is the one that failed.
+     */
+    Document toJUnit(List<PluginReport> reports, Duration wallTime) {
+        Document doc = DocumentHelper.createDocument();
+        Element suites = doc.addElement("testsuites");
+        suites.addAttribute("name", "plugin-compat-tester against core " + coreVersion);
+        suites.addAttribute("time", seconds(wallTime));
+        int tests = 0;
+        int failures = 0;
+        int skipped = 0;
+        for (PluginReport report : reports) {
+            List<PhaseTiming> timings = report.getTimings();
+            Element suite = suites.addElement("testsuite");
+            suite.addAttribute("name", report.getPluginId());
+            suite.addAttribute(
+                    "timestamp", (timings.isEmpty() ? start : timings.get(0).getStart()).toString());
+            int suiteFailures = report.getOutcome() == PluginReport.Outcome.FAILURE ? 1 : 0;
+            int suiteSkipped = report.getOutcome() == PluginReport.Outcome.SKIPPED ? 1 : 0;
+            Element last = null;
+            // phases may be nested, so the time of the plugin is the span of its phases rather than their sum
+            Instant first = null;
+            Instant end = null;
+            for (PhaseTiming timing : timings) {
+                last = testCase(suite, report, timing.getPhase().getId(), timing.getWallTime());
+                if (timing.getDetail() != null) {
+                    last.addElement("system-out").addText(timing.getDetail());
+                }
+                Instant phaseEnd = timing.getStart().plus(timing.getWallTime());
+                first = first == null || timing.getStart().isBefore(first) ? timing.getStart() : first;
+                end = end == null || phaseEnd.isAfter(end) ? phaseEnd : end;
+            }
+            if (suiteFailures > 0) {
+                if (last == null) {
+                    last = testCase(suite, report, "outcome", Duration.ZERO);
+                }
+                last.addElement("failure").addAttribute("message", report.getMessage());
+            } else if (suiteSkipped > 0) {
+                testCase(suite, report, "outcome", Duration.ZERO).addElement("skipped");
+            } else if (report.getOutcome() == PluginReport.Outcome.CACHED) {
+                // passed before, so it is reported as passing rather than skipped
+                testCase(suite, report, "cached", Duration.ZERO);
+            }
+            int suiteTests = suite.elements("testcase").size();
+            suite.addAttribute("tests", Integer.toString(suiteTests));
+            suite.addAttribute("failures", Integer.toString(suiteFailures));
+            suite.addAttribute("errors", "0");
+            suite.addAttribute("skipped", Integer.toString(suiteSkipped));
+            suite.addAttribute("time", seconds(first == null ? Duration.ZERO : Duration.between(first, end)));
+            tests += suiteTests;
+            failures += suiteFailures;
+            skipped += suiteSkipped;
+        }
+        suites.addAttribute("tests", Integer.toString(tests));
+        suites.addAttribute("failures", Integer.toString(failures));
+        suites.addAttribute("errors", "0");
+        suites.addAttribute("skipped", Integer.toString(skipped));
+        return doc;
+    }
+
+    private static Element testCase(Element suite, PluginReport report, String name, Duration time) {
+        Element testCase = suite.addElement("testcase");
+        testCase.addAttribute("classname", report.getPluginId() + "." + report.getVersion());
+        testCase.addAttribute("name", name);
+        testCase.addAttribute("time", seconds(time));
+        return testCase;
+    }
+
+    private static String seconds(Duration d) {
+        return String.format(Locale.ROOT, "%.3f", d.toMillis() / 1000.0);
+    }
+
+    static String quote(@CheckForNull String s) {
+        if (s == null) {
+            return "null";
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 2);
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,183 @@
+package org.jenkins.tools.test.report;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a timeline of the run as spans on the threads that ran them, written in the trace event format that Perfetto
+ * and {@code chrome://tracing} load. With repositories tested in parallel or cloned ahead, each worker gets its own
+ * track, which shows idle gaps, stragglers, and Maven builds contending with each other.
+ *
+ * <p>Spans are opened with try-with-resources and may be nested on a thread.
+ */
+public final class TraceRecorder {
+
+    public static final String FILE_NAME = "pct-trace.json";
+
+    /** Enough for the largest runs, while bounding the memory used by a runaway one. */
+    static final int MAX_SPANS = 200_000;
+
+    private static final TraceRecorder INSTANCE = new TraceRecorder();
+
+    // guarded by this
+    private long origin = System.nanoTime();
+
+    // guarded by this
+    private final List<Span> spans = new ArrayList<>();
+
+    // guarded by this
+    private final Map<Long, String> threads = new LinkedHashMap<>();
+
+    // guarded by this
+    private int dropped;
+
+    TraceRecorder() {}
+
+    @NonNull
+    public static TraceRecorder get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Discard the spans recorded so far and start the timeline anew.
+     */
+    public synchronized void reset() {
+        origin = System.nanoTime();
+        spans.clear();
+        threads.clear();
+        dropped = 0;
+    }
+
+    /**
+     * Start a span on the current thread, which ends when it is closed.
+     *
+     * @param category the kind of span, such as {@code maven}, which the trace viewers can filter on
+     * @param name the label of the span
+     */
+    @NonNull
+    public Span start(@NonNull String category, @NonNull String name) {
+        return new Span(category, name);
+    }
+
+    private synchronized void add(Span span) {
+        if (spans.size() >= MAX_SPANS) {
+            dropped++;
+            return;
+        }
+        spans.add(span);
+        threads.putIfAbsent(span.threadId, span.threadName);
+    }
+
+    /**
+     * Write the spans recorded so far to {@link #FILE_NAME} in the given directory.
+     *
+     * @param processName the name of the timeline
+     */
+    public void write(@NonNull File directory, @NonNull String processName) {
+        try {
+            Files.createDirectories(directory.toPath());
+            try (Writer w = Files.newBufferedWriter(new File(directory, FILE_NAME).toPath(), StandardCharsets.UTF_8)) {
+                write(w, processName);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the trace to " + directory, e);
+        }
+    }
+
+    synchronized void write(Writer w, String processName) throws IOException {
+        w.write("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [\n");
+        w.write("{\"ph\": \"M\", \"pid\": 1, \"name\": \"process_name\", \"args\": {\"name\": "
+                + RunReport.quote(processName) + "}}");
+        int sortIndex = 0;
+        for (Map.Entry<Long, String> thread : threads.entrySet()) {
+            w.write(",\n{\"ph\": \"M\", \"pid\": 1, \"tid\": " + thread.getKey()
+                    + ", \"name\": \"thread_name\", \"args\": {\"name\": " + RunReport.quote(thread.getValue()) + "}}");
+            w.write(",\n{\"ph\": \"M\", \"pid\": 1, \"tid\": " + thread.getKey()
+                    + ", \"name\": \"thread_sort_index\", \"args\": {\"sort_index\": " + sortIndex++ + "}}");
+        }
+        for (Span span : spans) {
+            w.write(",\n{\"ph\": \"X\", \"pid\": 1, \"tid\": " + span.threadId
+                    + ", \"cat\": " + RunReport.quote(span.category)
+                    + ", \"name\": " + RunReport.quote(span.name)
+                    + ", \"ts\": " + micros(span.startNanos - origin)
+                    + ", \"dur\": " + micros(span.endNanos - span.startNanos)
+                    + ", \"args\": {");
+            String separator = "";
+            for (Map.Entry<String, String> arg : span.args.entrySet()) {
+                w.write(separator + RunReport.quote(arg.getKey()) + ": " + RunReport.quote(arg.getValue()));
+                separator = ", ";
+            }
+            w.write("}}");
+        }
+        if (dropped > 0) {
+            w.write(",\n{\"ph\": \"i\", \"s\": \"g\", \"pid\": 1, \"tid\": 0, \"name\": "
+                    + RunReport.quote(dropped + " spans omitted as the trace exceeded " + MAX_SPANS + " spans")
+                    + ", \"ts\": " + micros(System.nanoTime() - origin) + "}");
+        }
+        w.write("\n]}\n");
+    }
+
+    private static long micros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    /**
+     * A span of the timeline, recorded when closed.
+     */
+    public final class Span implements AutoCloseable {
+
+        @NonNull
+        private final String category;
+
+        @NonNull
+        private final String name;
+
+        private final long threadId;
+
+        @NonNull
+        private final String threadName;
+
+        private final Map<String, String> args = new LinkedHashMap<>();
+
+        private final long startNanos = System.nanoTime();
+
+        private long endNanos;
+
+        private Span(@NonNull String category, @NonNull String name) {
+            this.category = category;
+            this.name = name;
+            Thread thread = Thread.currentThread();
+            this.threadId = thread.getId();
+            this.threadName = thread.getName();
+        }
+
+        /**
+         * Add an argument to the span, which trace viewers show when it is selected. Arguments with a {@code null}
+         * value are left out.
+         */
+        @NonNull
+        public Span arg(@NonNull String key, @CheckForNull Object value) {
+            if (value != null) {
+                args.put(key, value.toString());
+            }
+            return this;
+        }
+
+        @Override
+        public void close() {
+            endNanos = System.nanoTime();
+            add(this);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.jenkins.tools.test.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * How long testing each plugin took in earlier runs, used to balance the work. The history is a properties file from
+ * plugin ID to the comma-separated milliseconds of the last runs, oldest first, which is keyed by plugin rather than by
+ * version so that it stays useful as plugins are updated. The duration of a repository is the sum of the typical
+ * durations of its plugins.
+ */
+public final class DurationHistory {
+
+    private static final Logger LOGGER = Logger.getLogger(DurationHistory.class.getName());
+
+    /** The number of runs kept for each plugin. */
+    static final int MAX_SAMPLES = 20;
+
+    @NonNull
+    private final Properties durations;
+
+    // the durations measured by this run, which are added to those in the file when saving
+    private final Map<String, List<Long>> recorded = new HashMap<>();
+
+    private DurationHistory(@NonNull Properties durations) {
+        this.durations = durations;
+    }
+
+    /**
+     * Load the history from the given file. A missing or unreadable file results in an empty history.
+     */
+    @NonNull
+    public static DurationHistory load(@NonNull File file) {
+        return new DurationHistory(read(file));
+    }
+
+    private static Properties read(File file) {
+        Properties properties = new Properties();
+        if (file.isFile()) {
+            try (InputStream is = Files.newInputStream(file.toPath())) {
+                properties.load(is);
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Ignoring unreadable duration history " + file, e);
+                properties.clear();
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * How long testing the given plugin typically takes, being the median of the runs in the history, or {@code null}
+     * if it is not in the history.
+     */
+    @CheckForNull
+    public Duration get(@NonNull String pluginId) {
+        return percentile(pluginId, 50);
+    }
+
+    /**
+     * The given percentile of the durations of the given plugin in the history, by the nearest-rank method, or {@code
+     * null} if it is not in the history.
+     */
+    @CheckForNull
+    public Duration percentile(@NonNull String pluginId, int percentile) {
+        List<Long> samples = parse(durations.getProperty(pluginId));
+        if (samples.isEmpty()) {
+            return null;
+        }
+        Collections.sort(samples);
+        int rank = (int) Math.ceil(percentile / 100.0 * samples.size());
+        return Duration.ofMillis(samples.get(Math.max(rank, 1) - 1));
+    }
+
+    private static List<Long> parse(@CheckForNull String value) {
+        List<Long> samples = new ArrayList<>();
+        if (value != null) {
+            for (String millis : value.split(",")) {
+                try {
+                    samples.add(Long.parseLong(millis.trim()));
+                } catch (NumberFormatException e) {
+                    // not written by us, so ignore it
+                }
+            }
+        }
+        return samples;
+    }
+
+    public boolean isEmpty() {
+        return durations.isEmpty();
+    }
+
+    /**
+     * Record how long testing the given plugin took in this run, to be written by {@link #save(File)}.
+     */
+    public synchronized void record(@NonNull String pluginId, @NonNull Duration duration) {
+        recorded.computeIfAbsent(pluginId, k -> new ArrayList<>()).add(duration.toMillis());
+    }
+
+    /**
+     * The estimated duration of each repository, with the plugins missing from the history taking the average
+     * duration of the others.
+     *
+     * @return the estimates in the order of the given repositories, or an empty map if none of their plugins is in the
+     *     history
+     */
+    @NonNull
+    public Map<String, Duration> estimate(@NonNull NavigableMap<String, List<Plugin>> pluginsByRepository) {
+        long known = 0;
+        int knownCount = 0;
+        for (List<Plugin> plugins : pluginsByRepository.values()) {
+            for (Plugin plugin : plugins) {
+                Duration duration = get(plugin.getPluginId());
+                if (duration != null) {
+                    known += duration.toMillis();
+                    knownCount++;
+                }
+            }
+        }
+        Map<String, Duration> estimates = new LinkedHashMap<>();
+        if (knownCount == 0) {
+            return estimates;
+        }
+        long average = known / knownCount;
+        for (Map.Entry<String, List<Plugin>> entry : pluginsByRepository.entrySet()) {
+            long millis = 0;
+            for (Plugin plugin : entry.getValue()) {
+                Duration duration = get(plugin.getPluginId());
+                millis += duration != null ? duration.toMillis() : average;
+            }
+            estimates.put(entry.getKey(), Duration.ofMillis(millis));
+        }
+        return estimates;
+    }
+
+    /**
+     * The time the given jobs take on the given number of workers, when each job in turn is started by the first
+     * worker to become free.
+     */
+    @NonNull
+    public static Duration makespan(@NonNull Iterable<Duration> jobs, int workers) {
+        PriorityQueue<Duration> finishTimes = new PriorityQueue<>();
+        for (int i = 0; i < workers; i++) {
+            finishTimes.add(Duration.ZERO);
+        }
+        Duration makespan = Duration.ZERO;
+        for (Duration job : jobs) {
+            Duration finish = finishTimes.remove().plus(job);
+            finishTimes.add(finish);
+            if (finish.compareTo(makespan) > 0) {
+                makespan = finish;
+            }
+        }
+        return makespan;
+    }
+
+    /**
+     * Add the durations recorded by this run to those in the given file, including those recorded by other runs in the
+     * meantime, keeping the last {@link #MAX_SAMPLES} of each plugin. Errors are logged rather than thrown as the
+     * history is only an optimization.
+     */
+    public synchronized void save(@NonNull File file) {
+        if (recorded.isEmpty()) {
+            return;
+        }
+        Properties properties = read(file);
+        for (Map.Entry<String, List<Long>> entry : recorded.entrySet()) {
+            List<Long> samples = parse(properties.getProperty(entry.getKey()));
+            samples.addAll(entry.getValue());
+            properties.setProperty(
+                    entry.getKey(),
+                    samples.subList(Math.max(0, samples.size() - MAX_SAMPLES), samples.size()).stream()
+                            .map(String::valueOf)
+                            .collect(Collectors.joining(",")));
+        }
+        Path target = file.toPath().toAbsolutePath();
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream os = Files.newOutputStream(tmp)) {
+                    properties.store(os, "Milliseconds taken to test each plugin");
+                }
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write duration history " + file, e);
+        }
+    }
+}
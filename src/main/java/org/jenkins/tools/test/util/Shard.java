@@ -0,0 +1,129 @@
+package org.jenkins.tools.test.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * One of several shards that split the repositories of a WAR between agents. Every agent computes the same partition
+ * from the same plugins and history, and keeps only the repositories of its own shard. Repositories are never split,
+ * as the plugins of a multi-module repository are tested against the same checkout.
+ *
+ * <p>The partition balances the estimated duration of the shards, assigning the longest repositories first, each to
+ * the shard with the least work so far. A repository is estimated from the {@link DurationHistory} of its plugins,
+ * with the plugins missing from the history taking the average duration; without a history, each plugin counts the
+ * same.
+ */
+public final class Shard {
+
+    private static final Logger LOGGER = Logger.getLogger(Shard.class.getName());
+
+    private final int index;
+
+    private final int count;
+
+    /**
+     * @param index the number of the shard, from 1 to {@code count}
+     * @param count the number of shards
+     */
+    public Shard(int index, int count) {
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException(
+                    "Invalid shard " + index + "/" + count + ": expected i/N with N at least 1 and i from 1 to N");
+        }
+        this.index = index;
+        this.count = count;
+    }
+
+    /**
+     * Parse a shard of the form {@code i/N}.
+     *
+     * @throws IllegalArgumentException if the value is not of that form
+     */
+    @NonNull
+    public static Shard parse(@NonNull String value) {
+        int slash = value.indexOf('/');
+        if (slash < 0) {
+            throw new IllegalArgumentException("Invalid shard " + value + ": expected i/N");
+        }
+        try {
+            return new Shard(
+                    Integer.parseInt(value.substring(0, slash).trim()),
+                    Integer.parseInt(value.substring(slash + 1).trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid shard " + value + ": expected i/N", e);
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * The repositories of this shard.
+     *
+     * @param history the durations of earlier runs, if any
+     */
+    @NonNull
+    public NavigableMap<String, List<Plugin>> select(
+            @NonNull NavigableMap<String, List<Plugin>> pluginsByRepository, @CheckForNull DurationHistory history) {
+        Map<String, Duration> estimates = history != null ? history.estimate(pluginsByRepository) : Map.of();
+        boolean byDuration = !estimates.isEmpty();
+        Map<String, Double> weights = new TreeMap<>();
+        pluginsByRepository.forEach((repository, plugins) -> weights.put(
+                repository, byDuration ? (double) estimates.get(repository).toMillis() : plugins.size()));
+        List<String> repositories = new ArrayList<>(pluginsByRepository.keySet());
+        // longest first, breaking ties by URL so that every agent sees the same order
+        repositories.sort(Comparator.comparing((String repository) -> weights.get(repository))
+                .reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        double[] loads = new double[count];
+        NavigableMap<String, List<Plugin>> selected = new TreeMap<>();
+        for (String repository : repositories) {
+            int least = 0;
+            for (int i = 1; i < count; i++) {
+                if (loads[i] < loads[least]) {
+                    least = i;
+                }
+            }
+            loads[least] += weights.get(repository);
+            if (least == index - 1) {
+                selected.put(repository, pluginsByRepository.get(repository));
+            }
+        }
+        double total = 0;
+        for (double load : loads) {
+            total += load;
+        }
+        LOGGER.log(
+                Level.INFO,
+                "Shard {0} has {1} of {2} repositories, with {3,number,percent} of the work as estimated by {4}",
+                new Object[] {
+                    this,
+                    selected.size(),
+                    pluginsByRepository.size(),
+                    total > 0 ? loads[index - 1] / total : 0,
+                    byDuration ? "duration" : "number of plugins"
+                });
+        return selected;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
@@ -1,40 +1,100 @@
 package org.jenkins.tools.test.util;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.nio.charset.Charset;
 
+/**
+ * Consumes the output of a process, keeping only its last bytes in memory for diagnostics so that a process with
+ * unexpectedly large output cannot exhaust the heap.
+ */
 public class StreamGobbler extends Thread {
 
+    /** The default number of bytes of output kept in memory. */
+    public static final int DEFAULT_CAPACITY = 64 * 1024;
+
     @NonNull
     private final InputStream is;
 
-    private final StringBuilder output = new StringBuilder();
+    // guarded by this
+    private final byte[] tail;
+
+    // guarded by this
+    private long total;
 
     public StreamGobbler(@NonNull InputStream is) {
+        this(is, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the number of bytes of output to keep in memory
+     */
+    public StreamGobbler(@NonNull InputStream is, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive, but was " + capacity);
+        }
         this.is = is;
+        this.tail = new byte[capacity];
+    }
+
+    /**
+     * The output of the process, or only its last lines if it was larger than the capacity, preceded by a note of how
+     * much was omitted.
+     */
+    public synchronized String getOutput() {
+        int start = 0;
+        int length = (int) Math.min(total, tail.length);
+        String omitted = "";
+        if (total > tail.length) {
+            start = (int) (total % tail.length);
+            // skip the partial line at the start, which may also start with a partial character
+            int skipped = 0;
+            while (skipped < length && tail[(start + skipped) % tail.length] != '\n') {
+                skipped++;
+            }
+            skipped = Math.min(skipped + 1, length);
+            start = (start + skipped) % tail.length;
+            length -= skipped;
+            omitted = "[" + (total - length) + " bytes of output omitted]" + System.lineSeparator();
+        }
+        byte[] ordered = new byte[length];
+        int first = Math.min(length, tail.length - start);
+        System.arraycopy(tail, start, ordered, 0, first);
+        System.arraycopy(tail, 0, ordered, first, length - first);
+        return omitted + new String(ordered, Charset.defaultCharset());
     }
 
-    public String getOutput() {
-        return output.toString();
+    /**
+     * Whether the start of the output was dropped from memory because the output was larger than the capacity.
+     */
+    public synchronized boolean isTruncated() {
+        return total > tail.length;
     }
 
     @Override
     public void run() {
-        try (Reader r = new InputStreamReader(is, Charset.defaultCharset());
-                BufferedReader br = new BufferedReader(r)) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                output.append(line);
-                output.append(System.lineSeparator());
+        try (InputStream in = is) {
+            byte[] buf = new byte[8192];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                append(buf, n);
             }
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
+
+    private synchronized void append(byte[] buf, int n) {
+        int off = Math.max(0, n - tail.length);
+        total += off;
+        while (off < n) {
+            int pos = (int) (total % tail.length);
+            int len = Math.min(n - off, tail.length - pos);
+            System.arraycopy(buf, off, tail, pos, len);
+            total += len;
+            off += len;
+        }
+    }
 }
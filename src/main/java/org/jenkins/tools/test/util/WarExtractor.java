@@ -2,16 +2,26 @@ package org.jenkins.tools.test.util;
 
 import edu.umd.cs.findbugs.annotations.CheckForNull;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.VersionNumber;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.NavigableMap;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
@@ -21,6 +31,7 @@ import java.util.logging.Logger;
 import java.util.stream.Collectors;
 import org.apache.maven.model.Model;
 import org.jenkins.tools.test.exception.MetadataExtractionException;
+import org.jenkins.tools.test.jfr.WarExtractionEvent;
 import org.jenkins.tools.test.model.plugin_metadata.Plugin;
 import org.jenkins.tools.test.model.plugin_metadata.PluginMetadataExtractor;
 
@@ -32,6 +43,13 @@ public class WarExtractor {
 
     private static final String SUFFIX = ".hpi";
 
+    private static final String WINSTONE = "executable/winstone.jar";
+
+    private static final String JENKINS_CORE = "WEB-INF/lib/jenkins-core-";
+
+    /** Not worth starting a thread for fewer plugins than this. */
+    private static final int MIN_ENTRIES_PER_THREAD = 8;
+
     @NonNull
     private final File warFile;
 
@@ -41,31 +59,68 @@ public class WarExtractor {
     @CheckForNull
     private final Set<String> excludedPlugins;
 
+    @CheckForNull
+    private final File indexFile;
+
+    private int maxThreads = Runtime.getRuntime().availableProcessors();
+
     public WarExtractor(
             File warFile, ServiceHelper serviceHelper, Set<String> includedPlugins, Set<String> excludedPlugins) {
+        this(warFile, serviceHelper, includedPlugins, excludedPlugins, null);
+    }
+
+    /**
+     * @param indexFile a file in which to persist the plugin metadata extracted from the WAR, so that later
+     *     extractions only need to parse the plugins that changed, or {@code null} to always parse every plugin
+     */
+    public WarExtractor(
+            File warFile,
+            ServiceHelper serviceHelper,
+            Set<String> includedPlugins,
+            Set<String> excludedPlugins,
+            @CheckForNull File indexFile) {
         this.warFile = warFile;
         this.includedPlugins = includedPlugins;
         this.excludedPlugins = excludedPlugins;
+        this.indexFile = indexFile;
+    }
+
+    /**
+     * Limit the number of threads parsing plugins, which defaults to the number of processors. Fewer threads may be
+     * used, as each one parses at least {@value #MIN_ENTRIES_PER_THREAD} plugins.
+     */
+    void setMaxThreads(int maxThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("Thread count must be at least 1, but was " + maxThreads);
+        }
+        this.maxThreads = maxThreads;
     }
 
     /**
      * Extract the Jenkins core version from the given WAR.
      *
+     * <p>Only the manifest of the WAR is read; nested JARs such as Winstone and Jenkins core are not inflated, unlike
+     * with {@link #extractFacts(boolean)}.
+     *
      * @return The Jenkins core version..
      */
     public String extractCoreVersion() throws MetadataExtractionException {
         try (JarFile jf = new JarFile(warFile)) {
-            Manifest manifest = jf.getManifest();
-            String value = manifest.getMainAttributes().getValue("Jenkins-Version");
-            if (value == null) {
-                throw new MetadataExtractionException("Jenkins WAR is missing required Manifest entry");
-            }
-            return value;
+            return getCoreVersion(jf);
         } catch (IOException e) {
-            throw new UncheckedIOException("Failed to extract Jenkins core version from " + warFile.toString(), e);
+            throw new UncheckedIOException("I/O error occurred whilst extracting the core version from " + warFile, e);
         }
     }
 
+    private static String getCoreVersion(JarFile jf) throws IOException, MetadataExtractionException {
+        Manifest manifest = jf.getManifest();
+        String coreVersion = manifest == null ? null : manifest.getMainAttributes().getValue("Jenkins-Version");
+        if (coreVersion == null) {
+            throw new MetadataExtractionException("Jenkins WAR is missing required Manifest entry");
+        }
+        return coreVersion;
+    }
+
     /**
      * Extract the list of plugins to be tested from the given WAR.
      *
@@ -73,23 +128,145 @@ public class WarExtractor {
      * @throws MetadataExtractionException if a non-I/O related issue occurs when the list of plugins is extracted or, if after applying filters, no plugins are located.
      */
     public List<Plugin> extractPlugins() throws MetadataExtractionException {
+        return extractFacts(true).getPlugins();
+    }
+
+    /**
+     * Extract all the facts about the given WAR in a single pass over its entries.
+     *
+     * @param includePlugins whether to extract the metadata of the plugins to be tested, which is by far the most
+     *     expensive part
+     * @throws MetadataExtractionException if a non-I/O related issue occurs when the facts are extracted or, if plugins
+     *     were requested and after applying filters no plugins are located.
+     */
+    public WarFacts extractFacts(boolean includePlugins) throws MetadataExtractionException {
+        String coreVersion;
         List<Plugin> plugins = new ArrayList<>();
+        VersionNumber winstoneVersion = null;
+        VersionNumber enterpriseEditionVersion = null;
+        Boolean webFragment = null;
+        long start = System.nanoTime();
+        WarExtractionEvent event = new WarExtractionEvent();
+        event.begin();
+        WarIndex index = includePlugins && indexFile != null ? WarIndex.load(indexFile) : null;
+        List<JarEntry> toParse = new ArrayList<>();
         try (JarFile jf = new JarFile(warFile)) {
+            coreVersion = getCoreVersion(jf);
             Enumeration<JarEntry> entries = jf.entries();
             while (entries.hasMoreElements()) {
                 JarEntry entry = entries.nextElement();
-                if (isInteresting(entry)) {
-                    plugins.add(getPlugin(jf, entry));
+                if (includePlugins && isPlugin(entry)) {
+                    // Look up even the plugins that are filtered out so that they are kept in the index
+                    Plugin plugin = index == null ? null : index.get(entry);
+                    if (isInteresting(entry)) {
+                        if (plugin == null) {
+                            toParse.add(entry);
+                        } else {
+                            plugins.add(plugin);
+                        }
+                    }
+                } else if (entry.getName().equals(WINSTONE)) {
+                    try (JarInputStream jis = openNested(jf, entry)) {
+                        Manifest winstoneManifest = jis.getManifest();
+                        if (winstoneManifest != null) {
+                            String version = winstoneManifest.getMainAttributes().getValue("Implementation-Version");
+                            winstoneVersion = version == null ? null : new VersionNumber(version);
+                        }
+                        enterpriseEditionVersion = getEnterpriseEditionVersion(jis);
+                    }
+                } else if (entry.getName().startsWith(JENKINS_CORE)) {
+                    try (JarInputStream jis = openNested(jf, entry)) {
+                        webFragment = hasWebFragment(jis);
+                    }
                 }
             }
         } catch (IOException e) {
-            throw new UncheckedIOException("I/O error occurred whilst extracting plugin metadata from WAR", e);
+            throw new UncheckedIOException("I/O error occurred whilst extracting metadata from " + warFile, e);
+        }
+        List<Plugin> parsed = getPlugins(toParse);
+        if (index != null) {
+            for (int i = 0; i < toParse.size(); i++) {
+                index.put(toParse.get(i), parsed.get(i));
+            }
+        }
+        plugins.addAll(parsed);
+        if (includePlugins) {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (index == null) {
+                LOGGER.log(Level.INFO, "Extracted metadata for {0} plugins in {1} ms", new Object[] {
+                    plugins.size(), elapsed
+                });
+            } else {
+                LOGGER.log(
+                        Level.INFO,
+                        "Extracted metadata for {0} plugins in {1} ms with a {2} index ({3} parsed, {4} from {5})",
+                        new Object[] {
+                            plugins.size(),
+                            elapsed,
+                            index.isFor(warFile) ? "warm" : "cold",
+                            parsed.size(),
+                            plugins.size() - parsed.size(),
+                            indexFile
+                        });
+                index.save(warFile);
+            }
         }
-        if (plugins.isEmpty()) {
+        if (includePlugins && plugins.isEmpty()) {
             throw new MetadataExtractionException("Found no plugins in " + warFile);
         }
         plugins.sort(Comparator.comparing(Plugin::getPluginId));
-        return List.copyOf(plugins);
+        if (event.shouldCommit()) {
+            event.war = warFile.toString();
+            event.plugins = plugins.size();
+            event.parsedPlugins = parsed.size();
+            event.commit();
+        }
+        return new WarFacts(warFile, coreVersion, plugins, winstoneVersion, enterpriseEditionVersion, webFragment);
+    }
+
+    private static JarInputStream openNested(JarFile jf, JarEntry entry) throws IOException {
+        return new JarInputStream(new BufferedInputStream(jf.getInputStream(entry)));
+    }
+
+    /**
+     * Determine the servlet level of the Jetty bundled in Winstone from the Maven metadata directories of its servlet
+     * module.
+     *
+     * @return the EE version, or {@code null} if unknown
+     */
+    @CheckForNull
+    private static VersionNumber getEnterpriseEditionVersion(JarInputStream jis) throws IOException {
+        JarEntry jarEntry;
+        while ((jarEntry = jis.getNextJarEntry()) != null) {
+            if (!jarEntry.isDirectory()) {
+                continue;
+            }
+            if ("META-INF/maven/org.eclipse.jetty.ee11/jetty-ee11-servlet/".equals(jarEntry.getName())) {
+                return new VersionNumber("11");
+            } else if ("META-INF/maven/org.eclipse.jetty.ee10/jetty-ee10-servlet/".equals(jarEntry.getName())) {
+                return new VersionNumber("10");
+            } else if ("META-INF/maven/org.eclipse.jetty.ee9/jetty-ee9-servlet/".equals(jarEntry.getName())) {
+                return new VersionNumber("9");
+            } else if ("META-INF/maven/org.eclipse.jetty.ee8/jetty-ee8-servlet/".equals(jarEntry.getName())) {
+                return new VersionNumber("8");
+            } else if ("META-INF/maven/org.eclipse.jetty/jetty-servlet/".equals(jarEntry.getName())) {
+                return new VersionNumber("8");
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasWebFragment(JarInputStream jis) throws IOException {
+        for (JarEntry entry = jis.getNextJarEntry(); entry != null; entry = jis.getNextJarEntry()) {
+            if ("META-INF/web-fragment.xml".equals(entry.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPlugin(JarEntry entry) {
+        return entry.getName().startsWith(PREFIX) && entry.getName().endsWith(SUFFIX);
     }
 
     /**
@@ -100,7 +277,7 @@ public class WarExtractor {
      * @return {@code true} iff {@code entry} represents a plugin in {@code WEB-INF/plugins/}
      */
     private boolean isInteresting(JarEntry entry) {
-        if (entry.getName().startsWith(PREFIX) && entry.getName().endsWith(SUFFIX)) {
+        if (isPlugin(entry)) {
             String pluginId =
                     entry.getName().substring(PREFIX.length(), entry.getName().length() - SUFFIX.length());
             if (excludedPlugins != null && excludedPlugins.contains(pluginId)) {
@@ -116,6 +293,77 @@ public class WarExtractor {
         return false;
     }
 
+    /**
+     * Obtain the plugin metadata from the given JAR entries on a pool of threads. Each thread reads the WAR through its
+     * own {@link JarFile}, taking the next entry to parse until there are none left.
+     *
+     * @return the plugins, in the same order as the entries
+     */
+    private List<Plugin> getPlugins(List<JarEntry> entries) throws MetadataExtractionException {
+        int threads = Math.min(maxThreads, entries.size() / MIN_ENTRIES_PER_THREAD);
+        Plugin[] result = new Plugin[entries.size()];
+        AtomicInteger next = new AtomicInteger();
+        Callable<Void> worker = () -> {
+            try (JarFile jf = new JarFile(warFile)) {
+                for (int i = next.getAndIncrement(); i < result.length; i = next.getAndIncrement()) {
+                    JarEntry entry = jf.getJarEntry(entries.get(i).getName());
+                    result[i] = getPlugin(jf, entry);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("I/O error occurred whilst extracting plugin metadata from WAR", e);
+            }
+            return null;
+        };
+        if (threads <= 1) {
+            call(worker);
+            return Arrays.asList(result);
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "pct-war-extractor-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(worker));
+            }
+            for (Future<Void> future : futures) {
+                call(future::get);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return Arrays.asList(result);
+    }
+
+    /**
+     * Run the given task, unwrapping the cause of any {@link ExecutionException}.
+     */
+    private static void call(Callable<Void> task) throws MetadataExtractionException {
+        try {
+            task.call();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof MetadataExtractionException) {
+                throw (MetadataExtractionException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MetadataExtractionException("Interrupted while extracting plugin metadata", e);
+        } catch (MetadataExtractionException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * Obtain the plugin metadata from the given JAR entry.
      * The given JAR entry must be a plugin; otherwise, the behaviour is undefined.
@@ -124,20 +372,47 @@ public class WarExtractor {
      * @return The plugin metadata.
      */
     private Plugin getPlugin(JarFile jf, JarEntry entry) throws MetadataExtractionException {
-        // The entry is the HPI file
+        // The entry is the HPI file; only its manifest is needed, which comes first, so the rest is never inflated
         Manifest manifest;
-        Model model;
-        String pluginId;
         try (JarInputStream jis = new JarInputStream(jf.getInputStream(entry))) {
             manifest = jis.getManifest();
-            String groupId = manifest.getMainAttributes().getValue("Group-Id");
-            String artifactId = pluginId = manifest.getMainAttributes().getValue("Short-Name");
-            model = ModelReader.getPluginModelFromHpi(groupId, artifactId, jis);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
+        if (manifest == null) {
+            throw new MetadataExtractionException("Failed to read the manifest of " + entry.getName());
+        }
+        String pluginId = manifest.getMainAttributes().getValue("Short-Name");
         LOGGER.log(Level.INFO, "Extracting metadata for {0}", pluginId);
-        return PluginMetadataExtractor.extractMetadata(pluginId, manifest, model);
+        return PluginMetadataExtractor.extractMetadata(pluginId, manifest);
+    }
+
+    /**
+     * Obtain the Maven model embedded in the given plugin's HPI. Plugin metadata is extracted from the manifest alone,
+     * so this is only for consumers that need more than the {@link Plugin} provides.
+     *
+     * @param plugin a plugin previously extracted from this WAR
+     * @return the Maven model of the plugin as read from the {@code META-INF} directory of its HPI
+     * @throws MetadataExtractionException if the plugin or its model could not be found
+     */
+    public Model extractModel(Plugin plugin) throws MetadataExtractionException {
+        String entryName = PREFIX + plugin.getPluginId() + SUFFIX;
+        try (JarFile jf = new JarFile(warFile)) {
+            JarEntry entry = jf.getJarEntry(entryName);
+            if (entry == null) {
+                throw new MetadataExtractionException(entryName + " was not found in " + warFile);
+            }
+            try (JarInputStream jis = openNested(jf, entry)) {
+                Manifest manifest = jis.getManifest();
+                if (manifest == null) {
+                    throw new MetadataExtractionException("Failed to read the manifest of " + entryName);
+                }
+                String groupId = manifest.getMainAttributes().getValue("Group-Id");
+                return ModelReader.getPluginModelFromHpi(groupId, plugin.getPluginId(), jis);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the model of " + plugin.getPluginId(), e);
+        }
     }
 
     /**
@@ -0,0 +1,100 @@
+package org.jenkins.tools.test.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import hudson.util.VersionNumber;
+import java.io.File;
+import java.util.List;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * Facts about a Jenkins WAR, gathered in a single pass over the WAR by {@link WarExtractor#extractFacts} so that the
+ * WAR (and the JARs nested inside it) need not be reopened for every plugin under test.
+ */
+public final class WarFacts {
+
+    @NonNull
+    private final File war;
+
+    @NonNull
+    private final String coreVersion;
+
+    @NonNull
+    private final List<Plugin> plugins;
+
+    @CheckForNull
+    private final VersionNumber winstoneVersion;
+
+    @CheckForNull
+    private final VersionNumber enterpriseEditionVersion;
+
+    @CheckForNull
+    private final Boolean webFragment;
+
+    WarFacts(
+            @NonNull File war,
+            @NonNull String coreVersion,
+            @NonNull List<Plugin> plugins,
+            @CheckForNull VersionNumber winstoneVersion,
+            @CheckForNull VersionNumber enterpriseEditionVersion,
+            @CheckForNull Boolean webFragment) {
+        this.war = war;
+        this.coreVersion = coreVersion;
+        this.plugins = List.copyOf(plugins);
+        this.winstoneVersion = winstoneVersion;
+        this.enterpriseEditionVersion = enterpriseEditionVersion;
+        this.webFragment = webFragment;
+    }
+
+    @NonNull
+    public File getWar() {
+        return war;
+    }
+
+    @NonNull
+    public String getCoreVersion() {
+        return coreVersion;
+    }
+
+    /**
+     * The plugins to be tested, sorted by plugin ID. Empty if plugin metadata was not requested or if no plugins
+     * matched the filters.
+     */
+    @NonNull
+    public List<Plugin> getPlugins() {
+        return plugins;
+    }
+
+    /**
+     * The version of Winstone bundled in the WAR.
+     *
+     * @throws IllegalArgumentException if the WAR does not contain Winstone
+     */
+    @NonNull
+    public VersionNumber getWinstoneVersion() {
+        if (winstoneVersion == null) {
+            throw new IllegalArgumentException("Failed to read Winstone version from " + war);
+        }
+        return winstoneVersion;
+    }
+
+    /**
+     * The Java or Jakarta EE servlet level implemented by the Jetty bundled in Winstone, or {@code null} if unknown.
+     */
+    @CheckForNull
+    public VersionNumber getEnterpriseEditionVersion() {
+        return enterpriseEditionVersion;
+    }
+
+    /**
+     * Whether Jenkins core declares a {@code META-INF/web-fragment.xml}.
+     *
+     * @throws IllegalArgumentException if the WAR does not contain Jenkins core
+     */
+    public boolean usesWebFragment() {
+        if (webFragment == null) {
+            throw new IllegalArgumentException("Failed to find jenkins-core jar in " + war);
+        }
+        return webFragment;
+    }
+}
@@ -0,0 +1,166 @@
+package org.jenkins.tools.test.util;
+
+import edu.umd.cs.findbugs.annotations.CheckForNull;
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+
+/**
+ * Persistent index of the plugin metadata extracted from the HPIs in a WAR, so that an HPI is only parsed again when
+ * its content changes.
+ *
+ * <p>The index is a properties file. Each plugin is keyed by the name of its entry in the WAR and is only reused if
+ * the CRC-32 and size recorded in the central directory of the WAR still match, so an index built for one WAR can be
+ * refreshed incrementally for the next one. The path and size of the WAR the index was last written for are recorded
+ * to tell a warm run from a refresh in the log.
+ */
+class WarIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(WarIndex.class.getName());
+
+    private static final String WAR_PATH = "war.path";
+
+    private static final String WAR_SIZE = "war.size";
+
+    @NonNull
+    private final File indexFile;
+
+    @NonNull
+    private final Properties previous;
+
+    @NonNull
+    private final Properties current = new Properties();
+
+    private WarIndex(@NonNull File indexFile, @NonNull Properties previous) {
+        this.indexFile = indexFile;
+        this.previous = previous;
+    }
+
+    /**
+     * Load the index from the given file. A missing or unreadable file results in an empty index.
+     */
+    @NonNull
+    static WarIndex load(@NonNull File indexFile) {
+        Properties properties = new Properties();
+        if (indexFile.isFile()) {
+            try (InputStream is = Files.newInputStream(indexFile.toPath())) {
+                properties.load(is);
+            } catch (IOException | IllegalArgumentException e) {
+                LOGGER.log(Level.WARNING, "Ignoring unreadable WAR index " + indexFile, e);
+                properties.clear();
+            }
+        }
+        return new WarIndex(indexFile, properties);
+    }
+
+    /**
+     * Whether the index was last written for the given WAR.
+     */
+    boolean isFor(@NonNull File war) {
+        return war.getAbsolutePath().equals(previous.getProperty(WAR_PATH))
+                && String.valueOf(war.length()).equals(previous.getProperty(WAR_SIZE));
+    }
+
+    /**
+     * The plugin previously extracted from the given entry, or {@code null} if the entry is not in the index or its
+     * content changed. A plugin that is found is kept in the index when it is next saved.
+     */
+    @CheckForNull
+    synchronized Plugin get(@NonNull ZipEntry entry) {
+        String prefix = entry.getName() + ".";
+        if (entry.getCrc() == -1
+                || !String.valueOf(entry.getCrc()).equals(previous.getProperty(prefix + "crc"))
+                || !String.valueOf(entry.getSize()).equals(previous.getProperty(prefix + "size"))) {
+            return null;
+        }
+        Function<String, String> field = name -> previous.getProperty(prefix + name);
+        if (field.apply("pluginId") == null
+                || field.apply("version") == null
+                || field.apply("gitUrl") == null
+                || field.apply("module") == null) {
+            // an incomplete record, e.g. written by an older version
+            return null;
+        }
+        Plugin plugin = new Plugin.Builder()
+                .withPluginId(field.apply("pluginId"))
+                .withVersion(field.apply("version"))
+                .withGitUrl(field.apply("gitUrl"))
+                .withTag(field.apply("tag"))
+                .withModule(field.apply("module"))
+                .withGitHash(field.apply("gitHash"))
+                .withName(field.apply("name"))
+                .build();
+        put(entry, plugin);
+        return plugin;
+    }
+
+    /**
+     * Record the plugin extracted from the given entry.
+     */
+    synchronized void put(@NonNull ZipEntry entry, @NonNull Plugin plugin) {
+        String prefix = entry.getName() + ".";
+        BiConsumer<String, String> field = (name, value) -> {
+            if (value != null) {
+                current.setProperty(prefix + name, value);
+            }
+        };
+        field.accept("crc", String.valueOf(entry.getCrc()));
+        field.accept("size", String.valueOf(entry.getSize()));
+        field.accept("pluginId", plugin.getPluginId());
+        field.accept("version", plugin.getVersion());
+        field.accept("gitUrl", plugin.getGitUrl());
+        field.accept("tag", plugin.getTag());
+        field.accept("module", plugin.getModule());
+        field.accept("gitHash", plugin.getGitHash());
+        field.accept("name", plugin.getName());
+    }
+
+    /**
+     * Write the entries that were looked up or recorded since the index was loaded, dropping all the others. Failures
+     * are logged rather than thrown as the index is only an optimization.
+     */
+    synchronized void save(@NonNull File war) {
+        if (isFor(war) && current.equals(stripHeader(previous))) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.putAll(current);
+        properties.setProperty(WAR_PATH, war.getAbsolutePath());
+        properties.setProperty(WAR_SIZE, String.valueOf(war.length()));
+        Path target = indexFile.toPath().toAbsolutePath();
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream os = Files.newOutputStream(tmp)) {
+                    properties.store(os, "Plugin metadata extracted from " + war.getName());
+                }
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to write WAR index " + indexFile, e);
+        }
+    }
+
+    private static Properties stripHeader(Properties properties) {
+        Properties result = new Properties();
+        result.putAll(properties);
+        result.remove(WAR_PATH);
+        result.remove(WAR_SIZE);
+        return result;
+    }
+}
@@ -0,0 +1,52 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+class BuildLogCliTest {
+
+    @Test
+    void grep(@TempDir File tempDir) throws Exception {
+        File logs = new File(tempDir, "logs");
+        File plain = new File(logs, "mailer/2.401.log");
+        Files.createDirectories(plain.getParentFile().toPath());
+        Files.writeString(plain.toPath(), "[INFO] BUILD SUCCESS\n", Charset.defaultCharset());
+        File compressed = new File(logs, "text-finder/2.401.log.gz");
+        Files.createDirectories(compressed.getParentFile().toPath());
+        try (OutputStream os = new GZIPOutputStream(Files.newOutputStream(compressed.toPath()))) {
+            os.write("[INFO] Building text-finder\n[ERROR] Tests run: 3, Failures: 1\n"
+                    .getBytes(Charset.defaultCharset()));
+        }
+        Files.writeString(new File(logs, "notes.txt").toPath(), "[ERROR] not a build log\n", Charset.defaultCharset());
+
+        assertThat(
+                run(0, logs.getPath(), "--grep", "^\\[ERROR\\]"),
+                is(compressed + ": [ERROR] Tests run: 3, Failures: 1\n"));
+        assertThat(run(1, logs.getPath(), "--grep", "BUILD FAILURE"), is(""));
+        assertThat(run(0, plain.getPath()), is("[INFO] BUILD SUCCESS\n"));
+    }
+
+    private static String run(int expectedStatus, String... args) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(baos, true, StandardCharsets.UTF_8));
+        try {
+            assertThat(new CommandLine(new BuildLogCli()).execute(args), is(expectedStatus));
+        } finally {
+            System.setOut(out);
+        }
+        return baos.toString(StandardCharsets.UTF_8).replace(System.lineSeparator(), "\n");
+    }
+}
@@ -0,0 +1,157 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jenkins.tools.test.exception.PluginSourcesUnavailableException;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+
+class CheckoutPrefetcherTest {
+
+    @Test
+    void handsOverByName() throws Exception {
+        Map<String, List<Plugin>> repositories = repositories("git", "mailer", "text-finder", "workflow-api");
+        // the first repository takes the longest to clone
+        RepositoryCheckout.Cloner cloner = (gitUrl, plugins) -> {
+            if (gitUrl.equals("git")) {
+                sleep(200);
+            }
+            return new File(gitUrl);
+        };
+        try (CheckoutPrefetcher prefetcher = new CheckoutPrefetcher(repositories.entrySet(), 4, 4, cloner)) {
+            prefetcher.start();
+            for (String gitUrl : repositories.keySet()) {
+                RepositoryCheckout checkout = prefetcher.take(gitUrl);
+                assertThat(checkout.getGitUrl(), is(gitUrl));
+                assertThat(checkout.getCloneDirectory(), is(new File(gitUrl)));
+            }
+        }
+    }
+
+    @Test
+    void clonesConcurrently() throws Exception {
+        Map<String, List<Plugin>> repositories = repositories("git", "mailer", "text-finder");
+        CountDownLatch started = new CountDownLatch(3);
+        RepositoryCheckout.Cloner cloner = (gitUrl, plugins) -> {
+            started.countDown();
+            try {
+                // only returns if all three are being cloned at the same time
+                if (!started.await(1, TimeUnit.MINUTES)) {
+                    throw new PluginSourcesUnavailableException("Not cloned concurrently");
+                }
+            } catch (InterruptedException e) {
+                throw new PluginSourcesUnavailableException("Interrupted", e);
+            }
+            return new File(gitUrl);
+        };
+        try (CheckoutPrefetcher prefetcher = new CheckoutPrefetcher(repositories.entrySet(), 3, 3, cloner)) {
+            prefetcher.start();
+            for (String gitUrl : repositories.keySet()) {
+                prefetcher.take(gitUrl).getCloneDirectory();
+            }
+        }
+    }
+
+    @Test
+    void clonesAtMostDepthAhead() throws Exception {
+        Map<String, List<Plugin>> repositories = repositories("git", "mailer", "text-finder", "workflow-api");
+        AtomicInteger clones = new AtomicInteger();
+        RepositoryCheckout.Cloner cloner = (gitUrl, plugins) -> {
+            clones.incrementAndGet();
+            return new File(gitUrl);
+        };
+        try (CheckoutPrefetcher prefetcher = new CheckoutPrefetcher(repositories.entrySet(), 2, 2, cloner)) {
+            prefetcher.start();
+            sleep(200);
+            assertThat(clones.get(), is(2));
+            prefetcher.take("git");
+            sleep(200);
+            assertThat(clones.get(), lessThanOrEqualTo(3));
+        }
+    }
+
+    @Test
+    void errorDoesNotHang() throws Exception {
+        Map<String, List<Plugin>> repositories = repositories("git", "mailer", "text-finder");
+        RepositoryCheckout.Cloner cloner = (gitUrl, plugins) -> {
+            if (gitUrl.equals("mailer")) {
+                throw new StackOverflowError();
+            }
+            return new File(gitUrl);
+        };
+        try (CheckoutPrefetcher prefetcher = new CheckoutPrefetcher(repositories.entrySet(), 1, 1, cloner)) {
+            prefetcher.start();
+            assertThat(prefetcher.take("git").getGitUrl(), is("git"));
+            IllegalStateException e = assertThrows(IllegalStateException.class, () -> prefetcher.take("mailer"));
+            assertThat(e.getCause() instanceof StackOverflowError, is(true));
+            // the only clone thread is gone, so the last repository is never cloned
+            assertThrows(IllegalStateException.class, () -> prefetcher.take("text-finder"));
+        }
+    }
+
+    @Test
+    void cloneFailuresAreHandedOver() throws Exception {
+        Map<String, List<Plugin>> repositories = repositories("git", "mailer");
+        RepositoryCheckout.Cloner cloner = (gitUrl, plugins) -> {
+            throw new PluginSourcesUnavailableException("Failed to clone " + gitUrl);
+        };
+        try (CheckoutPrefetcher prefetcher = new CheckoutPrefetcher(repositories.entrySet(), 2, 2, cloner)) {
+            prefetcher.start();
+            RepositoryCheckout checkout = prefetcher.take("git");
+            PluginSourcesUnavailableException e =
+                    assertThrows(PluginSourcesUnavailableException.class, checkout::getCloneDirectory);
+            assertThat(e.getMessage(), is("Failed to clone git"));
+        }
+    }
+
+    @Test
+    void takesOnlyPrefetchedRepositories() throws Exception {
+        Map<String, List<Plugin>> repositories = repositories("git", "mailer");
+        RepositoryCheckout.Cloner cloner = (gitUrl, plugins) -> new File(gitUrl);
+        try (CheckoutPrefetcher prefetcher = new CheckoutPrefetcher(repositories.entrySet(), 2, 2, cloner)) {
+            prefetcher.start();
+            // taken out of order, as long as the clone stage is far enough ahead
+            assertThat(prefetcher.take("mailer").getCloneDirectory(), is(new File("mailer")));
+            assertThrows(NoSuchElementException.class, () -> prefetcher.take("mailer"));
+            assertThrows(NoSuchElementException.class, () -> prefetcher.take("text-finder"));
+            assertThat(prefetcher.take("git").getCloneDirectory(), is(new File("git")));
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, List<Plugin>> repositories(String... pluginIds) {
+        Map<String, List<Plugin>> repositories = new LinkedHashMap<>();
+        for (String pluginId : pluginIds) {
+            repositories.put(
+                    pluginId,
+                    List.of(new Plugin.Builder()
+                            .withPluginId(pluginId)
+                            .withName(pluginId)
+                            .withVersion("1.0")
+                            .withGitUrl(pluginId)
+                            .withTag(pluginId + "-1.0")
+                            .withGitHash("0123456789abcdef0123456789abcdef01234567")
+                            .withModule(":" + pluginId)
+                            .build()));
+        }
+        return repositories;
+    }
+}
@@ -0,0 +1,105 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GitObjectCacheTest {
+
+    @Test
+    void checksOutTagWithAlternates(@TempDir File tempDir) throws Exception {
+        File upstream = upstream(tempDir);
+        String gitUrl = upstream.getAbsolutePath();
+        File cacheDirectory = new File(tempDir, "cache");
+        GitObjectCache cache = new GitObjectCache(cacheDirectory);
+
+        File checkout = new File(tempDir, "checkout");
+        cache.checkout(gitUrl, "example-1.0", checkout);
+        assertThat(Files.readString(checkout.toPath().resolve("README"), StandardCharsets.UTF_8), is("1.0\n"));
+        assertThat(PluginCompatTester.runCommand(checkout, "git", "status", "--porcelain"), is(""));
+
+        // the objects are borrowed from the bare repository in the cache rather than copied
+        Path alternates = checkout.toPath().resolve(".git/objects/info/alternates");
+        File objects = new File(Files.readString(alternates, StandardCharsets.UTF_8).trim());
+        assertThat(objects.getParentFile().getParentFile(), is(cacheDirectory.getAbsoluteFile()));
+        assertThat(PluginCompatTester.runCommand(checkout, "git", "count-objects").startsWith("0 objects"), is(true));
+    }
+
+    @Test
+    void fetchesEachTagOnce(@TempDir File tempDir) throws Exception {
+        File upstream = upstream(tempDir);
+        String gitUrl = upstream.getAbsolutePath();
+        GitObjectCache cache = new GitObjectCache(new File(tempDir, "cache"));
+        cache.checkout(gitUrl, "example-1.0", new File(tempDir, "first"));
+
+        // without the upstream repository, only what is in the cache can be checked out
+        FileUtils.deleteDirectory(upstream);
+        File second = new File(tempDir, "second");
+        cache.checkout(gitUrl, "example-1.0", second);
+        assertThat(Files.readString(second.toPath().resolve("README"), StandardCharsets.UTF_8), is("1.0\n"));
+    }
+
+    @Test
+    void fetchesConcurrently(@TempDir File tempDir) throws Exception {
+        File upstream = upstream(tempDir);
+        String gitUrl = upstream.getAbsolutePath();
+        // separate instances, as separate runs sharing the cache directory would have
+        File cacheDirectory = new File(tempDir, "cache");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                File checkout = new File(tempDir, "checkout-" + i);
+                String tag = i % 2 == 0 ? "example-1.0" : "example-2.0";
+                Callable<String> task = () -> {
+                    new GitObjectCache(cacheDirectory).checkout(gitUrl, tag, checkout);
+                    return Files.readString(checkout.toPath().resolve("README"), StandardCharsets.UTF_8);
+                };
+                futures.add(executor.submit(task));
+            }
+            for (int i = 0; i < 4; i++) {
+                assertThat(futures.get(i).get(), is(i % 2 == 0 ? "1.0\n" : "2.0\n"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A repository with tags {@code example-1.0} and {@code example-2.0}.
+     */
+    private static File upstream(File tempDir) throws Exception {
+        File upstream = new File(tempDir, "example-plugin");
+        Files.createDirectories(upstream.toPath());
+        PluginCompatTester.runCommand(upstream, "git", "init");
+        for (String version : List.of("1.0", "2.0")) {
+            Files.writeString(upstream.toPath().resolve("README"), version + "\n", StandardCharsets.UTF_8);
+            PluginCompatTester.runCommand(upstream, "git", "add", "README");
+            PluginCompatTester.runCommand(
+                    upstream,
+                    "git",
+                    "-c",
+                    "user.name=PCT",
+                    "-c",
+                    "user.email=pct@example.com",
+                    "commit",
+                    "-m",
+                    "Release " + version);
+            PluginCompatTester.runCommand(upstream, "git", "tag", "example-" + version);
+        }
+        return upstream;
+    }
+}
@@ -27,16 +27,21 @@
 package org.jenkins.tools.test;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import org.jenkins.tools.test.maven.MavenRunnerType;
 import org.jenkins.tools.test.model.PluginCompatTesterConfig;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -100,4 +105,82 @@ class PluginCompatTesterTest {
                 "plugin-compat-tester",
                 PluginCompatTester.getRepoNameFromGitUrl("git@host.xz:jenkinsci/plugin-compat-tester"));
     }
+
+    @Test
+    void reuseCheckout(@TempDir File tempDir) throws Exception {
+        File cloneDir = new File(tempDir, "example-plugin");
+        Files.createDirectories(cloneDir.toPath());
+        PluginCompatTester.runCommand(cloneDir, "git", "init");
+        Files.writeString(cloneDir.toPath().resolve("pom.xml"), "<project/>", StandardCharsets.UTF_8);
+        PluginCompatTester.runCommand(cloneDir, "git", "add", "pom.xml");
+        PluginCompatTester.runCommand(
+                cloneDir, "git", "-c", "user.name=PCT", "-c", "user.email=pct@example.com", "commit", "-m", "Initial");
+        String hash = PluginCompatTester.runCommand(cloneDir, "git", "rev-parse", "HEAD");
+
+        // what a previous test of the plugin leaves behind
+        Path classes = cloneDir.toPath().resolve("target/classes/Example.class");
+        Files.createDirectories(classes.getParent());
+        Files.writeString(classes, "compiled", StandardCharsets.UTF_8);
+        Files.writeString(
+                cloneDir.toPath().resolve("pom.xml"), "<project><!-- hook --></project>", StandardCharsets.UTF_8);
+        Files.writeString(cloneDir.toPath().resolve("untracked.log"), "log", StandardCharsets.UTF_8);
+
+        assertTrue(PluginCompatTester.reuseCheckout(cloneDir, hash, true));
+        assertEquals("<project/>", Files.readString(cloneDir.toPath().resolve("pom.xml"), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(cloneDir.toPath().resolve("untracked.log")));
+        assertTrue(Files.exists(classes));
+
+        assertTrue(PluginCompatTester.reuseCheckout(cloneDir, hash, false));
+        assertFalse(Files.exists(classes));
+
+        // a checkout of another commit is cloned again
+        assertFalse(PluginCompatTester.reuseCheckout(cloneDir, "0123456789abcdef0123456789abcdef01234567", false));
+        assertFalse(PluginCompatTester.reuseCheckout(new File(tempDir, "missing"), hash, false));
+    }
+
+    @Test
+    void embeddedMavenRequiresSingleWorker(@TempDir File tempDir) {
+        PluginCompatTesterConfig config =
+                new PluginCompatTesterConfig(new File("target", "megawar.war").getAbsoluteFile(), tempDir);
+        config.setMavenQueryRunner(MavenRunnerType.EMBEDDED);
+        config.setParallelism(2);
+        assertThrows(IllegalArgumentException.class, () -> new PluginCompatTester(config));
+        config.setParallelism(1);
+        new PluginCompatTester(config);
+        // builds never run embedded
+        config.setMavenRunner(MavenRunnerType.EMBEDDED);
+        assertThrows(IllegalArgumentException.class, () -> new PluginCompatTester(config));
+    }
+
+    @Test
+    void mergeMavenProperties() {
+        Map<String, String> configured = Map.of("test", "InjectedTest", "hpi-plugin.version", "3.40");
+        Map<String, String> context = new LinkedHashMap<>(configured);
+        assertEquals(configured, PluginCompatTester.mergeMavenProperties(configured, configured, context));
+
+        // a hook that still sets the properties of the configuration, under those the hooks set in the context
+        context.put("hpi-plugin.version", "3.50");
+        Map<String, String> reconfigured =
+                Map.of("test", "OtherTest", "hpi-plugin.version", "3.45", "jenkins-test-harness.version", "2000");
+        assertEquals(
+                Map.of("test", "OtherTest", "hpi-plugin.version", "3.50", "jenkins-test-harness.version", "2000"),
+                PluginCompatTester.mergeMavenProperties(configured, reconfigured, context));
+    }
+
+    @Test
+    void speculativeExecutionRequiresExternalMaven(@TempDir File tempDir) {
+        PluginCompatTesterConfig config =
+                new PluginCompatTesterConfig(new File("target", "megawar.war").getAbsoluteFile(), tempDir);
+        config.setSpeculative(true);
+        config.setDurationHistory(new File(tempDir, "durations.properties"));
+        config.setMavenRunner(MavenRunnerType.DAEMON);
+        assertThrows(IllegalArgumentException.class, () -> new PluginCompatTester(config));
+        config.setMavenRunner(MavenRunnerType.EXTERNAL);
+        config.setMavenQueryRunner(MavenRunnerType.DAEMON);
+        assertThrows(IllegalArgumentException.class, () -> new PluginCompatTester(config));
+        config.setMavenQueryRunner(MavenRunnerType.EMBEDDED);
+        assertThrows(IllegalArgumentException.class, () -> new PluginCompatTester(config));
+        config.setMavenQueryRunner(null);
+        new PluginCompatTester(config);
+    }
 }
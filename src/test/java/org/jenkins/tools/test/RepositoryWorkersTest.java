@@ -0,0 +1,107 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+
+class RepositoryWorkersTest {
+
+    @Test
+    void startsInOrder() throws Exception {
+        Map<String, List<Plugin>> repositories = repositories("git", "mailer", "text-finder");
+        List<String> started = Collections.synchronizedList(new ArrayList<>());
+        PluginCompatibilityTesterException result = RepositoryWorkers.run(repositories, 1, entry -> {
+            started.add(entry.getKey());
+            return null;
+        });
+        assertThat(result, nullValue());
+        assertThat(started, contains("git", "mailer", "text-finder"));
+    }
+
+    @Test
+    void failuresOfEachRepository() throws Exception {
+        Map<String, List<Plugin>> repositories = repositories("git", "mailer", "text-finder");
+        PluginCompatibilityTesterException result = RepositoryWorkers.run(repositories, 3, entry -> {
+            if (entry.getKey().equals("git")) {
+                return null;
+            }
+            // each repository is tested with its own plugins
+            return new PluginCompatibilityTesterException(
+                    entry.getValue().get(0).getPluginId() + " failed");
+        });
+        List<String> failures = new ArrayList<>();
+        failures.add(result.getMessage());
+        for (Throwable suppressed : result.getSuppressed()) {
+            failures.add(suppressed.getMessage());
+        }
+        Collections.sort(failures);
+        assertThat(failures, contains("mailer failed", "text-finder failed"));
+    }
+
+    @Test
+    void failFast() {
+        Map<String, List<Plugin>> repositories = repositories("git", "mailer", "text-finder", "workflow-api");
+        CountDownLatch running = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        AtomicBoolean lastStarted = new AtomicBoolean();
+        PluginCompatibilityTesterException e = assertThrows(
+                PluginCompatibilityTesterException.class,
+                () -> RepositoryWorkers.run(repositories, 2, entry -> {
+                    switch (entry.getKey()) {
+                        case "git":
+                            try {
+                                running.await();
+                            } catch (InterruptedException x) {
+                                throw new PluginCompatibilityTesterException("Interrupted", x);
+                            }
+                            throw new PluginCompatibilityTesterException("git failed");
+                        case "workflow-api":
+                            lastStarted.set(true);
+                            return null;
+                        default:
+                            running.countDown();
+                            try {
+                                new CountDownLatch(1).await(1, TimeUnit.MINUTES);
+                            } catch (InterruptedException x) {
+                                interrupted.set(true);
+                            }
+                            return null;
+                    }
+                }));
+        assertThat(e.getMessage(), is("git failed"));
+        assertThat(interrupted.get(), is(true));
+        assertThat(lastStarted.get(), is(false));
+    }
+
+    private static Map<String, List<Plugin>> repositories(String... pluginIds) {
+        Map<String, List<Plugin>> repositories = new LinkedHashMap<>();
+        for (String pluginId : pluginIds) {
+            repositories.put(
+                    pluginId,
+                    List.of(new Plugin.Builder()
+                            .withPluginId(pluginId)
+                            .withName(pluginId)
+                            .withVersion("1.0")
+                            .withGitUrl("https://github.com/jenkinsci/" + pluginId + "-plugin.git")
+                            .withTag(pluginId + "-1.0")
+                            .withGitHash("0123456789abcdef0123456789abcdef01234567")
+                            .withModule(":" + pluginId)
+                            .build()));
+        }
+        return repositories;
+    }
+}
@@ -0,0 +1,60 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ResultCacheTest {
+
+    @Test
+    void fingerprint() {
+        Map<String, String> components = new LinkedHashMap<>();
+        components.put("pluginId", "text-finder");
+        components.put("coreVersion", "2.401");
+        Map<String, String> reordered = new LinkedHashMap<>();
+        reordered.put("coreVersion", "2.401");
+        reordered.put("pluginId", "text-finder");
+        assertThat(ResultCache.fingerprint(components), is(ResultCache.fingerprint(reordered)));
+
+        reordered.put("coreVersion", "2.402");
+        assertThat(ResultCache.fingerprint(components), not(is(ResultCache.fingerprint(reordered))));
+    }
+
+    @Test
+    void passedInLaterRun(@TempDir File tempDir) throws Exception {
+        File cacheDir = new File(tempDir, "result-cache");
+        Map<String, String> components = Map.of("pluginId", "text-finder", "gitHash", "0123456789abcdef");
+        String fingerprint = ResultCache.fingerprint(components);
+
+        ResultCache first = new ResultCache(cacheDir);
+        assertThat(first.passed(fingerprint), is(false));
+        first.recordPassed(components);
+        assertThat(first.getMisses(), is(1));
+        assertThat(first.getRecorded(), is(1));
+        assertThat(
+                Files.readString(new File(cacheDir, fingerprint).toPath(), StandardCharsets.UTF_8),
+                is("gitHash=0123456789abcdef\npluginId=text-finder\n"));
+        assertThat(cacheDir.list().length, is(1));
+
+        ResultCache second = new ResultCache(cacheDir);
+        assertThat(second.passed(fingerprint), is(true));
+        assertThat(second.passed(ResultCache.fingerprint(Map.of("pluginId", "other"))), is(false));
+        assertThat(second.getHits(), is(1));
+        assertThat(second.getMisses(), is(1));
+    }
+
+    @Test
+    void digest(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "jenkins.war");
+        Files.writeString(file.toPath(), "abc", StandardCharsets.UTF_8);
+        assertThat(ResultCache.digest(file), is("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad"));
+    }
+}
@@ -0,0 +1,154 @@
+package org.jenkins.tools.test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+import org.jenkins.tools.test.exception.PluginSourcesUnavailableException;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.jenkins.tools.test.report.Phase;
+import org.jenkins.tools.test.report.PhaseTimer;
+import org.jenkins.tools.test.report.PhaseTiming;
+import org.jenkins.tools.test.report.PluginReport;
+import org.jenkins.tools.test.report.RunReport;
+import org.junit.jupiter.api.Test;
+
+class SpeculativeExecutionTest {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+
+    @Test
+    void threshold() {
+        assertThat(SpeculativeExecution.threshold(Duration.ofMinutes(1)), is(Duration.ofMinutes(6)));
+        assertThat(SpeculativeExecution.threshold(Duration.ofMinutes(10)), is(Duration.ofMinutes(20)));
+    }
+
+    @Test
+    void firstAttemptWithinThreshold() throws Exception {
+        SpeculativeExecution speculation = new SpeculativeExecution(() -> true, POLL_INTERVAL);
+        AtomicBoolean tested = new AtomicBoolean();
+        AtomicBoolean duplicated = new AtomicBoolean();
+        PluginReport report = report();
+        speculation.run(
+                report,
+                () -> {
+                    try (PhaseTimer timer = PhaseTimer.start(Phase.EXECUTION, "first")) {
+                        tested.set(true);
+                    }
+                },
+                Duration.ofHours(1),
+                () -> duplicated.set(true),
+                () -> duplicated.set(true));
+        assertThat(tested.get(), is(true));
+        assertThat(duplicated.get(), is(false));
+        assertThat(details(report), contains("first"));
+    }
+
+    @Test
+    void duplicateFinishesFirst() {
+        SpeculativeExecution speculation = new SpeculativeExecution(() -> true, POLL_INTERVAL);
+        AtomicBoolean stopped = new AtomicBoolean();
+        AtomicBoolean duplicateFirst = new AtomicBoolean();
+        PluginReport report = report();
+        PluginCompatibilityTesterException e = assertThrows(
+                PluginCompatibilityTesterException.class,
+                () -> speculation.run(
+                        report,
+                        () -> {
+                            try (PhaseTimer timer = PhaseTimer.start(Phase.EXECUTION, "first")) {
+                                hang(stopped);
+                            }
+                        },
+                        Duration.ZERO,
+                        () -> {
+                            try (PhaseTimer timer = PhaseTimer.start(Phase.EXECUTION, "duplicate")) {
+                                throw new PluginCompatibilityTesterException("tests failed");
+                            }
+                        },
+                        () -> duplicateFirst.set(true)));
+        assertThat(e.getMessage(), is("tests failed"));
+        assertThat(duplicateFirst.get(), is(true));
+        assertThat(stopped.get(), is(true));
+        // the interrupted first attempt is left out
+        assertThat(details(report), contains("duplicate"));
+    }
+
+    @Test
+    void duplicateNotCheckedOut() throws Exception {
+        SpeculativeExecution speculation = new SpeculativeExecution(() -> true, POLL_INTERVAL);
+        CountDownLatch duplicateFailed = new CountDownLatch(1);
+        AtomicBoolean duplicateFirst = new AtomicBoolean();
+        speculation.run(
+                report(),
+                () -> {
+                    await(duplicateFailed);
+                    // give the failure of the duplicate time to be seen first
+                    await(new CountDownLatch(1), Duration.ofMillis(200));
+                },
+                Duration.ZERO,
+                () -> {
+                    duplicateFailed.countDown();
+                    throw new PluginSourcesUnavailableException("clone failed");
+                },
+                () -> duplicateFirst.set(true));
+        assertThat(duplicateFirst.get(), is(false));
+    }
+
+    @Test
+    void noSpareCapacity() throws Exception {
+        SpeculativeExecution speculation = new SpeculativeExecution(() -> false, POLL_INTERVAL);
+        AtomicBoolean duplicated = new AtomicBoolean();
+        speculation.run(
+                report(),
+                () -> await(new CountDownLatch(1), Duration.ofMillis(100)),
+                Duration.ZERO,
+                () -> duplicated.set(true),
+                () -> duplicated.set(true));
+        assertThat(duplicated.get(), is(false));
+    }
+
+    private static void hang(AtomicBoolean stopped) throws PluginCompatibilityTesterException {
+        try {
+            await(new CountDownLatch(1));
+        } finally {
+            stopped.set(true);
+        }
+    }
+
+    private static void await(CountDownLatch latch) throws PluginCompatibilityTesterException {
+        await(latch, Duration.ofMinutes(1));
+    }
+
+    private static void await(CountDownLatch latch, Duration timeout) throws PluginCompatibilityTesterException {
+        try {
+            latch.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new PluginCompatibilityTesterException("interrupted", e);
+        }
+    }
+
+    private static List<String> details(PluginReport report) {
+        return report.getTimings().stream().map(PhaseTiming::getDetail).collect(Collectors.toList());
+    }
+
+    private static PluginReport report() {
+        return new RunReport("2.401")
+                .get(new Plugin.Builder()
+                        .withPluginId("text-finder")
+                        .withName("text-finder")
+                        .withVersion("1.0")
+                        .withGitUrl("https://github.com/jenkinsci/text-finder-plugin.git")
+                        .withTag("text-finder-1.0")
+                        .withGitHash("0123456789abcdef0123456789abcdef01234567")
+                        .withModule(":text-finder")
+                        .build());
+    }
+}
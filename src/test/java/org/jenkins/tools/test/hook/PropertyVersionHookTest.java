@@ -0,0 +1,57 @@
+package org.jenkins.tools.test.hook;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Map;
+import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+import org.jenkins.tools.test.model.hook.BeforeExecutionContext;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PropertyVersionHookTest {
+
+    @Test
+    void actionOnlyAppliesToThePlugin(@TempDir File tempDir) {
+        PluginCompatTesterConfig config = new PluginCompatTesterConfig(new File(tempDir, "jenkins.war"), tempDir);
+        config.setMavenProperties(Map.of("test", "InjectedTest"));
+        HpiPluginHook hook = new HpiPluginHook();
+
+        BeforeExecutionContext context = context("text-finder", config, tempDir);
+        hook.action(context);
+        assertThat(context.getMavenProperties().get(hook.getProperty()), is(hook.getDefaultMinimumVersion()));
+        assertThat(context.getMavenProperties().get("test"), is("InjectedTest"));
+
+        // neither the configuration nor the plugins tested concurrently or afterwards see the property
+        assertThat(config.getMavenProperties().get(hook.getProperty()), nullValue());
+        BeforeExecutionContext other = context("mailer", config, tempDir);
+        assertThat(other.getMavenProperties().get(hook.getProperty()), nullValue());
+    }
+
+    @Test
+    void minimumVersionFromConfiguration(@TempDir File tempDir) {
+        PluginCompatTesterConfig config = new PluginCompatTesterConfig(new File(tempDir, "jenkins.war"), tempDir);
+        config.setMavenProperties(Map.of("hpi-plugin.version", "3.99"));
+        HpiPluginHook hook = new HpiPluginHook();
+        BeforeExecutionContext context = context("text-finder", config, tempDir);
+        hook.action(context);
+        assertThat(context.getMavenProperties().get(hook.getProperty()), is("3.99"));
+    }
+
+    private static BeforeExecutionContext context(String pluginId, PluginCompatTesterConfig config, File tempDir) {
+        Plugin plugin = new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withName(pluginId)
+                .withVersion("1.0")
+                .withGitUrl("https://github.com/jenkinsci/" + pluginId + "-plugin.git")
+                .withTag(pluginId + "-1.0")
+                .withGitHash("0123456789abcdef0123456789abcdef01234567")
+                .withModule(":" + pluginId)
+                .build();
+        return new BeforeExecutionContext("2.401", plugin, config, tempDir, new ArrayList<>());
+    }
+}
@@ -0,0 +1,88 @@
+package org.jenkins.tools.test.logging;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BuildLogTest {
+
+    @Test
+    void compressed(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "logs/plugin/build.log.gz");
+        try (BuildLog log = BuildLog.create(file, true, 0)) {
+            write(file, "first invocation\n");
+            write(file, "second invocation\n");
+        }
+        try (InputStream is = new GZIPInputStream(Files.newInputStream(file.toPath()))) {
+            assertThat(
+                    new String(is.readAllBytes(), StandardCharsets.UTF_8), is("first invocation\nsecond invocation\n"));
+        }
+    }
+
+    @Test
+    void capped(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "build.log");
+        try (BuildLog log = BuildLog.create(file, false, 40)) {
+            write(file, "head 1\nhead 2\nhead 3\n");
+            for (int i = 0; i < 100; i++) {
+                write(file, "middle " + i + "\n");
+            }
+            write(file, "tail 1\ntail 2\n");
+        }
+        assertThat(
+                Files.readString(file.toPath(), StandardCharsets.UTF_8),
+                is("head 1\nhead 2\nhead 3\n"
+                        + "[PCT] 991 bytes omitted from this log as it exceeds the maximum log size\n"
+                        + "tail 1\ntail 2\n"));
+    }
+
+    @Test
+    void tailWrittenAsItComes(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "build.log");
+        File tailFile = new File(tempDir, "build.log.tail");
+        File previousTailFile = new File(tempDir, "build.log.tail.previous");
+        StringBuilder expectedTail = new StringBuilder();
+        try (BuildLog log = BuildLog.create(file, false, 200)) {
+            for (int i = 0; i < 1000; i++) {
+                String line = "line " + i + "\n";
+                write(file, line);
+                if (i >= 990) {
+                    expectedTail.append(line);
+                }
+            }
+            // were PCT to crash now, the end of the log would still be on disk
+            String onDisk = Files.readString(previousTailFile.toPath(), StandardCharsets.UTF_8)
+                    + Files.readString(tailFile.toPath(), StandardCharsets.UTF_8);
+            assertThat(onDisk.endsWith(expectedTail.toString()), is(true));
+            assertThat(onDisk.length() <= 200, is(true));
+        }
+        String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        assertThat(content.startsWith("line 0\n"), is(true));
+        assertThat(content.endsWith(expectedTail.toString()), is(true));
+        assertThat(content.length() <= 200 + 100, is(true));
+        assertThat(tailFile.exists(), is(false));
+        assertThat(previousTailFile.exists(), is(false));
+    }
+
+    @Test
+    void notCreated(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "build.log");
+        write(file, "first\n");
+        write(file, "second\n");
+        assertThat(Files.readString(file.toPath(), StandardCharsets.UTF_8), is("first\nsecond\n"));
+    }
+
+    private static void write(File file, String s) throws Exception {
+        try (OutputStream os = BuildLog.append(file)) {
+            os.write(s.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
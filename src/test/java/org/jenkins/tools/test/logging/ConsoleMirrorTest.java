@@ -0,0 +1,70 @@
+package org.jenkins.tools.test.logging;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class ConsoleMirrorTest {
+
+    @Test
+    void fullLosesNothing() {
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        // a console far slower than the build
+        PrintStream slow = new PrintStream(console, false, StandardCharsets.UTF_8) {
+            @Override
+            public void write(byte[] buf, int off, int len) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.write(buf, off, len);
+            }
+        };
+        ConsoleMirror mirror = new ConsoleMirror(ConsoleMode.FULL, 0, slow);
+        StringBuilder expected = new StringBuilder();
+        // well beyond the capacity of the queue
+        for (int i = 0; i < 1000; i++) {
+            byte[] line = ("[INFO] line " + i + "\n").getBytes(StandardCharsets.UTF_8);
+            mirror.write(line, 0, line.length);
+            expected.append("[INFO] line ").append(i).append('\n');
+        }
+        // the queued output is written out on close
+        mirror.close();
+        assertThat(console.toString(StandardCharsets.UTF_8), is(expected.toString()));
+    }
+
+    @Test
+    void summary() {
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        ConsoleMirror mirror =
+                new ConsoleMirror(ConsoleMode.SUMMARY, 0, new PrintStream(console, false, StandardCharsets.UTF_8));
+        byte[] output = ("[INFO] Building example 1.0\n[INFO] Compiling 3 source files\n[ERROR] Broken\n"
+                        + "[INFO] BUILD FAILURE")
+                .getBytes(StandardCharsets.UTF_8);
+        mirror.write(output, 0, output.length);
+        mirror.close();
+        assertThat(
+                console.toString(StandardCharsets.UTF_8),
+                is("[INFO] Building example 1.0\n[ERROR] Broken\n[INFO] BUILD FAILURE"));
+    }
+
+    @Test
+    void rateLimitOmitsOutput() {
+        ByteArrayOutputStream console = new ByteArrayOutputStream();
+        ConsoleMirror mirror =
+                new ConsoleMirror(ConsoleMode.FULL, 1024, new PrintStream(console, false, StandardCharsets.UTF_8));
+        byte[] line = ("x".repeat(99) + "\n").getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 1000; i++) {
+            mirror.write(line, 0, line.length);
+        }
+        mirror.close();
+        String written = console.toString(StandardCharsets.UTF_8);
+        assertThat(written, containsString("bytes of build output omitted from the console"));
+    }
+}
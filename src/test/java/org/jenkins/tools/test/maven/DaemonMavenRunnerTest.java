@@ -0,0 +1,27 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DaemonMavenRunnerTest {
+
+    @Test
+    void fallsBackWhenDaemonIsUnavailable(@TempDir File tempDir) throws Exception {
+        List<List<String>> invocations = new ArrayList<>();
+        MavenRunner fallback = (properties, baseDirectory, moduleName, buildLogFile, args) ->
+                invocations.add(List.of(args));
+        DaemonMavenRunner runner = new DaemonMavenRunner(new File(tempDir, "missing-mvnd"), null, List.of(), fallback);
+
+        assertThat(runner.isAvailable(), is(false));
+        runner.run(Map.of(), tempDir, null, null, "-q", "validate");
+        assertThat(invocations, contains(List.of("-q", "validate")));
+    }
+}
@@ -0,0 +1,129 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import org.jenkins.tools.test.exception.PomExecutionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EmbeddedMavenRunnerTest {
+
+    /**
+     * Stands in for Maven: like its logging backend, it reads the logging level once per class loader, and like Maven
+     * it sets the user properties as system properties and replaces the standard streams.
+     */
+    private static final String MAVEN_CLI = "package org.apache.maven.cli;\n"
+            + "import java.io.PrintStream;\n"
+            + "import java.nio.file.*;\n"
+            + "import java.util.*;\n"
+            + "public class MavenCli {\n"
+            + "  private static String level;\n"
+            + "  public int doMain(String[] args, String dir, PrintStream out, PrintStream err) throws Exception {\n"
+            + "    List<String> arguments = Arrays.asList(args);\n"
+            + "    if (level == null) {\n"
+            + "      level = arguments.contains(\"-q\") ? \"error\" : \"info\";\n"
+            + "    }\n"
+            + "    for (String argument : arguments) {\n"
+            + "      if (argument.startsWith(\"-D\")) {\n"
+            + "        String[] property = argument.substring(2).split(\"=\", 2);\n"
+            + "        System.setProperty(property[0], property[1]);\n"
+            + "      }\n"
+            + "    }\n"
+            + "    System.setProperty(\"org.slf4j.simpleLogger.defaultLogLevel\", level);\n"
+            + "    System.setOut(out);\n"
+            + "    System.setErr(err);\n"
+            + "    String log = args[arguments.indexOf(\"-l\") + 1];\n"
+            + "    Files.writeString(Paths.get(log), \"level=\" + level + \" dir=\" + dir + \"\\n\");\n"
+            + "    return arguments.contains(\"fail\") ? 1 : 0;\n"
+            + "  }\n"
+            + "}\n";
+
+    @Test
+    void runsInProcess(@TempDir File tempDir) throws Exception {
+        EmbeddedMavenRunner runner = new EmbeddedMavenRunner(mavenHome(tempDir), external());
+        File project = new File(tempDir, "project");
+        Files.createDirectories(project.toPath());
+        File buildLog = new File(tempDir, "build.log");
+
+        runner.run(Map.of("pct.example", "value"), project, null, buildLog, "-q", "help:evaluate");
+        runner.run(Map.of(), project, null, buildLog, "validate");
+        runner.run(Map.of(), project, null, buildLog, "-q", "help:evaluate");
+
+        // each verbosity has its own class loader, as Maven only reads the logging level once per class loader
+        String log = Files.readString(buildLog.toPath(), StandardCharsets.UTF_8);
+        String dir = " dir=" + project.getAbsolutePath() + "\n";
+        assertThat(log, is("level=error" + dir + "level=info" + dir + "level=error" + dir));
+        // nothing Maven set is left behind in the JVM
+        assertThat(System.getProperty("pct.example"), nullValue());
+        assertThat(System.getProperty("org.slf4j.simpleLogger.defaultLogLevel"), nullValue());
+        assertThat(System.getProperty("maven.multiModuleProjectDirectory"), nullValue());
+    }
+
+    @Test
+    void failure(@TempDir File tempDir) throws Exception {
+        EmbeddedMavenRunner runner = new EmbeddedMavenRunner(mavenHome(tempDir), external());
+        PomExecutionException e = assertThrows(
+                PomExecutionException.class, () -> runner.run(Map.of(), tempDir, null, null, "-q", "fail"));
+        assertThat(e.getMessage(), containsString("failed with exit status 1"));
+    }
+
+    @Test
+    void cancelled(@TempDir File tempDir) throws Exception {
+        EmbeddedMavenRunner runner = new EmbeddedMavenRunner(mavenHome(tempDir), external());
+        Thread.currentThread().interrupt();
+        try {
+            PomExecutionException e = assertThrows(
+                    PomExecutionException.class, () -> runner.run(Map.of(), tempDir, null, null, "validate"));
+            assertThat(e.getMessage(), containsString("was not started"));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private static ExternalMavenRunner external() {
+        return ExternalMavenRunner.forExecutable("mvn", null, List.of());
+    }
+
+    /**
+     * A Maven installation containing the stand-in for Maven.
+     *
+     * @return its {@code mvn} executable
+     */
+    private static File mavenHome(File tempDir) throws Exception {
+        Path home = tempDir.toPath().resolve("maven");
+        Path source = tempDir.toPath().resolve("src/org/apache/maven/cli/MavenCli.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, MAVEN_CLI, StandardCharsets.UTF_8);
+        Path classes = tempDir.toPath().resolve("classes");
+        Files.createDirectories(classes);
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertThat(compiler.run(null, null, null, "-d", classes.toString(), source.toString()), is(0));
+
+        Files.createDirectories(home.resolve("lib"));
+        try (JarOutputStream jos =
+                new JarOutputStream(new FileOutputStream(home.resolve("lib/maven-embedder.jar").toFile()))) {
+            jos.putNextEntry(new JarEntry("org/apache/maven/cli/MavenCli.class"));
+            jos.write(Files.readAllBytes(classes.resolve("org/apache/maven/cli/MavenCli.class")));
+            jos.closeEntry();
+        }
+        Path mvn = home.resolve("bin/mvn");
+        Files.createDirectories(mvn.getParent());
+        Files.writeString(mvn, "#!/bin/sh\n", StandardCharsets.UTF_8);
+        return mvn.toFile();
+    }
+}
@@ -0,0 +1,138 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExpressionEvaluatorTest {
+
+    private static final String EFFECTIVE_POM = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<!-- Effective POM for project 'org.jenkins-ci.plugins:example:pom:1.2-999999-SNAPSHOT' -->\n"
+            + "<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n"
+            + "  <modelVersion>4.0.0</modelVersion>\n"
+            + "  <groupId>org.jenkins-ci.plugins</groupId>\n"
+            + "  <artifactId>example</artifactId>\n"
+            + "  <version>1.2-999999-SNAPSHOT</version>\n"
+            + "  <packaging>pom</packaging>\n"
+            + "  <modules>\n"
+            + "    <module>example-api</module>\n"
+            + "    <module>example-impl</module>\n"
+            + "  </modules>\n"
+            + "  <scm>\n"
+            + "    <connection>scm:git:https://github.com/jenkinsci/example-plugin.git</connection>\n"
+            + "  </scm>\n"
+            + "  <properties>\n"
+            + "    <jenkins-test-harness.version>2386.v82359624ea_05</jenkins-test-harness.version>\n"
+            + "  </properties>\n"
+            + "</project>\n";
+
+    @Test
+    void evaluatesAllExpressionsWithOneInvocation(@TempDir File tempDir) throws Exception {
+        List<List<String>> invocations = new ArrayList<>();
+        ExpressionEvaluator evaluator = new ExpressionEvaluator(tempDir, null, runner(tempDir, invocations, Map.of()));
+
+        Map<String, String> result = evaluator.evaluate(List.of(
+                "project.modules", "project.version", "project.scm.connection", "jenkins-test-harness.version"));
+
+        assertThat(invocations, contains(List.of("-q", "-N", "help:effective-pom")));
+        assertThat(ExpressionEvaluator.toList(result.get("project.modules")), contains("example-api", "example-impl"));
+        assertThat(result.get("project.version"), is("1.2-999999-SNAPSHOT"));
+        assertThat(result.get("project.scm.connection"), is("scm:git:https://github.com/jenkinsci/example-plugin.git"));
+        assertThat(result.get("jenkins-test-harness.version"), is("2386.v82359624ea_05"));
+        // The effective POM is not left behind in the checkout
+        try (var files = Files.list(tempDir.toPath())) {
+            assertThat(files.count(), is(0L));
+        }
+    }
+
+    @Test
+    void fallsBackToHelpEvaluate(@TempDir File tempDir) throws Exception {
+        List<List<String>> invocations = new ArrayList<>();
+        Map<String, String> outside = Map.of(
+                "settings.localRepository", "/home/jenkins/.m2/repository",
+                "session.executionRootDirectory", tempDir.getAbsolutePath());
+        ExpressionEvaluator evaluator =
+                new ExpressionEvaluator(tempDir, "example-api", runner(tempDir, invocations, outside));
+
+        Map<String, String> result = evaluator.evaluate(List.of(
+                "project.version", "settings.localRepository", "session.executionRootDirectory", "hpi-plugin.version"));
+
+        assertThat(
+                invocations,
+                contains(
+                        List.of("-q", "help:effective-pom"),
+                        List.of("-q", "help:evaluate"),
+                        List.of("-q", "help:evaluate"),
+                        List.of("-q", "help:evaluate")));
+        assertThat(result.get("project.version"), is("1.2-999999-SNAPSHOT"));
+        assertThat(result.get("settings.localRepository"), is("/home/jenkins/.m2/repository"));
+        assertThat(result.get("session.executionRootDirectory"), is(tempDir.getAbsolutePath()));
+        assertThat(result.get("hpi-plugin.version"), nullValue());
+    }
+
+    @Test
+    void userPropertiesOverrideTheProject(@TempDir File tempDir) throws Exception {
+        PluginCompatTesterConfig config = new PluginCompatTesterConfig(new File(tempDir, "jenkins.war"), tempDir);
+        config.setMavenProperties(Map.of("jenkins-test-harness.version", "2244.2247.ve6b_a_8191b_95f"));
+        config.setMavenArgs(List.of("-Djenkins-test-harness.version=2270.2272.vd890c8c611b_3", "-D", "skipTests"));
+        Map<String, String> userProperties = MavenRunners.userProperties(config);
+        assertThat(userProperties.get("jenkins-test-harness.version"), is("2270.2272.vd890c8c611b_3"));
+        assertThat(userProperties.get("skipTests"), is("true"));
+
+        List<List<String>> invocations = new ArrayList<>();
+        ExpressionEvaluator evaluator =
+                new ExpressionEvaluator(tempDir, null, runner(tempDir, invocations, Map.of()), userProperties);
+        Map<String, String> result = evaluator.evaluate(List.of("jenkins-test-harness.version", "skipTests"));
+        // the -D override wins over the property of the project, without running Maven
+        assertThat(result.get("jenkins-test-harness.version"), is("2270.2272.vd890c8c611b_3"));
+        assertThat(result.get("skipTests"), is("true"));
+        assertThat(invocations, empty());
+
+        result = evaluator.evaluate(List.of("project.version", "jenkins-test-harness.version"));
+        assertThat(result.get("project.version"), is("1.2-999999-SNAPSHOT"));
+        assertThat(result.get("jenkins-test-harness.version"), is("2270.2272.vd890c8c611b_3"));
+        assertThat(invocations, contains(List.of("-q", "-N", "help:effective-pom")));
+    }
+
+    /**
+     * A runner producing the effective POM above, and evaluating the given expressions that are not in it.
+     */
+    private static MavenRunner runner(File tempDir, List<List<String>> invocations, Map<String, String> outside) {
+        return (properties, baseDirectory, moduleName, buildLogFile, args) -> {
+            invocations.add(List.of(args));
+            Path output = Path.of(properties.get("output"));
+            assertThat(output.startsWith(tempDir.toPath()), is(false));
+            String content = EFFECTIVE_POM;
+            if (args[args.length - 1].equals("help:evaluate")) {
+                content = outside.getOrDefault(properties.get("expression"), "null object or invalid expression");
+            }
+            try {
+                Files.writeString(output, content, StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    @Test
+    void toList() {
+        assertThat(ExpressionEvaluator.toList(null), empty());
+        assertThat(ExpressionEvaluator.toList(""), empty());
+        assertThat(ExpressionEvaluator.toList("a\nb\n"), contains("a", "b"));
+    }
+}
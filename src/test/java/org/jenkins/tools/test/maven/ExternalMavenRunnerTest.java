@@ -0,0 +1,36 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.jenkins.tools.test.logging.ConsoleMirror;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ExternalMavenRunnerTest {
+
+    @Test
+    void gobblerCopiesOutputToBuildLog(@TempDir File tempDir) throws Exception {
+        StringBuilder output = new StringBuilder("[INFO] existing\n");
+        // longer than the buffer of the gobbler, with a line spanning two reads and no final newline
+        for (int i = 0; i < 10_000; i++) {
+            output.append("[INFO] line ").append(i).append('\n');
+        }
+        output.append("x".repeat(100_000));
+        File buildLog = new File(tempDir, "build.log");
+        Files.writeString(buildLog.toPath(), "previous run\n", StandardCharsets.UTF_8);
+
+        ExternalMavenRunner.MavenGobbler gobbler = new ExternalMavenRunner.MavenGobbler(
+                new ByteArrayInputStream(output.toString().getBytes(StandardCharsets.UTF_8)),
+                buildLog,
+                ConsoleMirror.get());
+        gobbler.start();
+        gobbler.join();
+
+        assertThat(Files.readString(buildLog.toPath(), StandardCharsets.UTF_8), is("previous run\n" + output));
+    }
+}
@@ -0,0 +1,64 @@
+package org.jenkins.tools.test.maven;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProjectFactsTest {
+
+    @Test
+    void memoizesUntilPomChanges(@TempDir File tempDir) throws Exception {
+        Path pom = tempDir.toPath().resolve("pom.xml");
+        Files.writeString(pom, "<project/>", StandardCharsets.UTF_8);
+        AtomicInteger invocations = new AtomicInteger();
+        MavenRunner runner = (properties, baseDirectory, moduleName, buildLogFile, args) -> {
+            invocations.incrementAndGet();
+            try {
+                if (args[args.length - 1].equals("help:evaluate")) {
+                    Files.writeString(
+                            Path.of(properties.get("output")),
+                            "null object or invalid expression",
+                            StandardCharsets.UTF_8);
+                    return;
+                }
+                String version = Files.readString(pom, StandardCharsets.UTF_8).contains("2.0") ? "2.0" : "1.0";
+                Files.writeString(
+                        Path.of(properties.get("output")),
+                        "<project><modelVersion>4.0.0</modelVersion><properties><example.version>" + version
+                                + "</example.version></properties></project>",
+                        StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        ProjectFacts facts = new ProjectFacts(tempDir, null, runner);
+
+        assertThat(facts.getString("example.version"), is("1.0"));
+        assertThat(facts.get(List.of("example.version", "missing.version")).get("missing.version"), nullValue());
+        assertThat(facts.getString("missing.version"), nullValue());
+        assertThat(facts.getString("example.version"), is("1.0"));
+        // the effective POM, then the effective POM and help:evaluate for the missing expression
+        assertThat(invocations.get(), is(3));
+
+        Files.writeString(pom, "<project><!-- 2.0 --></project>", StandardCharsets.UTF_8);
+        assertThat(facts.getString("example.version"), is("2.0"));
+        assertThat(invocations.get(), is(4));
+
+        // POMs are not read to find out whether they changed, so a rewrite is detected by its modification time
+        Files.setLastModifiedTime(pom, FileTime.fromMillis(0));
+        assertThat(facts.getString("example.version"), is("2.0"));
+        assertThat(invocations.get(), is(5));
+    }
+}
@@ -0,0 +1,45 @@
+package org.jenkins.tools.test.metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class PctMetricsTest {
+
+    @Test
+    void openMetrics() {
+        PctMetrics metrics = new PctMetrics();
+        metrics.runStarted(3);
+        metrics.pluginCompleted(false);
+        metrics.pluginCompleted(true);
+        metrics.mavenInvoked(new String[] {"-Dfoo=bar", "clean", "verify"}, Duration.ofSeconds(7));
+        metrics.mavenInvoked(new String[] {"clean", "verify"}, Duration.ofSeconds(40));
+        metrics.cloned(Duration.ofMillis(1500));
+
+        String text = metrics.toOpenMetrics();
+        assertThat(text, containsString("# TYPE pct_plugins_completed counter\n"));
+        assertThat(text, containsString("pct_plugins_completed_total 2\n"));
+        assertThat(text, containsString("pct_plugins_failed_total 1\n"));
+        assertThat(text, containsString("pct_plugins_remaining 1.0\n"));
+        assertThat(text, containsString("pct_child_processes 0.0\n"));
+        String maven = "pct_maven_invocation_duration_seconds";
+        assertThat(text, containsString(maven + "_bucket{goals=\"clean verify\",le=\"5.0\"} 0\n"));
+        assertThat(text, containsString(maven + "_bucket{goals=\"clean verify\",le=\"10.0\"} 1\n"));
+        assertThat(text, containsString(maven + "_bucket{goals=\"clean verify\",le=\"+Inf\"} 2\n"));
+        assertThat(text, containsString(maven + "_count{goals=\"clean verify\"} 2\n"));
+        assertThat(text, containsString(maven + "_sum{goals=\"clean verify\"} 47.0\n"));
+        assertThat(text, containsString("pct_clone_duration_seconds_bucket{le=\"2.0\"} 1\n"));
+        assertThat(text, containsString("pct_clone_duration_seconds_sum 1.500\n"));
+        assertThat(text, endsWith("# EOF\n"));
+    }
+
+    @Test
+    void etaBeforeAnyPluginCompleted() {
+        PctMetrics metrics = new PctMetrics();
+        metrics.runStarted(3);
+        assertThat(metrics.toOpenMetrics(), containsString("pct_eta_seconds NaN\n"));
+    }
+}
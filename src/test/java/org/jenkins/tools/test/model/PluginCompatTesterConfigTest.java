@@ -0,0 +1,99 @@
+package org.jenkins.tools.test.model;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jenkins.tools.test.maven.MavenRunnerType;
+import org.jenkins.tools.test.util.Shard;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PluginCompatTesterConfigTest {
+
+    @Test
+    void copyIsIndependent(@TempDir File tempDir) {
+        PluginCompatTesterConfig config = new PluginCompatTesterConfig(new File(tempDir, "jenkins.war"), tempDir);
+        config.setIncludePlugins(Set.of("text-finder"));
+        config.setMavenProperties(Map.of("test", "InjectedTest"));
+        config.setMavenArgs(List.of("-Dmaven.test.failure.ignore=false"));
+        config.setParallelism(4);
+        config.setMavenRunner(MavenRunnerType.DAEMON);
+        config.setShard(new Shard(2, 3));
+        config.setSpeculative(true);
+
+        PluginCompatTesterConfig copy = new PluginCompatTesterConfig(config);
+        assertThat(copy.getWar(), is(config.getWar()));
+        assertThat(copy.getWorkingDir(), is(config.getWorkingDir()));
+        assertThat(copy.getIncludePlugins(), is(Set.of("text-finder")));
+        assertThat(copy.getMavenProperties(), is(Map.of("test", "InjectedTest")));
+        assertThat(copy.getMavenArgs(), is(List.of("-Dmaven.test.failure.ignore=false")));
+        assertThat(copy.getParallelism(), is(4));
+        assertThat(copy.getMavenRunner(), is(MavenRunnerType.DAEMON));
+        assertThat(copy.getShard().toString(), is("2/3"));
+        assertThat(copy.isSpeculative(), is(true));
+
+        copy.setMavenProperties(Map.of("test", "OtherTest"));
+        copy.setParallelism(1);
+        assertThat(config.getMavenProperties(), is(Map.of("test", "InjectedTest")));
+        assertThat(config.getParallelism(), is(4));
+    }
+
+    @Test
+    void copiesEveryField(@TempDir File tempDir) throws Exception {
+        PluginCompatTesterConfig config = new PluginCompatTesterConfig(new File(tempDir, "jenkins.war"), tempDir);
+        List<Field> fields = new ArrayList<>();
+        for (Field field : PluginCompatTesterConfig.class.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            fields.add(field);
+            if (!Modifier.isFinal(field.getModifiers())) {
+                Object sample = sample(field);
+                assertThat(field.getName(), sample, not(field.get(config)));
+                field.set(config, sample);
+            }
+        }
+
+        PluginCompatTesterConfig copy = new PluginCompatTesterConfig(config);
+        for (Field field : fields) {
+            assertThat(field.getName(), field.get(copy), is(field.get(config)));
+        }
+    }
+
+    /**
+     * A value for the field that differs from its default, so that a field the copy constructor leaves out is noticed.
+     */
+    private static Object sample(Field field) {
+        Class<?> type = field.getType();
+        if (type == boolean.class) {
+            return true;
+        } else if (type == int.class) {
+            return 7;
+        } else if (type == String.class) {
+            return "sample";
+        } else if (type == File.class) {
+            return new File("sample");
+        } else if (type == Set.class) {
+            return Set.of("sample");
+        } else if (type == List.class) {
+            return List.of("sample");
+        } else if (type == Map.class) {
+            return Map.of("sample", "value");
+        } else if (type == Shard.class) {
+            return new Shard(2, 3);
+        } else if (type.isEnum()) {
+            Object[] constants = type.getEnumConstants();
+            return constants[constants.length - 1];
+        }
+        throw new AssertionError("No sample value for " + field.getName() + " of type " + type.getName());
+    }
+}
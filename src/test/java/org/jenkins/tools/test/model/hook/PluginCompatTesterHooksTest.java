@@ -0,0 +1,122 @@
+package org.jenkins.tools.test.model.hook;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.jenkins.tools.test.exception.PluginCompatibilityTesterException;
+import org.jenkins.tools.test.model.PluginCompatTesterConfig;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.jenkins.tools.test.util.ServiceHelper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PluginCompatTesterHooksTest {
+
+    public static class PassingHook extends PluginCompatTesterHookBeforeExecution {
+        @Override
+        public void action(@NonNull BeforeExecutionContext context) {}
+    }
+
+    public static class FailingHook extends PluginCompatTesterHookBeforeExecution {
+        @Override
+        public void action(@NonNull BeforeExecutionContext context) throws PluginCompatibilityTesterException {
+            throw new PluginCompatibilityTesterException("Broken hook");
+        }
+    }
+
+    public static class SkippedHook extends PluginCompatTesterHookBeforeExecution {
+        @Override
+        public boolean check(@NonNull BeforeExecutionContext context) {
+            return false;
+        }
+
+        @Override
+        public void action(@NonNull BeforeExecutionContext context) {
+            throw new AssertionError("Should not run");
+        }
+    }
+
+    @Test
+    void activeHooksExcludeExcludedHooks() {
+        PluginCompatTesterHooks hooks = hooks(Set.of(FailingHook.class.getName()));
+        assertThat(hooks.getActiveHooks(), contains(PassingHook.class.getName(), SkippedHook.class.getName()));
+    }
+
+    @Test
+    void eventsRecordedForFailingHooks(@TempDir File tempDir) throws IOException {
+        PluginCompatTesterHooks hooks = hooks(Set.of());
+        Path dump = tempDir.toPath().resolve("hooks.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("org.jenkins.tools.test.Hook").withThreshold(Duration.ZERO);
+            recording.start();
+            PluginCompatibilityTesterException e = assertThrows(
+                    PluginCompatibilityTesterException.class, () -> hooks.runBeforeExecution(context(tempDir)));
+            assertThat(e.getMessage(), is("Broken hook"));
+            recording.stop();
+            recording.dump(dump);
+        }
+        List<String> events = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+            String hook = event.getString("hook");
+            events.add(hook.substring(hook.lastIndexOf('$') + 1) + " " + event.getString("step") + " "
+                    + event.getBoolean("applies"));
+            if (hook.equals(FailingHook.class.getName()) && event.getString("step").equals("action")) {
+                assertThat(event.getString("failure"), containsString("Broken hook"));
+            } else {
+                assertThat(event.getString("failure"), nullValue());
+            }
+            assertThat(event.getString("plugin"), is("text-finder"));
+            assertThat(event.getString("stage"), is("EXECUTION"));
+        }
+        assertThat(
+                events.stream().sorted().collect(Collectors.toList()),
+                contains(
+                        "FailingHook action false",
+                        "FailingHook check true",
+                        "PassingHook action false",
+                        "PassingHook check true",
+                        "SkippedHook check false"));
+    }
+
+    private static PluginCompatTesterHooks hooks(Set<String> excludeHooks) {
+        List<PluginCompatTesterHookBeforeExecution> hooks =
+                List.of(new PassingHook(), new SkippedHook(), new FailingHook());
+        ServiceHelper serviceHelper = new ServiceHelper(Set.of()) {
+            @Override
+            public <T> List<T> loadServices(Class<T> cls) {
+                return hooks.stream().filter(cls::isInstance).map(cls::cast).collect(Collectors.toList());
+            }
+        };
+        return new PluginCompatTesterHooks(serviceHelper, excludeHooks);
+    }
+
+    private static BeforeExecutionContext context(File tempDir) {
+        PluginCompatTesterConfig config = new PluginCompatTesterConfig(new File(tempDir, "jenkins.war"), tempDir);
+        Plugin plugin = new Plugin.Builder()
+                .withPluginId("text-finder")
+                .withName("text-finder")
+                .withVersion("1.0")
+                .withGitUrl("https://github.com/jenkinsci/text-finder-plugin.git")
+                .withTag("text-finder-1.0")
+                .withGitHash("0123456789abcdef0123456789abcdef01234567")
+                .withModule(":text-finder")
+                .build();
+        return new BeforeExecutionContext("2.401", plugin, config, tempDir, new ArrayList<>());
+    }
+}
@@ -0,0 +1,84 @@
+package org.jenkins.tools.test.report;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+class ProcessSamplerTest {
+
+    @Test
+    void parseStat() {
+        String stat = "4242 (java (pct) x) S 1 4242 4242 0 -1 4194560 52139 0 3 0 1234 56 0 0 20 0 42 0 3300 0 0";
+        long[] times = ProcessSampler.parseStat(stat);
+        assertThat(times[0], is(1234L));
+        assertThat(times[1], is(56L));
+    }
+
+    @Test
+    void parseFields() {
+        Map<String, Long> status =
+                ProcessSampler.parseFields("Name:\tjava\nVmHWM:\t  524288 kB\nVmRSS:\t  262144 kB\nThreads:\t42\n");
+        assertThat(status.get("VmHWM"), is(524288L));
+        assertThat(status.get("VmRSS"), is(262144L));
+        assertThat(status.get("Threads"), is(42L));
+        assertThat(status.containsKey("Name"), is(false));
+
+        Map<String, Long> io = ProcessSampler.parseFields("rchar: 100\nread_bytes: 4096\nwrite_bytes: 8192\n");
+        assertThat(io.get("read_bytes"), is(4096L));
+        assertThat(io.get("write_bytes"), is(8192L));
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    void sampledIntoReport() throws Exception {
+        RunReport runReport = new RunReport("2.401");
+        PluginReport report = runReport.get(new Plugin.Builder()
+                .withPluginId("text-finder")
+                .withName("text-finder")
+                .withVersion("1.0")
+                .withGitUrl("https://github.com/jenkinsci/text-finder-plugin.git")
+                .withTag("text-finder-1.0")
+                .withModule(":text-finder")
+                .build());
+        Process p = new ProcessBuilder("sh", "-c", "sleep 1 & sleep 1; wait").start();
+        int exitStatus;
+        try (PhaseTimer.Scope scope = PhaseTimer.report(report)) {
+            exitStatus = PhaseTimer.waitFor(p, new ProcessSampler(p, "sleep"));
+        }
+        assertThat(exitStatus, is(0));
+
+        List<ProcessUsage> processes = report.getProcesses();
+        assertThat(processes, hasSize(1));
+        ProcessUsage usage = processes.get(0);
+        assertThat(usage.getCommand(), is("sleep"));
+        assertThat(usage.getProcesses(), is(3));
+        assertThat(usage.getPeakRss(), greaterThan(0L));
+        assertThat(usage.getPeakThreads(), is(3));
+    }
+
+    @Test
+    void format() {
+        ProcessUsage usage = new ProcessUsage(
+                "verify",
+                Duration.ofMillis(12340),
+                Duration.ofMillis(560),
+                (long) (1.5 * 1024 * 1024 * 1024),
+                512,
+                10 * 1024 * 1024,
+                85,
+                3);
+        assertThat(
+                usage.toString(),
+                is("CPU 12.3 s user, 0.6 s system; peak RSS 1.5 GiB; 512 B read, 10.0 MiB written;"
+                        + " peak 85 threads in 3 processes"));
+    }
+}
@@ -0,0 +1,150 @@
+package org.jenkins.tools.test.report;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RunJournalTest {
+
+    @Test
+    void resume(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, RunJournal.FILE_NAME);
+        RunReport first = new RunReport("2.401");
+        PluginReport passed = first.get(plugin("text-finder"));
+        passed.add(new PhaseTiming(
+                Phase.EXECUTION,
+                "surefire:test\twith a tab",
+                Instant.parse("2023-05-01T10:15:30Z"),
+                Duration.ofSeconds(42),
+                Duration.ofSeconds(84)));
+        passed.setLog(new File(tempDir, "logs/text-finder.log"));
+        passed.succeeded();
+        PluginReport failed = first.get(plugin("other"));
+        failed.failed(new IllegalStateException("Tests failed:\nFooTest"));
+        try (RunJournal journal = RunJournal.open(file, "2.401 jenkins.war", false)) {
+            journal.record(passed);
+            journal.record(failed);
+        }
+        // interrupted while recording a third plugin
+        Files.writeString(file.toPath(), "third\t1.0\tSUCC", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        RunReport second = new RunReport("2.401");
+        try (RunJournal journal = RunJournal.open(file, "2.401 jenkins.war", true)) {
+            PluginReport restored = second.get(plugin("text-finder"));
+            assertThat(journal.restore(restored), is(true));
+            assertThat(restored.getOutcome(), is(PluginReport.Outcome.SUCCESS));
+            assertThat(restored.getMessage(), nullValue());
+            assertThat(restored.getLog(), is(new File(tempDir, "logs/text-finder.log")));
+            List<PhaseTiming> timings = restored.getTimings();
+            assertThat(timings, hasSize(1));
+            assertThat(timings.get(0).getPhase(), is(Phase.EXECUTION));
+            assertThat(timings.get(0).getDetail(), is("surefire:test\twith a tab"));
+            assertThat(timings.get(0).getStart(), is(Instant.parse("2023-05-01T10:15:30Z")));
+            assertThat(timings.get(0).getWallTime(), is(Duration.ofSeconds(42)));
+            assertThat(timings.get(0).getCpuTime(), is(Duration.ofSeconds(84)));
+
+            PluginReport restoredFailure = second.get(plugin("other"));
+            assertThat(journal.restore(restoredFailure), is(true));
+            assertThat(restoredFailure.getOutcome(), is(PluginReport.Outcome.FAILURE));
+            assertThat(restoredFailure.getMessage(), is("Tests failed:\nFooTest"));
+            assertThat(restoredFailure.getLog(), nullValue());
+
+            PluginReport third = second.get(plugin("third"));
+            assertThat(journal.restore(third), is(false));
+            third.succeeded();
+            journal.record(third);
+        }
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertThat(lines, hasSize(4));
+        assertThat(lines.get(3), is("third\t1.0\tSUCCESS\t\\N\t\\N"));
+
+        // starting anew discards the plugins recorded so far
+        try (RunJournal journal = RunJournal.open(file, "2.401 jenkins.war", false)) {
+            assertThat(journal.restore(new RunReport("2.401").get(plugin("text-finder"))), is(false));
+        }
+        assertThat(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8), hasSize(0));
+    }
+
+    @Test
+    void identifiesRunOnlyWhenRecording(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, RunJournal.FILE_NAME);
+        Supplier<String> runId = () -> {
+            throw new AssertionError("Should not identify the run");
+        };
+        try (RunJournal journal = RunJournal.open(file, runId, false)) {
+            assertThat(journal.restore(new RunReport("2.401").get(plugin("text-finder"))), is(false));
+        }
+        assertThat(Files.size(file.toPath()), is(0L));
+        try (RunJournal journal = RunJournal.open(file, "2.402 jenkins.war", true)) {
+            PluginReport report = new RunReport("2.401").get(plugin("text-finder"));
+            report.succeeded();
+            journal.record(report);
+        }
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertThat(lines.get(0), is("# pct journal 2.402 jenkins.war"));
+    }
+
+    @Test
+    void skipsMalformedLines(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, RunJournal.FILE_NAME);
+        try (RunJournal journal = RunJournal.open(file, "2.401 jenkins.war", false)) {
+            PluginReport report = new RunReport("2.401").get(plugin("text-finder"));
+            report.succeeded();
+            journal.record(report);
+        }
+        // a line cut off and then terminated, one with a garbled timing, and a last line cut off mid-field
+        Files.writeString(
+                file.toPath(),
+                "other\t1.0\nbroken\t1.0\tSUCCESS\t\\N\t\\N\texecution\t\\N\tyesterday\t1\t1\nthird\t1.",
+                StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        RunReport second = new RunReport("2.401");
+        try (RunJournal journal = RunJournal.open(file, "2.401 jenkins.war", true)) {
+            assertThat(journal.restore(second.get(plugin("text-finder"))), is(true));
+            assertThat(journal.restore(second.get(plugin("other"))), is(false));
+            PluginReport broken = second.get(plugin("broken"));
+            assertThat(journal.restore(broken), is(false));
+            assertThat(broken.getTimings(), hasSize(0));
+            assertThat(journal.restore(second.get(plugin("third"))), is(false));
+        }
+        assertThat(Files.readAllLines(file.toPath(), StandardCharsets.UTF_8), hasSize(4));
+    }
+
+    @Test
+    void differentRun(@TempDir File tempDir) {
+        File file = new File(tempDir, RunJournal.FILE_NAME);
+        try (RunJournal journal = RunJournal.open(file, "2.401 jenkins.war", false)) {
+            PluginReport report = new RunReport("2.401").get(plugin("text-finder"));
+            report.succeeded();
+            journal.record(report);
+        }
+        assertThrows(IllegalArgumentException.class, () -> RunJournal.open(file, "2.402 jenkins.war", true));
+    }
+
+    private static Plugin plugin(String pluginId) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withName(pluginId)
+                .withVersion("1.0")
+                .withGitUrl("https://github.com/jenkinsci/" + pluginId + "-plugin.git")
+                .withTag(pluginId + "-1.0")
+                .withGitHash("0123456789abcdef0123456789abcdef01234567")
+                .withModule(":" + pluginId)
+                .build();
+    }
+}
@@ -0,0 +1,75 @@
+package org.jenkins.tools.test.report;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+
+import java.io.StringWriter;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+
+class RunReportTest {
+
+    @Test
+    void nestedPhases() throws Exception {
+        RunReport runReport = new RunReport("2.401");
+        PluginReport report = runReport.get(plugin("text-finder"));
+        try (PhaseTimer.Scope scope = PhaseTimer.report(report)) {
+            try (PhaseTimer outer = PhaseTimer.start(Phase.BEFORE_COMPILATION, null)) {
+                try (PhaseTimer inner = PhaseTimer.start(Phase.EXPRESSION_EVALUATION, "project.version")) {
+                    Thread.sleep(10);
+                }
+            }
+            report.succeeded();
+        }
+        // not recorded, as the scope is closed
+        try (PhaseTimer timer = PhaseTimer.start(Phase.EXECUTION, null)) {
+            Thread.sleep(1);
+        }
+
+        List<PhaseTiming> timings = report.getTimings();
+        assertThat(
+                timings.stream().map(PhaseTiming::getPhase).collect(Collectors.toList()),
+                is(List.of(Phase.EXPRESSION_EVALUATION, Phase.BEFORE_COMPILATION)));
+        assertThat(timings.get(0).getDetail(), is("project.version"));
+        assertThat(timings.get(0).getWallTime().compareTo(Duration.ofMillis(10)) >= 0, is(true));
+        assertThat(timings.get(1).getWallTime().compareTo(timings.get(0).getWallTime()) >= 0, is(true));
+        assertThat(report.getOutcome(), is(PluginReport.Outcome.SUCCESS));
+    }
+
+    @Test
+    void json() throws Exception {
+        RunReport runReport = new RunReport("2.401");
+        PluginReport failed = runReport.get(plugin("text-finder"));
+        try (PhaseTimer timer = PhaseTimer.start(failed, Phase.CHECKOUT, null)) {
+            failed.failed(new IllegalStateException("Failed to \"clone\"\nthe repository"));
+        }
+        runReport.get(plugin("other"));
+
+        StringWriter w = new StringWriter();
+        runReport.writeJson(w, runReport.getPlugins(), Duration.ofSeconds(1));
+        String json = w.toString();
+        assertThat(json, containsString("\"coreVersion\": \"2.401\""));
+        assertThat(json, containsString("\"pluginId\": \"text-finder\""));
+        assertThat(json, containsString("\"outcome\": \"FAILURE\""));
+        assertThat(json, containsString("\"message\": \"Failed to \\\"clone\\\"\\nthe repository\""));
+        assertThat(json, containsString("{\"phase\": \"checkout\", \"detail\": null"));
+        assertThat(json, containsString("\"outcome\": \"SKIPPED\""));
+        assertThat(json, containsString("\"phases\": []"));
+    }
+
+    private static Plugin plugin(String pluginId) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withName(pluginId)
+                .withVersion("1.0")
+                .withGitUrl("https://github.com/jenkinsci/" + pluginId + "-plugin.git")
+                .withTag(pluginId + "-1.0")
+                .withGitHash("0123456789abcdef0123456789abcdef01234567")
+                .withModule(":" + pluginId)
+                .build();
+    }
+}
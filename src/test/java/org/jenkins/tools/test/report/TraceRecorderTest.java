@@ -0,0 +1,73 @@
+package org.jenkins.tools.test.report;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TraceRecorderTest {
+
+    @Test
+    void spansOnOneTrackPerThread(@TempDir File tempDir) throws Exception {
+        TraceRecorder recorder = new TraceRecorder();
+        try (TraceRecorder.Span outer = recorder.start("phase", "compilation")) {
+            try (TraceRecorder.Span inner =
+                    recorder.start("maven", "clean verify").arg("module", ":foo").arg("skipped", null)) {
+                inner.arg("exitStatus", 0);
+            }
+        }
+        Thread worker = new Thread(
+                () -> {
+                    try (TraceRecorder.Span span = recorder.start("git", "clone \"quoted\"")) {
+                        // nothing to do
+                    }
+                },
+                "pct-worker-1");
+        worker.start();
+        worker.join();
+        recorder.write(tempDir, "run");
+
+        String trace = read(tempDir);
+        assertThat(trace, startsWith("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [\n"));
+        assertThat(trace, endsWith("\n]}\n"));
+        assertThat(trace, containsString("\"name\": \"process_name\", \"args\": {\"name\": \"run\"}"));
+        assertThat(
+                trace,
+                containsString("\"tid\": " + Thread.currentThread().getId() + ", \"name\": \"thread_name\", \"args\": "
+                        + "{\"name\": \"" + Thread.currentThread().getName() + "\"}"));
+        assertThat(
+                trace,
+                containsString("\"tid\": " + worker.getId() + ", \"name\": \"thread_name\", \"args\": "
+                        + "{\"name\": \"pct-worker-1\"}"));
+        assertThat(trace, containsString("\"cat\": \"phase\", \"name\": \"compilation\""));
+        assertThat(trace, containsString("\"args\": {\"module\": \":foo\", \"exitStatus\": \"0\"}}"));
+        assertThat(trace, containsString("\"cat\": \"git\", \"name\": \"clone \\\"quoted\\\"\""));
+        assertThat(trace, not(containsString("skipped")));
+    }
+
+    @Test
+    void boundedNumberOfSpans(@TempDir File tempDir) throws IOException {
+        TraceRecorder recorder = new TraceRecorder();
+        for (int i = 0; i < TraceRecorder.MAX_SPANS + 3; i++) {
+            recorder.start("maven", "verify").close();
+        }
+        recorder.write(tempDir, "run");
+        assertThat(read(tempDir), containsString("3 spans omitted"));
+
+        recorder.reset();
+        recorder.write(tempDir, "run");
+        assertThat(read(tempDir), not(containsString("\"verify\"")));
+    }
+
+    private static String read(File directory) throws IOException {
+        return Files.readString(new File(directory, TraceRecorder.FILE_NAME).toPath(), StandardCharsets.UTF_8);
+    }
+}
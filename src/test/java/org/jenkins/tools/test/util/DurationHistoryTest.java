@@ -0,0 +1,106 @@
+package org.jenkins.tools.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DurationHistoryTest {
+
+    @Test
+    void savesRecordedDurations(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "durations.properties");
+        Files.writeString(file.toPath(), "git=600000\nmailer=60000\n", StandardCharsets.ISO_8859_1);
+        DurationHistory history = DurationHistory.load(file);
+        history.record("mailer", Duration.ofSeconds(90));
+        history.record("text-finder", Duration.ofSeconds(30));
+
+        // recorded by another run in the meantime
+        Files.writeString(file.toPath(), "git=600000\nmailer=60000\ncredentials=120000\n", StandardCharsets.ISO_8859_1);
+        history.save(file);
+
+        DurationHistory saved = DurationHistory.load(file);
+        assertThat(saved.get("git"), is(Duration.ofMinutes(10)));
+        assertThat(saved.percentile("mailer", 0), is(Duration.ofMinutes(1)));
+        assertThat(saved.percentile("mailer", 100), is(Duration.ofSeconds(90)));
+        assertThat(saved.get("text-finder"), is(Duration.ofSeconds(30)));
+        assertThat(saved.get("credentials"), is(Duration.ofMinutes(2)));
+        assertThat(saved.get("workflow-api"), nullValue());
+    }
+
+    @Test
+    void keepsRecentRuns(@TempDir File tempDir) {
+        File file = new File(tempDir, "durations.properties");
+        for (int run = 1; run <= DurationHistory.MAX_SAMPLES + 5; run++) {
+            DurationHistory history = DurationHistory.load(file);
+            history.record("git", Duration.ofMinutes(run));
+            history.save(file);
+        }
+        DurationHistory history = DurationHistory.load(file);
+        // the first 5 runs were dropped, leaving 6 to 25 minutes
+        assertThat(history.percentile("git", 0), is(Duration.ofMinutes(6)));
+        assertThat(history.get("git"), is(Duration.ofMinutes(15)));
+        assertThat(history.percentile("git", 95), is(Duration.ofMinutes(24)));
+        assertThat(history.percentile("git", 100), is(Duration.ofMinutes(25)));
+        assertThat(history.percentile("mailer", 95), nullValue());
+    }
+
+    @Test
+    void estimatesRepositories(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "durations.properties");
+        Files.writeString(
+                file.toPath(),
+                "pipeline-model-api=60000\npipeline-model-definition=300000\nmailer=30000\n",
+                StandardCharsets.ISO_8859_1);
+        DurationHistory history = DurationHistory.load(file);
+        NavigableMap<String, List<Plugin>> pluginsByRepository = WarExtractor.byRepository(List.of(
+                plugin("pipeline-model-api", "pipeline-model-definition"),
+                plugin("pipeline-model-definition", "pipeline-model-definition"),
+                plugin("mailer", "mailer"),
+                // not in the history, so estimated at the average of the others
+                plugin("git", "git")));
+        Map<String, Duration> estimates = history.estimate(pluginsByRepository);
+        assertThat(estimates.get(url("pipeline-model-definition")), is(Duration.ofSeconds(360)));
+        assertThat(estimates.get(url("mailer")), is(Duration.ofSeconds(30)));
+        assertThat(estimates.get(url("git")), is(Duration.ofSeconds(130)));
+
+        DurationHistory missing = DurationHistory.load(new File(tempDir, "missing.properties"));
+        assertThat(missing.estimate(pluginsByRepository).isEmpty(), is(true));
+    }
+
+    @Test
+    void makespan() {
+        List<Duration> jobs =
+                List.of(Duration.ofMinutes(10), Duration.ofMinutes(6), Duration.ofMinutes(5), Duration.ofMinutes(4));
+        assertThat(DurationHistory.makespan(jobs, 1), is(Duration.ofMinutes(25)));
+        assertThat(DurationHistory.makespan(jobs, 2), is(Duration.ofMinutes(14)));
+        assertThat(DurationHistory.makespan(jobs, 4), is(Duration.ofMinutes(10)));
+        assertThat(DurationHistory.makespan(List.of(), 2), is(Duration.ZERO));
+    }
+
+    private static Plugin plugin(String pluginId, String repository) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withName(pluginId)
+                .withVersion("1.0")
+                .withGitUrl(url(repository))
+                .withTag(repository + "-1.0")
+                .withGitHash("0123456789abcdef0123456789abcdef01234567")
+                .withModule(":" + pluginId)
+                .build();
+    }
+
+    private static String url(String repository) {
+        return "https://github.com/jenkinsci/" + repository + "-plugin.git";
+    }
+}
@@ -0,0 +1,99 @@
+package org.jenkins.tools.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Set;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardTest {
+
+    @Test
+    void parse() {
+        Shard shard = Shard.parse("2/3");
+        assertThat(shard.getIndex(), is(2));
+        assertThat(shard.getCount(), is(3));
+        assertThat(shard.toString(), is("2/3"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("3"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("0/3"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("4/3"));
+        assertThrows(IllegalArgumentException.class, () -> Shard.parse("a/b"));
+    }
+
+    @Test
+    void everyRepositoryInExactlyOneShard() {
+        NavigableMap<String, List<Plugin>> pluginsByRepository = WarExtractor.byRepository(List.of(
+                plugin("workflow-api", "workflow-api"),
+                plugin("pipeline-model-api", "pipeline-model-definition"),
+                plugin("pipeline-model-definition", "pipeline-model-definition"),
+                plugin("pipeline-model-extensions", "pipeline-model-definition"),
+                plugin("git", "git"),
+                plugin("text-finder", "text-finder"),
+                plugin("mailer", "mailer")));
+        Set<String> seen = new HashSet<>();
+        List<Integer> sizes = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            NavigableMap<String, List<Plugin>> selected = new Shard(i, 3).select(pluginsByRepository, null);
+            for (String repository : selected.keySet()) {
+                assertThat(seen.add(repository), is(true));
+                assertThat(selected.get(repository), is(pluginsByRepository.get(repository)));
+            }
+            sizes.add(selected.values().stream().mapToInt(List::size).sum());
+        }
+        assertThat(seen, is(pluginsByRepository.keySet()));
+        // the reactor of 3 plugins alone, and the 4 other repositories split evenly
+        assertThat(sizes, contains(3, 2, 2));
+    }
+
+    @Test
+    void balancedByDuration(@TempDir File tempDir) throws Exception {
+        File file = new File(tempDir, "durations.properties");
+        Files.writeString(file.toPath(), "git=600000\nmailer=60000\ntext-finder=60000\n", StandardCharsets.ISO_8859_1);
+        DurationHistory history = DurationHistory.load(file);
+        NavigableMap<String, List<Plugin>> pluginsByRepository = WarExtractor.byRepository(List.of(
+                plugin("git", "git"),
+                plugin("mailer", "mailer"),
+                plugin("text-finder", "text-finder"),
+                // not in the history, so estimated at the average
+                plugin("credentials", "credentials")));
+        assertThat(new Shard(1, 2).select(pluginsByRepository, history).keySet(), contains(url("git")));
+        assertThat(
+                new Shard(2, 2).select(pluginsByRepository, history).keySet(),
+                contains(url("credentials"), url("mailer"), url("text-finder")));
+    }
+
+    @Test
+    void missingHistory(@TempDir File tempDir) {
+        DurationHistory history = DurationHistory.load(new File(tempDir, "missing.properties"));
+        assertThat(history.isEmpty(), is(true));
+        assertThat(history.get("git"), nullValue());
+    }
+
+    private static Plugin plugin(String pluginId, String repository) {
+        return new Plugin.Builder()
+                .withPluginId(pluginId)
+                .withName(pluginId)
+                .withVersion("1.0")
+                .withGitUrl(url(repository))
+                .withTag(repository + "-1.0")
+                .withGitHash("0123456789abcdef0123456789abcdef01234567")
+                .withModule(":" + pluginId)
+                .build();
+    }
+
+    private static String url(String repository) {
+        return "https://github.com/jenkinsci/" + repository + "-plugin.git";
+    }
+}
@@ -0,0 +1,40 @@
+package org.jenkins.tools.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import org.junit.jupiter.api.Test;
+
+class StreamGobblerTest {
+
+    @Test
+    void smallOutput() throws Exception {
+        StreamGobbler gobbler = gobble("first\nsecond\n", 16);
+        assertThat(gobbler.isTruncated(), is(false));
+        assertThat(gobbler.getOutput(), is("first\nsecond\n"));
+    }
+
+    @Test
+    void largeOutput() throws Exception {
+        StringBuilder output = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            output.append("line ").append(i).append('\n');
+        }
+        StreamGobbler gobbler = gobble(output.toString(), 20);
+        assertThat(gobbler.isTruncated(), is(true));
+        assertThat(
+                gobbler.getOutput(),
+                is("[" + (output.length() - 18) + " bytes of output omitted]" + System.lineSeparator()
+                        + "line 998\nline 999\n"));
+    }
+
+    private static StreamGobbler gobble(String output, int capacity) throws InterruptedException {
+        StreamGobbler gobbler =
+                new StreamGobbler(new ByteArrayInputStream(output.getBytes(Charset.defaultCharset())), capacity);
+        gobbler.start();
+        gobbler.join();
+        return gobbler;
+    }
+}
@@ -2,18 +2,29 @@ package org.jenkins.tools.test.util;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.List;
 import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import org.apache.maven.model.Model;
 import org.jenkins.tools.test.exception.MetadataExtractionException;
 import org.jenkins.tools.test.model.plugin_metadata.Plugin;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 class WarExtractorTest {
 
@@ -25,6 +36,65 @@ class WarExtractorTest {
         assertThat(coreVersion, startsWith("2."));
     }
 
+    @Test
+    void testExtractCoreVersionFromManifest(@TempDir File tempDir) throws Exception {
+        File war = new File(tempDir, "jenkins.war");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Jenkins-Version", "2.401");
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(war), manifest)) {
+            // not a JAR, so this would fail if the nested JARs were read
+            jos.putNextEntry(new JarEntry("WEB-INF/lib/jenkins-core-2.401.jar"));
+            jos.write(new byte[] {1, 2, 3});
+            jos.closeEntry();
+        }
+        WarExtractor warExtractor = new WarExtractor(war, new ServiceHelper(Set.of()), Set.of(), Set.of());
+        assertThat(warExtractor.extractCoreVersion(), is("2.401"));
+    }
+
+    @Test
+    void testExtractPluginsInParallel(@TempDir File tempDir) throws Exception {
+        File war = new File(tempDir, "jenkins.war");
+        Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Jenkins-Version", "2.401");
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(war), manifest)) {
+            for (int i = 0; i < 40; i++) {
+                jos.putNextEntry(new JarEntry("WEB-INF/plugins/plugin-" + i + ".hpi"));
+                jos.write(hpi("plugin-" + i));
+                jos.closeEntry();
+            }
+        }
+
+        WarExtractor serial = new WarExtractor(war, new ServiceHelper(Set.of()), Set.of(), Set.of());
+        serial.setMaxThreads(1);
+        List<Plugin> expected = serial.extractPlugins();
+        assertThat(expected, hasSize(40));
+
+        // 40 plugins are enough for 5 threads
+        WarExtractor parallel = new WarExtractor(war, new ServiceHelper(Set.of()), Set.of(), Set.of());
+        parallel.setMaxThreads(5);
+        assertThat(parallel.extractPlugins(), is(expected));
+    }
+
+    private static byte[] hpi(String pluginId) throws IOException {
+        Manifest manifest = new Manifest();
+        Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Short-Name", pluginId);
+        attributes.putValue("Long-Name", "Plugin " + pluginId);
+        attributes.putValue("Plugin-Version", "1.0");
+        attributes.putValue("Plugin-ScmConnection", "scm:git:https://github.com/jenkinsci/" + pluginId + "-plugin.git");
+        attributes.putValue("Plugin-ScmTag", pluginId + "-1.0");
+        attributes.putValue("Implementation-Build", "0123456789abcdef0123456789abcdef01234567");
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (JarOutputStream jos = new JarOutputStream(baos, manifest)) {
+            jos.putNextEntry(new JarEntry("WEB-INF/lib/" + pluginId + ".jar"));
+            jos.closeEntry();
+        }
+        return baos.toByteArray();
+    }
+
     @Test
     void testExtractPlugins() throws Exception {
         WarExtractor warExtractor =
@@ -43,6 +113,31 @@ class WarExtractorTest {
                         hasProperty("version", startsWith("1."))));
     }
 
+    @Test
+    void testExtractFacts() throws Exception {
+        WarExtractor warExtractor =
+                new WarExtractor(new File("target", "megawar.war"), new ServiceHelper(Set.of()), Set.of(), Set.of());
+        WarFacts facts = warExtractor.extractFacts(true);
+        assertThat(facts.getCoreVersion(), startsWith("2."));
+        assertThat(facts.getPlugins(), hasSize(1));
+        assertThat(facts.getWinstoneVersion(), notNullValue());
+        assertThat(facts.getEnterpriseEditionVersion(), notNullValue());
+
+        WarFacts withoutPlugins = warExtractor.extractFacts(false);
+        assertThat(withoutPlugins.getCoreVersion(), is(facts.getCoreVersion()));
+        assertThat(withoutPlugins.getPlugins(), empty());
+        assertThat(withoutPlugins.usesWebFragment(), is(facts.usesWebFragment()));
+    }
+
+    @Test
+    void testExtractModel() throws Exception {
+        WarExtractor warExtractor =
+                new WarExtractor(new File("target", "megawar.war"), new ServiceHelper(Set.of()), Set.of(), Set.of());
+        Plugin plugin = warExtractor.extractPlugins().get(0);
+        Model model = warExtractor.extractModel(plugin);
+        assertThat(model.getArtifactId(), is("text-finder"));
+    }
+
     @Test
     void testExtractPluginsWithNoMatches() throws Exception {
         WarExtractor warExtractor = new WarExtractor(
@@ -0,0 +1,51 @@
+package org.jenkins.tools.test.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import org.jenkins.tools.test.model.plugin_metadata.Plugin;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class WarIndexTest {
+
+    private static ZipEntry entry(String name, long crc, long size) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setCrc(crc);
+        entry.setSize(size);
+        return entry;
+    }
+
+    @Test
+    void reusesUnchangedEntries(@TempDir File tempDir) throws Exception {
+        File war = new File(tempDir, "jenkins.war");
+        Files.writeString(war.toPath(), "war");
+        File indexFile = new File(tempDir, "index.properties");
+        Plugin plugin = new Plugin.Builder()
+                .withPluginId("text-finder")
+                .withVersion("1.0")
+                .withGitUrl("https://github.com/jenkinsci/text-finder-plugin.git")
+                .withModule(":text-finder")
+                .withName("Text Finder")
+                .build();
+
+        WarIndex cold = WarIndex.load(indexFile);
+        assertThat(cold.isFor(war), is(false));
+        assertThat(cold.get(entry("WEB-INF/plugins/text-finder.hpi", 42, 100)), nullValue());
+        cold.put(entry("WEB-INF/plugins/text-finder.hpi", 42, 100), plugin);
+        cold.save(war);
+
+        WarIndex warm = WarIndex.load(indexFile);
+        assertThat(warm.isFor(war), is(true));
+        Plugin cached = warm.get(entry("WEB-INF/plugins/text-finder.hpi", 42, 100));
+        assertThat(cached, is(plugin));
+        assertThat(cached.getName(), is("Text Finder"));
+        assertThat(cached.getTag(), nullValue());
+        assertThat(warm.get(entry("WEB-INF/plugins/text-finder.hpi", 43, 100)), nullValue());
+        assertThat(warm.get(entry("WEB-INF/plugins/other.hpi", 42, 100)), nullValue());
+    }
+}